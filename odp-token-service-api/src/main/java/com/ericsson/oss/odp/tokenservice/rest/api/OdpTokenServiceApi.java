@@ -17,13 +17,18 @@
 package com.ericsson.oss.odp.tokenservice.rest.api;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.info.Info;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -31,7 +36,11 @@ import io.swagger.v3.oas.annotations.servers.Server;
 import io.swagger.v3.oas.annotations.servers.ServerVariable;
 
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchDeleteParams;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchResult;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenDeleteResult;
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenPage;
 
 /**
  * REST resources for creating, fetching and deleting ODP tokens.
@@ -63,19 +72,30 @@ public interface OdpTokenServiceApi {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Successful fetch of the ODP authentication data from the Token storage by the provided token name.",
+                            headers = @Header(name = HttpHeaders.ETAG, description = "Version of the Token storage."),
                             content = {
                                     @Content(
                                             mediaType = MediaType.APPLICATION_JSON,
                                             schema = @Schema(implementation = ODPTokenAuthData.class))
                             }
                     ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "The Token storage has not been modified since the version provided in If-None-Match.",
+                            headers = @Header(name = HttpHeaders.ETAG, description = "Version of the Token storage.")
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No Token storage exists for the provided token name."
+                    ),
                     @ApiResponse(
                             responseCode = "500",
                             description = "Failure fetching the ODP authentication data for the provided token name."
                     )
             }
     )
-    Response getOdpToken(@PathParam("tokenname") @Parameter(description = "Token storage name to fetch the ODP authentication data from.") final String tokenName);
+    Response getOdpToken(@PathParam("tokenname") @Parameter(description = "Token storage name to fetch the ODP authentication data from.") final String tokenName,
+                         @HeaderParam(HttpHeaders.IF_NONE_MATCH) @Parameter(description = "Optional ETag(s) of the Token storage version(s) already known by the caller.") final String ifNoneMatch);
 
     @POST
     @Consumes({MediaType.APPLICATION_JSON})
@@ -95,7 +115,7 @@ public interface OdpTokenServiceApi {
                     ),
                     @ApiResponse(
                             responseCode = "400",
-                            description = "Bad parameters name or bad tokentype enum value(s) were provided."
+                            description = "Bad parameters name or bad tokentype enum value(s) were provided, or the Idempotency-Key has already been used for other token types."
                     ),
                     @ApiResponse(
                             responseCode = "500",
@@ -103,7 +123,123 @@ public interface OdpTokenServiceApi {
                     )
             }
     )
-    Response createOdpToken(final ODPTokenGenerateParams odpTokenGenerateParams);
+    Response createOdpToken(final ODPTokenGenerateParams odpTokenGenerateParams,
+                            @HeaderParam("Idempotency-Key") @Parameter(description = "Optional key identifying the creation among the retries of the caller, a repeated creation with the same key and username returns the ODP authentication data already created.") final String idempotencyKey);
+
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Creates new ODP Token storages for each of the provided ODP token generate parameters.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The outcome of each ODP Token storage creation, in the order of the provided ODP token generate parameters.",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON,
+                                            array = @ArraySchema(schema = @Schema(implementation = ODPTokenBatchResult.class)))
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "No ODP token generate parameters or too many ODP token generate parameters were provided."
+                    )
+            }
+    )
+    Response createOdpTokens(final List<ODPTokenGenerateParams> odpTokenGenerateParams);
+
+    @POST
+    @Path("/batch/delete")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Deletes the Token storages and invalidates the ODP authentication data for the provided token names and for the Token storages having all the provided labels.",
+            description = "At most the maximum batch size (BATCH_MAX_SIZE, 500 by default) Token storages can be deleted in a batch, the provided "
+                    + "token names and the Token storages having the provided labels together. A batch selecting more is rejected without deleting any.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The outcome of each ODP token deletion, one of deleted, queued, notfound or failed.",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON,
+                                            array = @ArraySchema(schema = @Schema(implementation = ODPTokenDeleteResult.class)))
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Neither token names nor labels were provided, or the token names and labels select more Token storages than the maximum batch size."
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Failure selecting the Token storages having the provided labels."
+                    )
+            }
+    )
+    Response deleteOdpTokens(final ODPTokenBatchDeleteParams odpTokenBatchDeleteParams);
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Returns a page of the ODP tokens matching all the provided filters, without their ODP authentication data.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The page of the ODP tokens, streamed while the Token storages are read. A page may hold fewer ODP tokens than the limit once filtered, the next page exists as long as a cursor is returned.",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON,
+                                            schema = @Schema(implementation = ODPTokenPage.class))
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "An empty user, an unknown token type, a negative age or an out of range limit was provided, or a cursor or limit was provided along with a user."
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Failure reading the Token storages."
+                    )
+            }
+    )
+    Response listOdpTokens(@QueryParam("user") @Parameter(description = "Optional username the ODP tokens have been created for.") final String username,
+                           @QueryParam("tokentype") @Parameter(description = "Optional token types the ODP tokens must all have.") final List<String> tokenTypes,
+                           @QueryParam("minage") @Parameter(description = "Optional minimum age of the ODP tokens, in seconds.") final Long minAgeSeconds,
+                           @QueryParam("maxage") @Parameter(description = "Optional maximum age of the ODP tokens, in seconds.") final Long maxAgeSeconds,
+                           @QueryParam("cursor") @Parameter(description = "Optional cursor of the page, as returned with the previous page.") final String cursor,
+                           @QueryParam("limit") @Parameter(description = "Optional maximum number of Token storages read for the page, all the ODP tokens are listed if missing.") final Integer limit);
+
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Deletes the Token storages and invalidates the ODP authentication data of all the ODP tokens of the provided user.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The outcome of each ODP token deletion, one of deleted, queued, notfound or failed.",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON,
+                                            array = @ArraySchema(schema = @Schema(implementation = ODPTokenDeleteResult.class)))
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "No user was provided."
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Failure selecting the Token storages of the provided user."
+                    )
+            }
+    )
+    Response deleteOdpTokensByUser(@QueryParam("user") @Parameter(description = "Username the ODP tokens have been created for.") final String username);
 
     @DELETE
     @Path("/{tokenname}")
@@ -113,10 +249,117 @@ public interface OdpTokenServiceApi {
             responses = {
                     @ApiResponse(
                             responseCode = "200",
-                            description = "Successful Token storage deletion and ODP authentication data invalidation queuing for the provided token name."
+                            description = "Successful Token storage deletion for the provided token name, which held no ODP authentication data to be invalidated."
+                    ),
+                    @ApiResponse(
+                            responseCode = "202",
+                            description = "The ODP authentication data invalidation is queued, the Token storage is deleted once the ODP authentication data is invalidated."
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No Token storage exists for the provided token name."
                     )
             }
     )
     Response deleteOdpToken(@PathParam("tokenname") @Parameter(description = "Token storage name the ODP authentication data to be invalidated from.") final String tokenName);
 
+    @GET
+    @Path("/async/{tokenname}")
+    @Produces({MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Returns the ODP authentication data from the Token storage fetched by the provided token name, without holding a request thread while the Token storage is fetched.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful fetch of the ODP authentication data from the Token storage by the provided token name.",
+                            headers = @Header(name = HttpHeaders.ETAG, description = "Version of the Token storage."),
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON,
+                                            schema = @Schema(implementation = ODPTokenAuthData.class))
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "The Token storage has not been modified since the version provided in If-None-Match.",
+                            headers = @Header(name = HttpHeaders.ETAG, description = "Version of the Token storage.")
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No Token storage exists for the provided token name."
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Failure fetching the ODP authentication data for the provided token name."
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Too many fetch operations are in progress, or the fetch operation has timed out."
+                    )
+            }
+    )
+    CompletionStage<Response> getOdpTokenAsync(@PathParam("tokenname") @Parameter(description = "Token storage name to fetch the ODP authentication data from.") final String tokenName,
+                                              @HeaderParam(HttpHeaders.IF_NONE_MATCH) @Parameter(description = "Optional ETag(s) of the Token storage version(s) already known by the caller.") final String ifNoneMatch);
+
+    @POST
+    @Path("/async")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Creates new ODP Token storage which stores the ODP authentication data for the provided ODP token generate parameters, without holding a request thread while the ODP authentication data is generated.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful storage of the ODP authentication data into a new Token storage for the provided ODP token generate parameters.",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON,
+                                            schema = @Schema(implementation = ODPTokenAuthData.class))
+                            }
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Bad parameters name or bad tokentype enum value(s) were provided, or the Idempotency-Key has already been used for other token types."
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Failure generating the ODP authentication data or creating new Token storage for the provided ODP token generate parameters."
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Too many create operations are in progress, or the create operation has timed out."
+                    )
+            }
+    )
+    CompletionStage<Response> createOdpTokenAsync(final ODPTokenGenerateParams odpTokenGenerateParams,
+                                                  @HeaderParam("Idempotency-Key") @Parameter(description = "Optional key identifying the creation among the retries of the caller, a repeated creation with the same key and username returns the ODP authentication data already created.") final String idempotencyKey);
+
+    @DELETE
+    @Path("/async/{tokenname}")
+    @Operation(
+            summary = "Deletes the Token storage and invalidates the ODP authentication data for the provided token name, without holding a request thread while the deletion is in progress.",
+            tags = "OdpTokenService",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful Token storage deletion for the provided token name, which held no ODP authentication data to be invalidated."
+                    ),
+                    @ApiResponse(
+                            responseCode = "202",
+                            description = "The ODP authentication data invalidation is queued, the Token storage is deleted once the ODP authentication data is invalidated."
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No Token storage exists for the provided token name."
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Too many delete operations are in progress, or the delete operation has timed out."
+                    )
+            }
+    )
+    CompletionStage<Response> deleteOdpTokenAsync(@PathParam("tokenname") @Parameter(description = "Token storage name the ODP authentication data to be invalidated from.") final String tokenName);
+
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Contains parameters used to select the ODP tokens to be deleted in a batch.
+ */
+public class ODPTokenBatchDeleteParams {
+
+    @ArraySchema(arraySchema = @Schema(description = "Token storage names of the ODP tokens to be deleted.",
+            example = "e.g. tokennames: [ odptoken-secret-20240501123030-1 ]")
+    )
+    @JsonProperty("tokennames")
+    private List<String> tokenNames;
+
+    @Schema(description = "Labels the Token storages of the ODP tokens to be deleted must all have, represented in the form of string name/value pairs.",
+            example = "labels : { app: odp-workflow }")
+    @JsonProperty("labels")
+    private Map<String, String> labels;
+
+    public List<String> getTokenNames() {
+        return tokenNames;
+    }
+
+    public void setTokenNames(List<String> tokenNames) {
+        this.tokenNames = tokenNames;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(Map<String, String> labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ODPTokenBatchDeleteParams that = (ODPTokenBatchDeleteParams) o;
+        return Objects.equals(tokenNames, that.tokenNames) && Objects.equals(labels, that.labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tokenNames, labels);
+    }
+}
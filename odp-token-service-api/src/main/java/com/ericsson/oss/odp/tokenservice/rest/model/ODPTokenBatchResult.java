@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Contains the outcome of a single ODP token creation of a batch.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ODPTokenBatchResult {
+
+    @Schema(description = "The position of the ODP token generate parameters in the batch.")
+    @JsonProperty("index")
+    private final int index;
+
+    @Schema(description = "The created ODP authentication data, missing if the creation failed.")
+    @JsonProperty("authdata")
+    private final ODPTokenAuthData authData;
+
+    @Schema(description = "The reason of the creation failure, missing if the creation succeeded.")
+    @JsonProperty("error")
+    private final String error;
+
+    public ODPTokenBatchResult(final int index, final ODPTokenAuthData authData, final String error) {
+        this.index = index;
+        this.authData = authData;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ODPTokenAuthData getAuthData() {
+        return authData;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Contains the outcome of a single ODP token deletion.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ODPTokenDeleteResult {
+
+    public enum Outcome {
+        DELETED("deleted"),
+        QUEUED("queued"),
+        NOT_FOUND("notfound"),
+        FAILED("failed");
+
+        private final String outcomeName;
+
+        Outcome(final String outcomeName) {
+            this.outcomeName = outcomeName;
+        }
+
+        @Override
+        @JsonValue
+        public String toString() {
+            return String.valueOf(outcomeName);
+        }
+    }
+
+    @Schema(description = "The Token storage name of the ODP token.")
+    @JsonProperty("tokenname")
+    private final String tokenName;
+
+    @Schema(description = "The outcome of the ODP token deletion: deleted, queued if the ODP token is deleted once logged out, "
+            + "notfound if the Token storage does not exist, or failed.")
+    @JsonProperty("outcome")
+    private final Outcome outcome;
+
+    @Schema(description = "The reason of the deletion failure, missing if the deletion succeeded.")
+    @JsonProperty("error")
+    private final String error;
+
+    public ODPTokenDeleteResult(final String tokenName, final Outcome outcome, final String error) {
+        this.tokenName = tokenName;
+        this.outcome = outcome;
+        this.error = error;
+    }
+
+    public String getTokenName() {
+        return tokenName;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -32,7 +32,8 @@ public class ODPTokenGenerateParams {
 
     public enum TokenType {
         SSO("sso"),
-        SSH_KEY_PAIR("sshkeypair");
+        SSH_KEY_PAIR("sshkeypair"),
+        SSH_KEY_PAIR_ECDSA("sshkeypair-ecdsa");
 
         private final String tokenName;
 
@@ -67,6 +68,11 @@ public class ODPTokenGenerateParams {
     @JsonProperty("tokentypes")
     private List<TokenType> tokenTypes;
 
+    @Schema(description = "Time to live of the ODP authentication data in seconds, capped by the maximum TTL of the service. "
+            + "The default TTL of the service is used when not provided.", example = "3600")
+    @JsonProperty("ttl")
+    private Long ttl;
+
     public String getUsername() {
         return username;
     }
@@ -83,16 +89,25 @@ public class ODPTokenGenerateParams {
         this.tokenTypes = tokenTypes;
     }
 
+    public Long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Long ttl) {
+        this.ttl = ttl;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ODPTokenGenerateParams that = (ODPTokenGenerateParams) o;
-        return Objects.equals(username, that.username) && Objects.equals(tokenTypes, that.tokenTypes);
+        return Objects.equals(username, that.username) && Objects.equals(tokenTypes, that.tokenTypes)
+                && Objects.equals(ttl, that.ttl);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(username, tokenTypes);
+        return Objects.hash(username, tokenTypes, ttl);
     }
 }
\ No newline at end of file
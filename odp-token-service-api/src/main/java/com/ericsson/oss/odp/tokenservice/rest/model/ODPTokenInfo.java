@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Contains the metadata of an ODP token, without its authentication data.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ODPTokenInfo {
+
+    @Schema(description = "The Token storage name which stores the ODP authentication data.")
+    @JsonProperty("tokenname")
+    private final String tokenName;
+
+    @ArraySchema(arraySchema = @Schema(description = "Types of the ODP authentication data.",
+            example = "e.g. tokentype: [ sso ]")
+    )
+    @JsonProperty("tokentypes")
+    private final List<ODPTokenGenerateParams.TokenType> tokenTypes;
+
+    @Schema(description = "The creation time of the ODP token, in ISO-8601 format.")
+    @JsonProperty("createdat")
+    private final String createdAt;
+
+    @Schema(description = "The expiry time of the ODP token, in ISO-8601 format, missing if the ODP token has no expiry time.")
+    @JsonProperty("expiresat")
+    private final String expiresAt;
+
+    public ODPTokenInfo(final String tokenName, final List<ODPTokenGenerateParams.TokenType> tokenTypes,
+                        final String createdAt, final String expiresAt) {
+        this.tokenName = tokenName;
+        this.tokenTypes = tokenTypes;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenName() {
+        return tokenName;
+    }
+
+    public List<ODPTokenGenerateParams.TokenType> getTokenTypes() {
+        return tokenTypes;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getExpiresAt() {
+        return expiresAt;
+    }
+}
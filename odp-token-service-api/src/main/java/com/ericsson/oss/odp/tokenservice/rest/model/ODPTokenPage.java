@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Contains a page of the listed ODP tokens.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ODPTokenPage {
+
+    public static final String TOKENS_FIELD = "tokens";
+    public static final String CURSOR_FIELD = "cursor";
+
+    @ArraySchema(arraySchema = @Schema(description = "The metadata of the ODP tokens of the page."))
+    @JsonProperty(TOKENS_FIELD)
+    private final List<ODPTokenInfo> tokens;
+
+    @Schema(description = "The cursor of the next page, missing if the page is the last one.")
+    @JsonProperty(CURSOR_FIELD)
+    private final String cursor;
+
+    public ODPTokenPage(final List<ODPTokenInfo> tokens, final String cursor) {
+        this.tokens = tokens;
+        this.cursor = cursor;
+    }
+
+    public List<ODPTokenInfo> getTokens() {
+        return tokens;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+}
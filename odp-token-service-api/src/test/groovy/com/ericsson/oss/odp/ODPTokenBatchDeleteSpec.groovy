@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp
+
+import spock.lang.Specification
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchDeleteParams
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenDeleteResult
+
+class ODPTokenBatchDeleteSpec extends Specification {
+
+    def "ODPTokenBatchDeleteParams objects with the same selection are equal"() {
+        given: "Two ODPTokenBatchDeleteParams with the same token names and labels"
+        def params1 = new ODPTokenBatchDeleteParams()
+        params1.tokenNames = ["odptoken-secret-1"]
+        params1.labels = ["tenant": "a"]
+        def params2 = new ODPTokenBatchDeleteParams()
+        params2.tokenNames = ["odptoken-secret-1"]
+        params2.labels = ["tenant": "a"]
+
+        expect: "Both ODPTokenBatchDeleteParams are equal"
+        params1 == params2
+        params1.hashCode() == params2.hashCode()
+    }
+
+    def "ODPTokenDeleteResult object encapsulates the deletion outcome"() {
+        when: "ODPTokenDeleteResult is created"
+        ODPTokenDeleteResult result = new ODPTokenDeleteResult("odptoken-secret-1", ODPTokenDeleteResult.Outcome.NOT_FOUND, "No ODP Token exists.")
+
+        then: "ODPTokenDeleteResult encapsulates the outcome"
+        with(result) {
+            tokenName == "odptoken-secret-1"
+            outcome == ODPTokenDeleteResult.Outcome.NOT_FOUND
+            outcome.toString() == "notfound"
+            error == "No ODP Token exists."
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp
+
+import spock.lang.Specification
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchResult
+
+class ODPTokenBatchResultSpec extends Specification {
+
+    def "ODPTokenBatchResult object encapsulates a successful creation outcome"() {
+        given: "A batch index and the created authentication data"
+        def authData = new ODPTokenAuthData("odptoken-secret-20240501123030-1", [:], [])
+
+        when: "ODPTokenBatchResult is created"
+        ODPTokenBatchResult result = new ODPTokenBatchResult(3, authData, null)
+
+        then: "ODPTokenBatchResult encapsulates the authentication data"
+        with(result) {
+            index == 3
+            it.authData.tokenName == "odptoken-secret-20240501123030-1"
+            error == null
+        }
+    }
+
+    def "ODPTokenBatchResult object encapsulates a failed creation outcome"() {
+        when: "ODPTokenBatchResult is created for a failure"
+        ODPTokenBatchResult result = new ODPTokenBatchResult(0, null, "The username param is mandatory.")
+
+        then: "ODPTokenBatchResult encapsulates the failure reason"
+        with(result) {
+            index == 0
+            authData == null
+            error == "The username param is mandatory."
+        }
+    }
+}
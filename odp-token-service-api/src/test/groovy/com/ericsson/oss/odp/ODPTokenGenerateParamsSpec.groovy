@@ -78,4 +78,17 @@ class ODPTokenGenerateParamsSpec extends Specification {
         tokenGenerateParams1.equals(tokenGenerateParams2)
         tokenGenerateParams1.hashCode() == tokenGenerateParams2.hashCode()
     }
-}
\ No newline at end of file
+
+    def "ODPTokenGenerateParams instances with different TTLs are not equal"() {
+        given: "Two ODPTokenGenerateParams instances encapsulating different TTLs"
+        ODPTokenGenerateParams tokenGenerateParams1 = new ODPTokenGenerateParams()
+        tokenGenerateParams1.setUsername("odpuser")
+        tokenGenerateParams1.setTtl(600L)
+        ODPTokenGenerateParams tokenGenerateParams2 = new ODPTokenGenerateParams()
+        tokenGenerateParams2.setUsername("odpuser")
+
+        expect: "Equality is not satisfied"
+        tokenGenerateParams1.getTtl() == 600L
+        !tokenGenerateParams1.equals(tokenGenerateParams2)
+    }
+}
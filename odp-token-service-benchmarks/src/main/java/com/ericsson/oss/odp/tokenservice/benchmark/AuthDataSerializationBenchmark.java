@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.util.Base64Util;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
+
+/**
+ * Measures the Jackson serialization of the ODP token authentication data returned by the REST endpoints, with the
+ * SSO token and the SSH public key of a created token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthDataSerializationBenchmark {
+
+    private final ObjectWriter objectWriter = new ObjectMapper().writerFor(ODPTokenAuthData.class);
+    private ODPTokenAuthData authData;
+
+    @Setup
+    public void setup() throws TokenServiceException {
+        final SSHKeyPair keyPair = SSHKeyPairUtil.generateRSAKeyPair();
+        final Map<String, String> tokenData = new HashMap<>(4);
+        tokenData.put(OdpTokenConstants.ODP_TOKEN_DATA_KEY, "AQIC5wM2LY4Sfcz" + UUID.randomUUID() + "*AAJTSQACMDIAAlNLABM");
+        tokenData.put(OdpTokenConstants.SSH_PUB_KEY, Base64Util.decode(keyPair.getPublicKey()));
+        authData = new ODPTokenAuthData("odptoken-secret-1700000000000-x7k2p-1", tokenData,
+                Arrays.asList(ODPTokenGenerateParams.TokenType.SSO, ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR));
+    }
+
+    @Benchmark
+    public byte[] serializeAuthData() throws JsonProcessingException {
+        return objectWriter.writeValueAsBytes(authData);
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
+
+/**
+ * Compares the generation cost and the Secret data size of the SSH key pair algorithms.
+ * <p>
+ * Run with: java -jar odp-token-service-benchmarks/target/benchmarks.jar KeyAlgorithmBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyAlgorithmBenchmark {
+
+    public enum KeyAlgorithm {
+        RSA,
+        ECDSA;
+
+        SSHKeyPair generate() throws TokenServiceException {
+            return this == RSA ? SSHKeyPairUtil.generateRSAKeyPair() : SSHKeyPairUtil.generateECDSAKeyPair();
+        }
+    }
+
+    @Param({"RSA", "ECDSA"})
+    public KeyAlgorithm algorithm;
+
+    /**
+     * Prints the size of the Secret data holding a key pair of the benchmarked algorithm, the Secret data values
+     * being the base64 encoded keys.
+     */
+    @Setup
+    public void reportSecretSize() throws TokenServiceException {
+        final SSHKeyPair keyPair = algorithm.generate();
+        final int secretDataBytes = OdpTokenConstants.SSH_PRIV_KEY.length() + keyPair.getPrivateKey().length()
+                + OdpTokenConstants.SSH_PUB_KEY.length() + keyPair.getPublicKey().length();
+        System.out.printf("%n%s key pair Secret data size: %d bytes (private key %d, public key %d)%n", algorithm,
+                secretDataBytes, keyPair.getPrivateKey().length(), keyPair.getPublicKey().length());
+    }
+
+    @Benchmark
+    public SSHKeyPair generateKeyPair() throws TokenServiceException {
+        return algorithm.generate();
+    }
+}
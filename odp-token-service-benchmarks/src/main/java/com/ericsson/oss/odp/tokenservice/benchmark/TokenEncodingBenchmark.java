@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.benchmark;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.util.Base64Util;
+import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
+
+/**
+ * Compares the token encoding path against its legacy implementation, on a pre-generated key pair so that only the
+ * encoding is measured.
+ * <p>
+ * The bytes allocated per token encoding are reported as gc.alloc.rate.norm by the GC profiler of the
+ * {@link BenchmarkRunner}: java -jar odp-token-service-benchmarks/target/benchmarks.jar TokenEncodingBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenEncodingBenchmark {
+
+    private KeyPair rsaKeyPair;
+    private String tokenId;
+    private String encodedTokenId;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        rsaKeyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        tokenId = "AQIC5wM2LY4Sfcz" + UUID.randomUUID() + UUID.randomUUID() + "*AAJTSQACMDIAAlNLABM";
+        encodedTokenId = Base64Util.encode(tokenId);
+    }
+
+    @Benchmark
+    public SSHKeyPair encodeRSAKeyPairLegacy() throws IOException {
+        return LegacyTokenEncoding.encodeRSAKeyPair(rsaKeyPair);
+    }
+
+    @Benchmark
+    public SSHKeyPair encodeRSAKeyPair() {
+        return SSHKeyPairUtil.encodeRSAKeyPair(rsaKeyPair);
+    }
+
+    @Benchmark
+    public String encodeTokenIdLegacy() {
+        return LegacyTokenEncoding.encode(tokenId);
+    }
+
+    @Benchmark
+    public String encodeTokenId() {
+        return Base64Util.encode(tokenId);
+    }
+
+    @Benchmark
+    public String decodeTokenIdLegacy() {
+        return LegacyTokenEncoding.decode(encodedTokenId);
+    }
+
+    @Benchmark
+    public String decodeTokenId() {
+        return Base64Util.decode(encodedTokenId);
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.util.TokenTypeUtil;
+
+/**
+ * Measures the formatting and the parsing of the token types annotation of the ODP token Secrets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenTypeBenchmark {
+
+    private final List<ODPTokenGenerateParams.TokenType> tokenTypes =
+            Arrays.asList(ODPTokenGenerateParams.TokenType.SSO, ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR);
+    private final String tokenTypeStrings = TokenTypeUtil.tokenTypesToStringList(tokenTypes);
+
+    @Benchmark
+    public String tokenTypesToStringList() {
+        return TokenTypeUtil.tokenTypesToStringList(tokenTypes);
+    }
+
+    @Benchmark
+    public List<ODPTokenGenerateParams.TokenType> stringListToTokenTypes() {
+        return TokenTypeUtil.stringListToTokenTypes(tokenTypeStrings);
+    }
+}
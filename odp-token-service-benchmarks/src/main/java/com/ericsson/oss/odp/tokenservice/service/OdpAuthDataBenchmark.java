@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.util.Base64Util;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
+import com.ericsson.oss.odp.tokenservice.util.TokenTypeUtil;
+
+/**
+ * Measures the building of the ODP token authentication data out of the Secret data of an SSO and SSH key pair
+ * token, as done for every token fetch. Lives in the service package to reach the package-private builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OdpAuthDataBenchmark {
+
+    private static final String TOKEN_NAME = "odptoken-secret-1700000000000-x7k2p-1";
+
+    private final Map<String, String> secretData = new HashMap<>(4);
+    private String tokenTypesAnnotation;
+
+    @Setup
+    public void setup() throws TokenServiceException {
+        final SSHKeyPair keyPair = SSHKeyPairUtil.generateRSAKeyPair();
+        secretData.put(OdpTokenConstants.ODP_TOKEN_DATA_KEY,
+                Base64Util.encode("AQIC5wM2LY4Sfcz" + UUID.randomUUID() + "*AAJTSQACMDIAAlNLABM"));
+        secretData.put(OdpTokenConstants.SSH_PRIV_KEY, keyPair.getPrivateKey());
+        secretData.put(OdpTokenConstants.SSH_PUB_KEY, keyPair.getPublicKey());
+        tokenTypesAnnotation = TokenTypeUtil.tokenTypesToStringList(
+                Arrays.asList(ODPTokenGenerateParams.TokenType.SSO, ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR));
+    }
+
+    @Benchmark
+    public ODPTokenAuthData buildFetchedAuthData() {
+        final List<ODPTokenGenerateParams.TokenType> tokenTypes = TokenTypeUtil.stringListToTokenTypes(tokenTypesAnnotation);
+        return OdpAuthDataService.buildODPTokenAuthData(TOKEN_NAME, secretData, tokenTypes);
+    }
+
+    @Benchmark
+    public ODPTokenAuthData buildCreatedAuthData() {
+        return OdpAuthDataService.buildODPTokenAuthData(TOKEN_NAME, secretData, Collections.emptyList());
+    }
+}
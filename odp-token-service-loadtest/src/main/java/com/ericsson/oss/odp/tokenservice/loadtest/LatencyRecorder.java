@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies of the requests to an endpoint, reporting the latency percentiles once the load test ends.
+ */
+final class LatencyRecorder {
+
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+    private long errors;
+
+    synchronized void record(final long latencyNanos, final boolean success) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    synchronized long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets a latency percentile, by the nearest-rank method.
+     *
+     * @param percentile - The percentile, between 0 exclusive and 100 inclusive.
+     * @return The latency percentile in milliseconds, or 0 if no latency has been recorded.
+     */
+    synchronized double getPercentileMillis(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.loadtest.LoadTestConfig.Endpoint;
+
+/**
+ * Drives the mixed create, get and delete workload against the REST layer at the target rate.
+ * <p>
+ * The requests are issued open loop, on a fixed schedule independent of the response times, and their latency is
+ * measured from their scheduled start time, so a slow service is not hidden by the driver slowing down with it.
+ * Get and delete requests are issued against the tokens created by the load test, falling back to a token creation
+ * when no token is left.
+ * </p>
+ */
+final class LoadDriver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedDeque<String> liveTokenNames = new ConcurrentLinkedDeque<>();
+    private final Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+    private final AtomicLong usernameIndex = new AtomicLong();
+    private final int totalWeight;
+
+    LoadDriver(final LoadTestConfig config, final String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        for (final Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+        totalWeight = config.mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Runs the workload for the configured duration, then waits for the in-flight requests to complete.
+     *
+     * @return The latency recorders of the endpoints.
+     * @throws InterruptedException If interrupted while running the workload.
+     */
+    Map<Endpoint, LatencyRecorder> run() throws InterruptedException {
+        final ExecutorService workers = Executors.newFixedThreadPool(config.concurrency);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+        final long requests = (long) config.rate * config.durationSeconds;
+        final long startNanos = System.nanoTime();
+        try {
+            for (long request = 0; request < requests; request++) {
+                final long scheduledNanos = startNanos + request * intervalNanos;
+                long waitNanos;
+                while ((waitNanos = scheduledNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                final Endpoint endpoint = nextEndpoint();
+                workers.execute(() -> execute(endpoint, scheduledNanos));
+            }
+        } finally {
+            workers.shutdown();
+        }
+        if (!workers.awaitTermination(READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("In-flight requests still running after the load test end, they are not recorded.");
+            workers.shutdownNow();
+        }
+        return recorders;
+    }
+
+    private Endpoint nextEndpoint() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (final Map.Entry<Endpoint, Integer> weight : config.mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        return Endpoint.CREATE;
+    }
+
+    private void execute(final Endpoint endpoint, final long scheduledNanos) {
+        Endpoint executed = endpoint;
+        String tokenName = null;
+        if (endpoint == Endpoint.GET) {
+            tokenName = liveTokenNames.pollFirst();
+            if (tokenName != null) {
+                liveTokenNames.addLast(tokenName);
+            }
+        } else if (endpoint == Endpoint.DELETE) {
+            tokenName = liveTokenNames.pollFirst();
+        }
+        if (endpoint != Endpoint.CREATE && tokenName == null) {
+            executed = Endpoint.CREATE;
+        }
+
+        boolean success;
+        try {
+            switch (executed) {
+                case GET:
+                    success = request("GET", "/odp-token/" + tokenName, null) != null;
+                    break;
+                case DELETE:
+                    success = request("DELETE", "/odp-token/" + tokenName, null) != null;
+                    break;
+                default:
+                    success = create();
+                    break;
+            }
+        } catch (final IOException e) {
+            LOGGER.debug("{} request failure: {}", executed, e.getMessage());
+            success = false;
+        }
+        recorders.get(executed).record(System.nanoTime() - scheduledNanos, success);
+    }
+
+    private boolean create() throws IOException {
+        final ObjectNode params = objectMapper.createObjectNode();
+        params.put("username", "loadtest-user-" + usernameIndex.incrementAndGet());
+        final ArrayNode tokenTypes = params.putArray("tokentypes");
+        config.tokenTypes.forEach(tokenTypes::add);
+        final byte[] response = request("POST", "/odp-token", objectMapper.writeValueAsBytes(params));
+        if (response == null) {
+            return false;
+        }
+        final JsonNode tokenName = objectMapper.readTree(response).get("tokenname");
+        if (tokenName == null) {
+            return false;
+        }
+        liveTokenNames.addLast(tokenName.asText());
+        return true;
+    }
+
+    /**
+     * Sends a request to the REST layer.
+     *
+     * @return The response body of a successful response, null if the response status is not successful.
+     */
+    private byte[] request(final String method, final String path, final byte[] body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            connection.setRequestProperty("Accept", "application/json");
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream requestBody = connection.getOutputStream()) {
+                    requestBody.write(body);
+                }
+            }
+            final int status = connection.getResponseCode();
+            final boolean successful = status >= 200 && status < 300;
+            final byte[] responseBody = readFully(successful ? connection.getInputStream() : connection.getErrorStream());
+            if (!successful) {
+                LOGGER.debug("{} {} finished with {} status: {}", method, path, status,
+                        new String(responseBody, StandardCharsets.UTF_8));
+                return null;
+            }
+            return responseBody;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] readFully(final InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return new byte[0];
+        }
+        try (InputStream in = inputStream) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.loadtest;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from the loadtest.* system properties.
+ */
+final class LoadTestConfig {
+
+    /**
+     * The REST endpoints driven by the load test.
+     */
+    enum Endpoint {
+        CREATE,
+        GET,
+        DELETE
+    }
+
+    final int port;
+    final int rate;
+    final int durationSeconds;
+    final int concurrency;
+    final Map<Endpoint, Integer> mix;
+    final List<String> tokenTypes;
+    final long ssoLatencyMillis;
+    final long ssoJitterMillis;
+    final URI ssoUrl;
+    final int executorThreads;
+    final int executorQueueSize;
+
+    private LoadTestConfig(final int port, final int rate, final int durationSeconds, final int concurrency,
+                           final Map<Endpoint, Integer> mix, final List<String> tokenTypes, final long ssoLatencyMillis,
+                           final long ssoJitterMillis, final URI ssoUrl, final int executorThreads, final int executorQueueSize) {
+        this.port = port;
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.concurrency = concurrency;
+        this.mix = mix;
+        this.tokenTypes = tokenTypes;
+        this.ssoLatencyMillis = ssoLatencyMillis;
+        this.ssoJitterMillis = ssoJitterMillis;
+        this.ssoUrl = ssoUrl;
+        this.executorThreads = executorThreads;
+        this.executorQueueSize = executorQueueSize;
+    }
+
+    /**
+     * Reads the load test parameters from the system properties, and the SSO stub URL from the SSOSERVICE_URL
+     * environment variable, which the service reads the SSO URL from.
+     * <p>
+     * The managed executor stand-in defaults to the WildFly default managed executor service, 2 threads per
+     * processor, but with a bounded queue so that a saturated executor rejects tasks instead of queueing them forever.
+     * </p>
+     *
+     * @return The load test parameters.
+     * @throws IllegalArgumentException If a parameter is invalid or the SSOSERVICE_URL environment variable is not set.
+     */
+    static LoadTestConfig fromSystemProperties() {
+        final String ssoServiceUrl = System.getenv("SSOSERVICE_URL");
+        if (ssoServiceUrl == null || ssoServiceUrl.isEmpty()) {
+            throw new IllegalArgumentException("The SSOSERVICE_URL environment variable must point to the local SSO stub, "
+                    + "e.g. http://localhost:18081.");
+        }
+        return new LoadTestConfig(
+                positive("loadtest.port", 18080),
+                positive("loadtest.rate", 50),
+                positive("loadtest.duration.seconds", 60),
+                positive("loadtest.concurrency", 64),
+                parseMix(System.getProperty("loadtest.mix", "create=40,get=40,delete=20")),
+                Collections.unmodifiableList(Arrays.asList(System.getProperty("loadtest.token.types", "sso").split(","))),
+                Long.getLong("loadtest.sso.latency.millis", 20L),
+                Long.getLong("loadtest.sso.jitter.millis", 10L),
+                URI.create(ssoServiceUrl),
+                positive("loadtest.executor.threads", Runtime.getRuntime().availableProcessors() * 2),
+                positive("loadtest.executor.queue.size", 1024));
+    }
+
+    private static int positive(final String property, final int defaultValue) {
+        final int value = Integer.getInteger(property, defaultValue);
+        if (value <= 0) {
+            throw new IllegalArgumentException("The " + property + " property must be positive, not " + value + ".");
+        }
+        return value;
+    }
+
+    /**
+     * Parses the endpoint weights of the workload mix, e.g. create=40,get=40,delete=20.
+     */
+    static Map<Endpoint, Integer> parseMix(final String mix) {
+        final Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (final String entry : mix.split(",")) {
+            final String[] endpointWeight = entry.trim().split("=");
+            if (endpointWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid load test mix entry '" + entry + "', expected <endpoint>=<weight>.");
+            }
+            final int weight = Integer.parseInt(endpointWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Invalid negative weight in load test mix entry '" + entry + "'.");
+            }
+            weights.put(Endpoint.valueOf(endpointWeight[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (weights.getOrDefault(Endpoint.CREATE, 0) == 0) {
+            throw new IllegalArgumentException("The load test mix must create tokens to get and delete them.");
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+
+    @Override
+    public String toString() {
+        return "rate=" + rate + "/s, duration=" + durationSeconds + "s, concurrency=" + concurrency + ", mix=" + mix
+                + ", tokenTypes=" + tokenTypes + ", ssoLatency=" + ssoLatencyMillis + "ms+-" + ssoJitterMillis + "ms"
+                + ", executor=" + executorThreads + " threads/" + executorQueueSize + " queue";
+    }
+}
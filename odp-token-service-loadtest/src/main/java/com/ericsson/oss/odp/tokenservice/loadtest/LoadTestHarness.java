@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.loadtest;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.loadtest.LoadTestConfig.Endpoint;
+
+/**
+ * Load tests the token service REST layer against local SSO and Kubernetes stand-ins, reporting the throughput and
+ * the latency percentiles of each endpoint.
+ * <p>
+ * Run with: mvn -P loadtest verify, optionally overriding the loadtest.* properties of the module, e.g.
+ * -Dloadtest.rate=200 -Dloadtest.sso.latency.millis=50.
+ * </p>
+ */
+public final class LoadTestHarness {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    private LoadTestHarness() {}
+
+    public static void main(final String[] args) throws Exception {
+        final LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        LOGGER.info("Starting load test: {}", config);
+
+        try (SsoStubServer ssoStubServer = new SsoStubServer(config.ssoUrl.getPort(), config.ssoLatencyMillis, config.ssoJitterMillis);
+             LocalTokenService tokenService = new LocalTokenService(config.executorThreads, config.executorQueueSize)) {
+            ssoStubServer.start();
+            tokenService.start(config.port);
+
+            final long startMillis = System.currentTimeMillis();
+            final Map<Endpoint, LatencyRecorder> recorders =
+                    new LoadDriver(config, "http://localhost:" + config.port).run();
+            final double elapsedSeconds = (System.currentTimeMillis() - startMillis) / 1000.0;
+
+            System.out.println(report(recorders, elapsedSeconds));
+            System.out.printf("SSO stub: %d impersonations, %d logouts%n",
+                    ssoStubServer.getImpersonations(), ssoStubServer.getLogouts());
+        }
+    }
+
+    static String report(final Map<Endpoint, LatencyRecorder> recorders, final double elapsedSeconds) {
+        final StringBuilder report = new StringBuilder(String.format("%n%-8s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        for (final Map.Entry<Endpoint, LatencyRecorder> entry : recorders.entrySet()) {
+            final LatencyRecorder recorder = entry.getValue();
+            report.append(String.format("%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f%n", entry.getKey(),
+                    recorder.getCount(), recorder.getErrors(), recorder.getCount() / elapsedSeconds,
+                    recorder.getPercentileMillis(50), recorder.getPercentileMillis(99), recorder.getPercentileMillis(99.9)));
+        }
+        return report.toString();
+    }
+}
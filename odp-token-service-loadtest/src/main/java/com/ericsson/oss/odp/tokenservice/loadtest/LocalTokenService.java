@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.loadtest;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.ws.rs.client.Client;
+import java.lang.reflect.Field;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.ssl.SSLContexts;
+import org.jboss.resteasy.plugins.server.sun.http.SunHttpJaxrsServer;
+import org.jboss.resteasy.spi.ResteasyDeployment;
+
+import com.ericsson.oss.odp.tokenservice.generator.SSHKeyPairEcdsaTokenDataGenerator;
+import com.ericsson.oss.odp.tokenservice.generator.SSHKeyPairTokenDataGenerator;
+import com.ericsson.oss.odp.tokenservice.generator.SSOTokenDataGenerator;
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGeneratorRegistry;
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
+import com.ericsson.oss.odp.tokenservice.rest.OdpTokenServiceImpl;
+import com.ericsson.oss.odp.tokenservice.rest.RestMetricsFilter;
+import com.ericsson.oss.odp.tokenservice.service.ClientRequestService;
+import com.ericsson.oss.odp.tokenservice.service.LeaderElectionService;
+import com.ericsson.oss.odp.tokenservice.service.OdpAuthDataBatchService;
+import com.ericsson.oss.odp.tokenservice.service.OdpAuthDataService;
+import com.ericsson.oss.odp.tokenservice.service.OdpTokenListService;
+import com.ericsson.oss.odp.tokenservice.service.SSHKeyPairPool;
+import com.ericsson.oss.odp.tokenservice.service.TokenCleanupEngine;
+import com.ericsson.oss.odp.tokenservice.service.TokenLogoutQueue;
+import com.ericsson.oss.odp.tokenservice.service.TokenNameService;
+import com.ericsson.oss.odp.tokenservice.service.TokenOperationExecutor;
+import com.ericsson.oss.odp.tokenservice.service.TokenServiceSetup;
+import com.ericsson.oss.odp.tokenservice.util.HttpClientUtil;
+
+/**
+ * The token service REST layer running outside the application server, against a CRUD mode Kubernetes mock server
+ * and the SSO URL of the SSOSERVICE_URL environment variable.
+ * <p>
+ * The service beans are created and wired the way the container injects them, by setting their injected fields,
+ * and their lifecycle callbacks are invoked in dependency order.
+ * </p>
+ */
+final class LocalTokenService implements AutoCloseable {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final KubernetesServer kubernetesServer = new KubernetesServer(false, true);
+    private final LocalManagedExecutorService managedExecutorService;
+    private final ManagedThreadFactory managedThreadFactory = new LocalManagedThreadFactory();
+    private final Client httpClient = HttpClientUtil.buildPooledHttpClient(SSLContexts.createDefault(), meterRegistry);
+
+    private K8sSecretManager k8sSecretManager;
+    private SSHKeyPairPool sshKeyPairPool;
+    private TokenCleanupEngine tokenCleanupEngine;
+    private LeaderElectionService leaderElectionService;
+    private TokenLogoutQueue tokenLogoutQueue;
+    private OdpAuthDataBatchService odpAuthDataBatchService;
+    private TokenOperationExecutor tokenOperationExecutor;
+    private SunHttpJaxrsServer server;
+
+    /**
+     * @param executorThreads - The threads of the managed executor stand-in.
+     * @param executorQueueSize - The queue size of the managed executor stand-in.
+     */
+    LocalTokenService(final int executorThreads, final int executorQueueSize) {
+        managedExecutorService = new LocalManagedExecutorService(executorThreads, executorQueueSize);
+    }
+
+    /**
+     * Starts the Kubernetes mock server, the service beans and the REST layer listening on the provided port.
+     *
+     * @param port - The port of the REST layer.
+     */
+    void start(final int port) {
+        kubernetesServer.before();
+
+        final TokenNameService tokenNameService = inject(new TokenNameService(), "tokenServiceSetup", new TokenServiceSetup());
+        k8sSecretManager = new K8sSecretManager();
+        inject(k8sSecretManager, "tokenNameService", tokenNameService);
+        inject(k8sSecretManager, "kubernetesClient", kubernetesServer.getClient());
+        inject(k8sSecretManager, "meterRegistry", meterRegistry);
+        k8sSecretManager.init();
+
+        final ClientRequestService clientRequestService = inject(new ClientRequestService(), "httpClient", httpClient);
+        inject(clientRequestService, "meterRegistry", meterRegistry);
+        clientRequestService.init();
+
+        sshKeyPairPool = new SSHKeyPairPool();
+        inject(sshKeyPairPool, "managedThreadFactory", managedThreadFactory);
+        inject(sshKeyPairPool, "meterRegistry", meterRegistry);
+        sshKeyPairPool.init();
+
+        final TokenDataGeneratorRegistry tokenDataGeneratorRegistry = new TokenDataGeneratorRegistry();
+        tokenDataGeneratorRegistry.register(inject(new SSOTokenDataGenerator(), "clientRequestService", clientRequestService));
+        tokenDataGeneratorRegistry.register(inject(new SSHKeyPairTokenDataGenerator(), "sshKeyPairPool", sshKeyPairPool));
+        tokenDataGeneratorRegistry.register(inject(new SSHKeyPairEcdsaTokenDataGenerator(), "meterRegistry", meterRegistry));
+
+        tokenCleanupEngine = new TokenCleanupEngine();
+        inject(tokenCleanupEngine, "k8SSecretManager", k8sSecretManager);
+        inject(tokenCleanupEngine, "clientRequestService", clientRequestService);
+        inject(tokenCleanupEngine, "meterRegistry", meterRegistry);
+        inject(tokenCleanupEngine, "managedThreadFactory", managedThreadFactory);
+        tokenCleanupEngine.init();
+
+        leaderElectionService = new LeaderElectionService();
+        inject(leaderElectionService, "kubernetesClient", kubernetesServer.getClient());
+        inject(leaderElectionService, "meterRegistry", meterRegistry);
+        inject(leaderElectionService, "managedThreadFactory", managedThreadFactory);
+        leaderElectionService.init();
+
+        tokenLogoutQueue = new TokenLogoutQueue();
+        inject(tokenLogoutQueue, "k8SSecretManager", k8sSecretManager);
+        inject(tokenLogoutQueue, "tokenCleanupEngine", tokenCleanupEngine);
+        inject(tokenLogoutQueue, "leaderElectionService", leaderElectionService);
+        inject(tokenLogoutQueue, "meterRegistry", meterRegistry);
+        inject(tokenLogoutQueue, "managedThreadFactory", managedThreadFactory);
+        tokenLogoutQueue.init();
+
+        final OdpAuthDataService odpAuthDataService = new OdpAuthDataService();
+        inject(odpAuthDataService, "k8SSecretManager", k8sSecretManager);
+        inject(odpAuthDataService, "tokenDataGeneratorRegistry", tokenDataGeneratorRegistry);
+        inject(odpAuthDataService, "tokenCleanupEngine", tokenCleanupEngine);
+        inject(odpAuthDataService, "tokenLogoutQueue", tokenLogoutQueue);
+        inject(odpAuthDataService, "clientRequestService", clientRequestService);
+        inject(odpAuthDataService, "managedExecutorService", managedExecutorService);
+        inject(odpAuthDataService, "meterRegistry", meterRegistry);
+        odpAuthDataService.init();
+
+        odpAuthDataBatchService = new OdpAuthDataBatchService();
+        inject(odpAuthDataBatchService, "odpAuthDataService", odpAuthDataService);
+        inject(odpAuthDataBatchService, "k8SSecretManager", k8sSecretManager);
+        inject(odpAuthDataBatchService, "meterRegistry", meterRegistry);
+        inject(odpAuthDataBatchService, "managedThreadFactory", managedThreadFactory);
+        odpAuthDataBatchService.init();
+
+        final OdpTokenListService odpTokenListService = new OdpTokenListService();
+        inject(odpTokenListService, "k8SSecretManager", k8sSecretManager);
+        inject(odpTokenListService, "odpAuthDataService", odpAuthDataService);
+        inject(odpTokenListService, "meterRegistry", meterRegistry);
+
+        tokenOperationExecutor = new TokenOperationExecutor();
+        inject(tokenOperationExecutor, "managedThreadFactory", managedThreadFactory);
+        inject(tokenOperationExecutor, "meterRegistry", meterRegistry);
+        tokenOperationExecutor.init();
+
+        final OdpTokenServiceImpl odpTokenService = new OdpTokenServiceImpl();
+        inject(odpTokenService, "odpAuthDataService", odpAuthDataService);
+        inject(odpTokenService, "odpAuthDataBatchService", odpAuthDataBatchService);
+        inject(odpTokenService, "tokenOperationExecutor", tokenOperationExecutor);
+        inject(odpTokenService, "odpTokenListService", odpTokenListService);
+
+        final ResteasyDeployment deployment = new ResteasyDeployment();
+        deployment.getResources().add(odpTokenService);
+        deployment.getProviders().add(inject(new RestMetricsFilter(), "meterRegistry", meterRegistry));
+        server = new SunHttpJaxrsServer();
+        server.setPort(port);
+        server.setRootResourcePath("/");
+        server.setDeployment(deployment);
+        server.start();
+    }
+
+    MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop();
+        }
+        if (tokenOperationExecutor != null) {
+            tokenOperationExecutor.destroy();
+        }
+        if (odpAuthDataBatchService != null) {
+            odpAuthDataBatchService.destroy();
+        }
+        if (tokenLogoutQueue != null) {
+            tokenLogoutQueue.destroy();
+        }
+        if (leaderElectionService != null) {
+            leaderElectionService.destroy();
+        }
+        if (tokenCleanupEngine != null) {
+            tokenCleanupEngine.destroy();
+        }
+        if (sshKeyPairPool != null) {
+            sshKeyPairPool.destroy();
+        }
+        if (k8sSecretManager != null) {
+            k8sSecretManager.destroy();
+        }
+        managedExecutorService.shutdownNow();
+        httpClient.close();
+        kubernetesServer.after();
+    }
+
+    /**
+     * Sets an injected field of a service bean, as the container does.
+     */
+    static <T> T inject(final T bean, final String fieldName, final Object value) {
+        try {
+            final Field field = bean.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(bean, value);
+            return bean;
+        } catch (final NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to inject " + bean.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+
+    /**
+     * Stand-in of the container managed executor service, a fixed pool of daemon threads. The queue is bounded by
+     * choice of the load test, not to mirror the WildFly managed executor service: the tasks submitted once it is
+     * full are rejected, so that the saturation of the executor shows up in the results instead of in a growing queue.
+     */
+    static final class LocalManagedExecutorService extends ThreadPoolExecutor implements ManagedExecutorService {
+
+        LocalManagedExecutorService(final int threads, final int queueSize) {
+            super(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                    new LocalManagedThreadFactory());
+            allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Stand-in of the container managed thread factory, creating daemon threads.
+     */
+    static final class LocalManagedThreadFactory implements ManagedThreadFactory {
+
+        private final AtomicInteger threadIndex = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "managed-thread-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in of the ENM SSO impersonate and logout resources, answering after an injected latency.
+ */
+final class SsoStubServer implements AutoCloseable {
+
+    static final String IMPERSONATE_PATH = "/singlesignon/impersonation/impersonate";
+    static final String LOGOUT_PATH = "/singlesignon/logout";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final AtomicLong impersonations = new AtomicLong();
+    private final AtomicLong logouts = new AtomicLong();
+
+    SsoStubServer(final int port, final long latencyMillis, final long jitterMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(IMPERSONATE_PATH, this::impersonate);
+        server.createContext(LOGOUT_PATH, this::logout);
+        server.setExecutor(executor);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    long getImpersonations() {
+        return impersonations.get();
+    }
+
+    long getLogouts() {
+        return logouts.get();
+    }
+
+    private void impersonate(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())
+                    || exchange.getRequestHeaders().getFirst("X-OpenAM-Username") == null) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            injectLatency();
+            impersonations.incrementAndGet();
+            final byte[] body = ("{\"tokenId\":\"AQIC5wM2LY4S" + UUID.randomUUID() + "*AAJTSQACMDE.*\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void logout(final HttpExchange exchange) throws IOException {
+        try {
+            final String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            if (cookie == null || !cookie.contains("iPlanetDirectoryPro=")) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            injectLatency();
+            logouts.incrementAndGet();
+            exchange.getResponseHeaders().set("Location", "/login");
+            exchange.sendResponseHeaders(302, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void injectLatency() {
+        final long delayMillis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.exception;
+
+/**
+ * An InvalidTokenParamsException is thrown when the parameters of
+ * an ODP token request are invalid.
+ */
+public class InvalidTokenParamsException extends TokenServiceException {
+
+    public InvalidTokenParamsException(String message) {
+        super(message);
+    }
+}
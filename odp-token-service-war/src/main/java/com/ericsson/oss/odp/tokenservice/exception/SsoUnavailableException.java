@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.exception;
+
+/**
+ * An SsoUnavailableException is thrown when a request to the SSO
+ * service is rejected or fails without a response, the SSO service
+ * being unreachable, failing or overloaded.
+ */
+public class SsoUnavailableException extends TokenServiceException {
+
+    public SsoUnavailableException(String message) {
+        super(message);
+    }
+}
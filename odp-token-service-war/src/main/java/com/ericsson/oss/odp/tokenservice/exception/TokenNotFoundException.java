@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.exception;
+
+/**
+ * An TokenNotFoundException is thrown when no ODP token exists for
+ * the requested token name.
+ */
+public class TokenNotFoundException extends TokenServiceException {
+
+    public TokenNotFoundException(String tokenName) {
+        super("No ODP Token exists with [" + tokenName + "] token name.");
+    }
+}
@@ -22,7 +22,23 @@ package com.ericsson.oss.odp.tokenservice.exception;
  */
 public class TokenServiceException extends Exception {
 
+    private final int statusCode;
+
     public TokenServiceException(String message) {
+        this(message, 0);
+    }
+
+    public TokenServiceException(String message, int statusCode) {
         super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Gets the HTTP status code of the failed downstream request.
+     *
+     * @return The HTTP status code, or 0 if the failure has no HTTP status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.generator;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
+
+/**
+ * Generates the ECDSA P-256 SSH key pair token data.
+ * <p>
+ * ECDSA key pairs are cheap enough to generate that they are generated on the thread running the token data
+ * generation, unlike the RSA key pairs which are taken from the pre-generated key pair pool.
+ * </p>
+ */
+@ApplicationScoped
+public class SSHKeyPairEcdsaTokenDataGenerator implements TokenDataGenerator {
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Override
+    public ODPTokenGenerateParams.TokenType getTokenType() {
+        return ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR_ECDSA;
+    }
+
+    @Override
+    public Map<String, String> generate(final String username) throws TokenServiceException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        final SSHKeyPair keyPair;
+        try {
+            keyPair = SSHKeyPairUtil.generateECDSAKeyPair();
+        } finally {
+            sample.stop(Timer.builder("odp.token.ssh.key.generation")
+                    .description("Duration of the SSH key pair generation")
+                    .tag("algorithm", "ecdsa")
+                    .tag("trigger", "request")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        final Map<String, String> tokenData = new HashMap<>(4);
+        tokenData.put(OdpTokenConstants.SSH_PRIV_KEY, keyPair.getPrivateKey());
+        tokenData.put(OdpTokenConstants.SSH_PUB_KEY, keyPair.getPublicKey());
+        return tokenData;
+    }
+}
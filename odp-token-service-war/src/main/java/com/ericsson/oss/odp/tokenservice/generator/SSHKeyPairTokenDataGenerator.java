@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.generator;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.service.SSHKeyPairPool;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+
+/**
+ * Generates the SSH key pair token data.
+ */
+@ApplicationScoped
+public class SSHKeyPairTokenDataGenerator implements TokenDataGenerator {
+
+    @Inject
+    SSHKeyPairPool sshKeyPairPool;
+
+    @Override
+    public ODPTokenGenerateParams.TokenType getTokenType() {
+        return ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR;
+    }
+
+    @Override
+    public Map<String, String> generate(final String username) throws TokenServiceException {
+        final SSHKeyPair keyPair = sshKeyPairPool.takeKeyPair();
+        final Map<String, String> tokenData = new HashMap<>(4);
+        tokenData.put(OdpTokenConstants.SSH_PRIV_KEY, keyPair.getPrivateKey());
+        tokenData.put(OdpTokenConstants.SSH_PUB_KEY, keyPair.getPublicKey());
+        return tokenData;
+    }
+}
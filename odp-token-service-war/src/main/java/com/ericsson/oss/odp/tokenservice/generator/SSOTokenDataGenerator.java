@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.generator;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.Map;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.OdpToken;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.service.ClientRequestService;
+import com.ericsson.oss.odp.tokenservice.util.Base64Util;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+
+/**
+ * Generates the SSO token data by impersonating the user.
+ */
+@ApplicationScoped
+public class SSOTokenDataGenerator implements TokenDataGenerator {
+
+    @Inject
+    ClientRequestService clientRequestService;
+
+    @Override
+    public ODPTokenGenerateParams.TokenType getTokenType() {
+        return ODPTokenGenerateParams.TokenType.SSO;
+    }
+
+    @Override
+    public Map<String, String> generate(final String username) throws TokenServiceException {
+        final OdpToken ssoODPToken = clientRequestService.impersonateUser(username);
+        return Collections.singletonMap(OdpTokenConstants.ODP_TOKEN_DATA_KEY, Base64Util.encode(ssoODPToken.getTokenId()));
+    }
+}
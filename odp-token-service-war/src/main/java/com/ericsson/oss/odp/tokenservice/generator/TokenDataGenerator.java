@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.generator;
+
+import java.util.Map;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+
+/**
+ * Generates the ODP token data of a single token type.
+ * <p>
+ * Implementations are discovered as CDI beans by the {@link TokenDataGeneratorRegistry}, so supporting a new
+ * token type only requires adding a new generator bean.
+ * </p>
+ */
+public interface TokenDataGenerator {
+
+    /**
+     * Gets the token type the generator produces the token data for.
+     *
+     * @return The token type.
+     */
+    ODPTokenGenerateParams.TokenType getTokenType();
+
+    /**
+     * Generates the token data for the provided username.
+     *
+     * @param username - The username to generate the token data for.
+     * @return The generated token data, keyed by the Secret data keys and with base64 encoded values.
+     * @throws TokenServiceException If the token data generation is unsuccessful.
+     */
+    Map<String, String> generate(String username) throws TokenServiceException;
+}
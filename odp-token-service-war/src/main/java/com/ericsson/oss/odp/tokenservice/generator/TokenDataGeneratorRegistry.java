@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.generator;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+
+/**
+ * Registry of the token data generators, keyed by the token type they generate the token data for.
+ */
+@ApplicationScoped
+public class TokenDataGeneratorRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenDataGeneratorRegistry.class);
+
+    private final Map<ODPTokenGenerateParams.TokenType, TokenDataGenerator> generators =
+            new EnumMap<>(ODPTokenGenerateParams.TokenType.class);
+
+    @Inject
+    Instance<TokenDataGenerator> tokenDataGenerators;
+
+    /**
+     * Registers all the token data generator beans.
+     */
+    @PostConstruct
+    public void init() {
+        for (final TokenDataGenerator generator : tokenDataGenerators) {
+            register(generator);
+        }
+        LOGGER.info("Token data generators registered for {} token types.", generators.keySet());
+    }
+
+    /**
+     * Registers a token data generator.
+     *
+     * @param generator - The token data generator to be registered.
+     * @throws IllegalStateException If a generator is already registered for the same token type.
+     */
+    public void register(final TokenDataGenerator generator) {
+        final TokenDataGenerator registered = generators.putIfAbsent(generator.getTokenType(), generator);
+        if (registered != null) {
+            throw new IllegalStateException("A token data generator is already registered for '"
+                    + generator.getTokenType() + "' token type.");
+        }
+    }
+
+    /**
+     * Gets the generators of the provided token types, ignoring the duplicated token types.
+     *
+     * @param tokenTypes - The token types to get the generators for.
+     * @return The token data generators.
+     * @throws TokenServiceException If no generator is registered for one of the token types.
+     */
+    public List<TokenDataGenerator> getGenerators(final List<ODPTokenGenerateParams.TokenType> tokenTypes)
+            throws TokenServiceException {
+        final Set<ODPTokenGenerateParams.TokenType> distinctTokenTypes = EnumSet.copyOf(tokenTypes);
+        final List<TokenDataGenerator> tokenTypeGenerators = new ArrayList<>(distinctTokenTypes.size());
+        for (final ODPTokenGenerateParams.TokenType tokenType : distinctTokenTypes) {
+            final TokenDataGenerator generator = generators.get(tokenType);
+            if (generator == null) {
+                throw new TokenServiceException("No token data generator exists for [" + tokenType + "] token type.");
+            }
+            tokenTypeGenerators.add(generator);
+        }
+        return tokenTypeGenerators;
+    }
+}
@@ -16,37 +16,90 @@
 
 package com.ericsson.oss.odp.tokenservice.manager;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
 import javax.ejb.Singleton;
+import javax.ejb.Startup;
 import javax.inject.Inject;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.PartialObjectMetadataList;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.SecretList;
 import io.fabric8.kubernetes.api.model.StatusDetails;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException;
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
 import com.ericsson.oss.odp.tokenservice.service.TokenNameService;
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
 import com.ericsson.oss.odp.tokenservice.util.TokenTypeUtil;
 import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
 
 /**
  * Class to manage k8s Secret objects.
+ * <p>
+ * The odp-token-service labeled Secrets are watched by a shared informer, so the Secrets are fetched by name
+ * from its local indexed store rather than from the API server.
+ * </p>
  */
 @Singleton
+@Startup
+@Lock(LockType.READ)
 public class K8sSecretManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(K8sSecretManager.class);
     private static final Map<String, String> SECRET_METADATA_LABELS = buildKeyValueMetadata(
             OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL, OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE
     );
+    static final String SECRET_NAME_INDEX = "secretName";
+    private static final Function<Secret, List<String>> SECRET_NAME_INDEX_FUNC =
+            secret -> Collections.singletonList(secret.getMetadata().getName());
+    static final String IDEMPOTENCY_KEY_INDEX = "idempotencyKey";
+    static final String USER_INDEX = "user";
+
+    static final int SECRET_LIST_PAGE_SIZE = Math.max(EnvironmentUtil.getInt("SECRET_LIST_PAGE_SIZE", 500), 1);
+    private static final long SECRET_LIST_TIMEOUT_SECONDS = 60;
+    private static final int CREATE_SECRET_MAX_ATTEMPTS = 3;
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_FAILURE = "failure";
+    private static final String PARTIAL_OBJECT_METADATA_LIST_ACCEPT =
+            "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1,application/json";
+
+    private final AtomicLong secretCacheHits = new AtomicLong();
+    private final AtomicLong secretCacheMisses = new AtomicLong();
 
     @Inject
     TokenNameService tokenNameService;
@@ -54,38 +107,144 @@ public class K8sSecretManager {
     @Inject
     KubernetesClient kubernetesClient;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    SharedIndexInformer<Secret> secretInformer;
+
+    /**
+     * Starts watching the odp-token-service labeled Secrets and registers the Secret cache metrics.
+     */
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("odp.token.secret.cache.requests", secretCacheHits, AtomicLong::doubleValue)
+                .description("Secret by name lookups served from the local Secret cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("odp.token.secret.cache.requests", secretCacheMisses, AtomicLong::doubleValue)
+                .description("Secret by name lookups which fell back to the API server")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        try {
+            secretInformer = kubernetesClient.secrets().withLabel(
+                    OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL,
+                    OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE
+            ).runnableInformer(0);
+            final Map<String, Function<Secret, List<String>>> indexers = new HashMap<>(4);
+            indexers.put(SECRET_NAME_INDEX, SECRET_NAME_INDEX_FUNC);
+            indexers.put(IDEMPOTENCY_KEY_INDEX, labelIndexFunc(OdpTokenConstants.ODP_TOKEN_IDEMPOTENCY_KEY_LABEL));
+            indexers.put(USER_INDEX, labelIndexFunc(OdpTokenConstants.ODP_TOKEN_USER_LABEL));
+            secretInformer.addIndexers(indexers);
+            secretInformer.start();
+            Gauge.builder("odp.token.secret.cache.size", secretInformer, informer -> informer.getStore().list().size())
+                    .description("Number of odp-token-service labeled Secrets held in the local Secret cache")
+                    .register(meterRegistry);
+            LOGGER.info("Started watching \"{}:{}\" labeled Secrets.",
+                    OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL, OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE);
+        } catch (Exception e) {
+            LOGGER.error("Failure starting the Secret informer, Secrets will be fetched from the API server: {}",
+                    e.getMessage(), e);
+            secretInformer = null;
+        }
+    }
+
+    private static Function<Secret, List<String>> labelIndexFunc(final String label) {
+        return secret -> {
+            final Map<String, String> labels = secret.getMetadata().getLabels();
+            final String labelValue = labels == null ? null : labels.get(label);
+            return labelValue == null ? Collections.emptyList() : Collections.singletonList(labelValue);
+        };
+    }
+
+    /**
+     * Stops watching the odp-token-service labeled Secrets.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (secretInformer != null) {
+            secretInformer.stop();
+        }
+    }
+
+    /**
+     * Registers a handler of the odp-token-service labeled Secret watch events.
+     * <p>
+     * The handler is notified of all the Secrets already held in the local Secret cache, then of the Secret changes.
+     * </p>
+     *
+     * @param handler - The Secret watch event handler.
+     * @return true if the handler has been registered, false if the Secrets are not being watched.
+     */
+    public boolean addSecretEventHandler(final ResourceEventHandler<Secret> handler) {
+        if (secretInformer == null) {
+            return false;
+        }
+        secretInformer.addEventHandler(handler);
+        return true;
+    }
+
     /**
      * Creates a Secret to store the provided data.
      *
      * @param tokenTypes - The types of the token data.
      * @param tokenData - The Token data to be stored.
+     * @param expiresAt - The expiry time of the token data.
      * @return The name of the Secret created to store the provided data.
      */
     public String createSecret(final List<ODPTokenGenerateParams.TokenType> tokenTypes,
-                        final Map<String, String> tokenData) throws TokenServiceException {
-        final Secret newSecret = buildSecret(tokenTypes, tokenData);
-        LOGGER.debug("New ODP Token Secret to be created with the following content: {}.", newSecret);
-        try {
-            final Secret createdSecret = kubernetesClient.secrets().resource(newSecret).create();
-            final String createSecretName = createdSecret.getMetadata().getName();
-            LOGGER.info("ODP Token Secret successfully created with {} name.", createSecretName);
-            return createSecretName;
-        } catch (Exception e) {
-            LOGGER.error("Create Secret request finished with an error: {}", e.getMessage(), e);
-            throw new TokenServiceException("Failure creating new Secret.");
+                        final Map<String, String> tokenData, final Instant expiresAt) throws TokenServiceException {
+        return createSecret(tokenTypes, tokenData, expiresAt, Collections.emptyMap());
+    }
+
+    /**
+     * Creates a Secret to store the provided data, with additional labels.
+     *
+     * @param tokenTypes - The types of the token data.
+     * @param tokenData - The Token data to be stored.
+     * @param expiresAt - The expiry time of the token data.
+     * @param labels - The labels to be added to the odp-token-service label.
+     * @return The name of the Secret created to store the provided data.
+     */
+    public String createSecret(final List<ODPTokenGenerateParams.TokenType> tokenTypes, final Map<String, String> tokenData,
+                               final Instant expiresAt, final Map<String, String> labels) throws TokenServiceException {
+        for (int attempt = 1; ; attempt++) {
+            final Secret newSecret = buildSecret(tokenTypes, tokenData, expiresAt, labels);
+            LOGGER.debug("New ODP Token Secret to be created with the following content: {}.", newSecret);
+            final Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = OUTCOME_FAILURE;
+            try {
+                final Secret createdSecret = kubernetesClient.secrets().resource(newSecret).create();
+                outcome = OUTCOME_SUCCESS;
+                final String createSecretName = createdSecret.getMetadata().getName();
+                LOGGER.info("ODP Token Secret successfully created with {} name.", createSecretName);
+                return createSecretName;
+            } catch (Exception e) {
+                if (getStatusCode(e) == HttpURLConnection.HTTP_CONFLICT && attempt < CREATE_SECRET_MAX_ATTEMPTS) {
+                    LOGGER.warn("A Secret with {} name already exists, retrying with a new name.", newSecret.getMetadata().getName());
+                    continue;
+                }
+                LOGGER.error("Create Secret request finished with an error: {}", e.getMessage(), e);
+                throw new TokenServiceException("Failure creating new Secret.", getStatusCode(e));
+            } finally {
+                sample.stop(getRequestTimer("create", outcome));
+            }
         }
     }
 
-    private Secret buildSecret(final List<ODPTokenGenerateParams.TokenType> tokenTypes, final Map<String, String> data) {
+    private Secret buildSecret(final List<ODPTokenGenerateParams.TokenType> tokenTypes, final Map<String, String> data,
+                               final Instant expiresAt, final Map<String, String> labels) {
         final String secretName = tokenNameService.getNewTokenName();
+        final Map<String, String> secretLabels = new HashMap<>(labels);
+        secretLabels.putAll(SECRET_METADATA_LABELS);
         final Map<String, String> annotations = buildKeyValueMetadata(
                 OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION, TokenTypeUtil.tokenTypesToStringList(tokenTypes)
         );
+        annotations.put(OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION, expiresAt.toString());
 
         return new SecretBuilder().
                 withNewMetadata()
                 .withName(secretName)
-                .withLabels(SECRET_METADATA_LABELS)
+                .withLabels(secretLabels)
                 .withAnnotations(annotations)
                 .endMetadata()
                 .addToData(data)
@@ -100,39 +259,251 @@ public class K8sSecretManager {
 
     /**
      * Fetches a k8s Secret by its name.
+     * <p>
+     * The Secret is served from the local Secret cache and only fetched from the API server on a cache miss,
+     * e.g. when the Secret has just been created and its watch event has not been received yet.
+     * </p>
      *
      * @param tokenName - The name of the Secret to be fetched.
      * @return - The Secret object matching the provided token name.
      */
     public Secret getSecretByName(final String tokenName) throws TokenServiceException {
+        final Secret cachedSecret = getCachedSecretByName(tokenName);
+        if (cachedSecret != null) {
+            secretCacheHits.incrementAndGet();
+            LOGGER.debug("Fetched cached secret by {} token name {}.", tokenName, cachedSecret);
+            return cachedSecret;
+        }
+        secretCacheMisses.incrementAndGet();
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_FAILURE;
         try {
             final Secret fetchedSecret = kubernetesClient.secrets().withName(tokenName).get();
+            outcome = OUTCOME_SUCCESS;
             LOGGER.debug("Fetched secret by {} token name {}.", tokenName, fetchedSecret);
             return fetchedSecret;
         } catch (Exception e) {
             LOGGER.error("Get Secret by name request finished with an error: {}", e.getMessage(), e);
-            throw new TokenServiceException("Failure getting Secret by name.");
+            throw new TokenServiceException("Failure getting Secret by name.", getStatusCode(e));
+        } finally {
+            sample.stop(getRequestTimer("get", outcome));
         }
     }
 
     /**
-     * Fetches odp-token-service labeled k8s Secrets.
+     * Fetches the Secret by the provided token name from the informer cache, without a request to the API server.
      *
-     * @return List of odp-token-service labeled Secrets
+     * @param tokenName - The token name of the Secret.
+     * @return The cached Secret, or null if it is not cached or the cache has not been synced yet.
      */
-    public List<Secret> getOdpTokenServiceLabeledSecrets() throws TokenServiceException {
+    public Secret getCachedSecretByName(final String tokenName) {
+        if (secretInformer == null || !secretInformer.hasSynced()) {
+            return null;
+        }
+        final List<Secret> cachedSecrets = secretInformer.getIndexer().byIndex(SECRET_NAME_INDEX, tokenName);
+        return cachedSecrets.isEmpty() ? null : cachedSecrets.get(0);
+    }
+
+    /**
+     * Fetches the odp-token-service labeled k8s Secrets created with the provided idempotency key.
+     * <p>
+     * The Secrets are served from the local Secret cache once it has synced, and listed from the API server otherwise.
+     * </p>
+     *
+     * @param idempotencyKey - The hashed idempotency key the Secrets are labeled with.
+     * @return The Secrets created with the idempotency key.
+     */
+    public List<Secret> getSecretsByIdempotencyKey(final String idempotencyKey) throws TokenServiceException {
+        return getSecretsByLabel(IDEMPOTENCY_KEY_INDEX, OdpTokenConstants.ODP_TOKEN_IDEMPOTENCY_KEY_LABEL, idempotencyKey);
+    }
+
+    /**
+     * Fetches the odp-token-service labeled k8s Secrets created for the provided user.
+     * <p>
+     * The Secrets are served from the local Secret cache once it has synced, and listed from the API server otherwise.
+     * </p>
+     *
+     * @param hashedUsername - The hashed username the Secrets are labeled with.
+     * @return The Secrets created for the user.
+     */
+    public List<Secret> getSecretsByUser(final String hashedUsername) throws TokenServiceException {
+        return getSecretsByLabel(USER_INDEX, OdpTokenConstants.ODP_TOKEN_USER_LABEL, hashedUsername);
+    }
+
+    private List<Secret> getSecretsByLabel(final String index, final String label, final String labelValue) throws TokenServiceException {
+        if (secretInformer != null && secretInformer.hasSynced()) {
+            return secretInformer.getIndexer().byIndex(index, labelValue);
+        }
+        final Map<String, String> selector = new HashMap<>(SECRET_METADATA_LABELS);
+        selector.put(label, labelValue);
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_FAILURE;
         try {
-            final SecretList fetchedSecretsByLabel = kubernetesClient.secrets().withLabel(
-                    OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL,
-                    OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE
-            ).list();
-            LOGGER.debug("Found {} \"{}:{}\" labeled Secrets.", fetchedSecretsByLabel.getItems().size(),
+            final List<Secret> fetchedSecrets = kubernetesClient.secrets().withLabels(selector).list().getItems();
+            outcome = OUTCOME_SUCCESS;
+            return fetchedSecrets;
+        } catch (Exception e) {
+            LOGGER.error("Get Secrets by {} label request finished with an error: {}", label, e.getMessage(), e);
+            throw new TokenServiceException("Failure getting Secrets by " + label + " label.", getStatusCode(e));
+        } finally {
+            sample.stop(getRequestTimer("list", outcome));
+        }
+    }
+
+    /**
+     * Fetches a page of the metadata of the odp-token-service labeled k8s Secrets.
+     * <p>
+     * Only the object metadata is requested, so the token data of the Secrets is neither transferred nor held in memory.
+     * </p>
+     *
+     * @param continueToken - The continue token of the previous page, or null to fetch the first page.
+     * @return The page of odp-token-service labeled Secret metadata, whose list metadata holds the continue token
+     * of the next page, if any.
+     */
+    public PartialObjectMetadataList getOdpTokenMetadataPage(final String continueToken) throws TokenServiceException {
+        return getOdpTokenMetadataPage(continueToken, SECRET_LIST_PAGE_SIZE);
+    }
+
+    /**
+     * Fetches a page of the metadata of the odp-token-service labeled k8s Secrets, holding at most the provided
+     * number of Secrets.
+     *
+     * @param continueToken - The continue token of the previous page, or null to fetch the first page.
+     * @param pageSize - The maximum number of Secrets in the page.
+     * @return The page of odp-token-service labeled Secret metadata, whose list metadata holds the continue token
+     * of the next page, if any.
+     * @throws TokenServiceException - If no namespace is configured for the Kubernetes client, or the page cannot be fetched.
+     */
+    public PartialObjectMetadataList getOdpTokenMetadataPage(final String continueToken, final int pageSize) throws TokenServiceException {
+        final String namespace = kubernetesClient.getNamespace();
+        if (namespace == null || namespace.isEmpty()) {
+            LOGGER.error("No namespace is configured for the Kubernetes client, the {} labeled Secrets cannot be listed.",
+                    OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE);
+            throw new TokenServiceException("No Kubernetes namespace is configured to get the "
+                    + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE + " labeled Secrets from.");
+        }
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_FAILURE;
+        try {
+            final HttpClient httpClient = kubernetesClient.getHttpClient();
+            final HttpRequest request = httpClient.newHttpRequestBuilder()
+                    .uri(buildSecretListUrl(namespace, continueToken, pageSize))
+                    .header("Accept", PARTIAL_OBJECT_METADATA_LIST_ACCEPT)
+                    .build();
+            final HttpResponse<String> response = httpClient.sendAsync(request, String.class)
+                    .get(SECRET_LIST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!response.isSuccessful()) {
+                throw new IllegalStateException("Unexpected " + response.code() + " response code: " + response.body());
+            }
+            final PartialObjectMetadataList metadataPage = kubernetesClient.getKubernetesSerialization()
+                    .unmarshal(response.body(), PartialObjectMetadataList.class);
+            LOGGER.debug("Found {} \"{}:{}\" labeled Secrets in the page.", metadataPage.getItems().size(),
                     OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL, OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE);
-            return fetchedSecretsByLabel.getItems();
+            outcome = OUTCOME_SUCCESS;
+            return metadataPage;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenServiceException("Failure getting " + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE + " labeled Secrets.");
         } catch (Exception e) {
             LOGGER.error("Get {} labeled Secrets finished with an error: {}",
                     OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE,  e.getMessage(), e);
             throw new TokenServiceException("Failure getting " + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE + " labeled Secrets.");
+        } finally {
+            sample.stop(getRequestTimer("list.metadata", outcome));
+        }
+    }
+
+    private String buildSecretListUrl(final String namespace, final String continueToken, final int pageSize)
+            throws UnsupportedEncodingException {
+        final StringBuilder url = new StringBuilder(kubernetesClient.getMasterUrl().toString().replaceAll("/+$", ""))
+                .append("/api/v1/namespaces/").append(URLEncoder.encode(namespace, StandardCharsets.UTF_8.name())).append("/secrets")
+                .append("?labelSelector=").append(URLEncoder.encode(
+                        OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL + "=" + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE,
+                        StandardCharsets.UTF_8.name()))
+                .append("&limit=").append(pageSize);
+        if (continueToken != null && !continueToken.isEmpty()) {
+            url.append("&continue=").append(URLEncoder.encode(continueToken, StandardCharsets.UTF_8.name()));
+        }
+        return url.toString();
+    }
+
+    /**
+     * Fetches the odp-token-service labeled k8s Secrets held in the local Secret cache.
+     *
+     * @return The cached Secrets, or null if the Secret cache has not synced.
+     */
+    public List<Secret> getCachedOdpTokenSecrets() {
+        if (secretInformer == null || !secretInformer.hasSynced()) {
+            return null;
+        }
+        return secretInformer.getStore().list();
+    }
+
+    /**
+     * Fetches the names of the odp-token-service labeled k8s Secrets which also have all the provided labels.
+     * <p>
+     * The names are served from the local Secret cache once it has synced, and listed from the API server otherwise.
+     * </p>
+     *
+     * @param labels - The labels the Secrets must all have.
+     * @return List of the matching Secret names.
+     */
+    public List<String> getOdpTokenNamesByLabels(final Map<String, String> labels) throws TokenServiceException {
+        final Map<String, String> selector = new HashMap<>(labels);
+        selector.putAll(SECRET_METADATA_LABELS);
+        if (secretInformer != null && secretInformer.hasSynced()) {
+            return secretInformer.getStore().list().stream()
+                    .map(Secret::getMetadata)
+                    .filter(metadata -> hasLabels(metadata, selector))
+                    .map(ObjectMeta::getName)
+                    .collect(Collectors.toList());
+        }
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_FAILURE;
+        try {
+            final SecretList fetchedSecretsByLabels = kubernetesClient.secrets().withLabels(selector).list();
+            outcome = OUTCOME_SUCCESS;
+            LOGGER.debug("Found {} {} labeled Secrets.", fetchedSecretsByLabels.getItems().size(), selector);
+            return fetchedSecretsByLabels.getItems().stream()
+                    .map(secret -> secret.getMetadata().getName())
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            LOGGER.error("Get {} labeled Secrets finished with an error: {}", selector, e.getMessage(), e);
+            throw new TokenServiceException("Failure getting " + selector + " labeled Secrets.");
+        } finally {
+            sample.stop(getRequestTimer("list", outcome));
+        }
+    }
+
+    private static boolean hasLabels(final ObjectMeta metadata, final Map<String, String> labels) {
+        final Map<String, String> secretLabels = metadata.getLabels();
+        return secretLabels != null && secretLabels.entrySet().containsAll(labels.entrySet());
+    }
+
+    /**
+     * Adds or updates annotations of a k8s Secret by its name, with a single JSON merge patch request.
+     *
+     * @param tokenName - The name of the Secret to be annotated.
+     * @param annotations - The annotations to be added or updated.
+     * @throws TokenNotFoundException - If no Secret exists with the provided name.
+     */
+    public void annotateSecret(final String tokenName, final Map<String, String> annotations) throws TokenServiceException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_FAILURE;
+        try {
+            final String annotationsPatch = kubernetesClient.getKubernetesSerialization().asJson(
+                    Collections.singletonMap("metadata", Collections.singletonMap("annotations", annotations)));
+            kubernetesClient.secrets().withName(tokenName).patch(PatchContext.of(PatchType.JSON_MERGE), annotationsPatch);
+            outcome = OUTCOME_SUCCESS;
+            LOGGER.debug("Secret {} annotated with {}.", tokenName, annotations);
+        } catch (Exception e) {
+            if (getStatusCode(e) == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new TokenNotFoundException(tokenName);
+            }
+            LOGGER.error("Annotate Secret by name request finished with an error: {}", e.getMessage(), e);
+            throw new TokenServiceException("Failure annotating Secret by name.", getStatusCode(e));
+        } finally {
+            sample.stop(getRequestTimer("patch", outcome));
         }
     }
 
@@ -142,8 +513,11 @@ public class K8sSecretManager {
      * @param tokenName - The name of the Secret to be deleted.
      */
     public void deleteSecretByName(final String tokenName) throws TokenServiceException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_FAILURE;
         try {
             List<StatusDetails> deletedSecretStatus = kubernetesClient.secrets().withName(tokenName).delete();
+            outcome = OUTCOME_SUCCESS;
             if (deletedSecretStatus.isEmpty()) {
                 LOGGER.warn("No ODP Token exists with {} token name to be deleted.", tokenName);
                 return;
@@ -151,7 +525,22 @@ public class K8sSecretManager {
             LOGGER.debug("Secret successfully deleted by token name: {}.", tokenName);
         } catch (Exception e) {
             LOGGER.error("Delete Secret by name request finished with an error: {}", e.getMessage(), e);
-            throw new TokenServiceException("Failure deleting Secret by name.");
+            throw new TokenServiceException("Failure deleting Secret by name.", getStatusCode(e));
+        } finally {
+            sample.stop(getRequestTimer("delete", outcome));
         }
     }
+
+    private Timer getRequestTimer(final String operation, final String outcome) {
+        return Timer.builder("odp.token.kubernetes.requests")
+                .description("Duration of the Kubernetes API server requests")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static int getStatusCode(final Exception e) {
+        return e instanceof KubernetesClientException ? ((KubernetesClientException) e).getCode() : 0;
+    }
 }
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.model;
+
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData;
+
+/**
+ * Contains the ODP token authentication data along with the version of the Secret storing it.
+ */
+public class VersionedOdpAuthData {
+
+    private final String version;
+    private final ODPTokenAuthData authData;
+
+    public VersionedOdpAuthData(final String version, final ODPTokenAuthData authData) {
+        this.version = version;
+        this.authData = authData;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the ODP token authentication data.
+     *
+     * @return The ODP token authentication data, or null if it has not been modified since the version known by the caller.
+     */
+    public ODPTokenAuthData getAuthData() {
+        return authData;
+    }
+
+    public boolean isModified() {
+        return authData != null;
+    }
+}
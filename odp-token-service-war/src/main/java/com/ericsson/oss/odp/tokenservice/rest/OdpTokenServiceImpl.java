@@ -18,15 +18,33 @@ package com.ericsson.oss.odp.tokenservice.rest;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException;
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException;
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException;
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.VersionedOdpAuthData;
+import com.ericsson.oss.odp.tokenservice.service.OdpAuthDataBatchService;
 import com.ericsson.oss.odp.tokenservice.service.OdpAuthDataService;
+import com.ericsson.oss.odp.tokenservice.service.OdpTokenListService;
+import com.ericsson.oss.odp.tokenservice.service.TokenOperationExecutor;
 import com.ericsson.oss.odp.tokenservice.rest.api.OdpTokenServiceApi;
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchDeleteParams;
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
 
 /**
@@ -40,17 +58,30 @@ public class OdpTokenServiceImpl implements OdpTokenServiceApi {
     @Inject
     OdpAuthDataService odpAuthDataService;
 
+    @Inject
+    OdpAuthDataBatchService odpAuthDataBatchService;
+
+    @Inject
+    TokenOperationExecutor tokenOperationExecutor;
+
+    @Inject
+    OdpTokenListService odpTokenListService;
+
     /**
      * Gets the ODP token by the provided token name.
      *
      * @param tokenName - The token name to get the token authentication data for.
-     * @return A response encapsulating the fetched token authentication data.
+     * @param ifNoneMatch - The ETag(s) of the ODP token versions known by the caller, or null.
+     * @return A response encapsulating the fetched token authentication data, or not modified if its version is known
+     * by the caller.
      */
     @Override
-    public Response getOdpToken(final String tokenName) {
+    public Response getOdpToken(final String tokenName, final String ifNoneMatch) {
         try {
-            final ODPTokenAuthData odpAuthDataEntity = odpAuthDataService.getOdpAuthData(tokenName);
-            return Response.ok(odpAuthDataEntity).build();
+            return buildGetResponse(odpAuthDataService.getOdpAuthData(tokenName, parseEntityTags(ifNoneMatch)));
+        } catch (TokenNotFoundException e) {
+            LOGGER.debug("The ODP token to be fetched does not exist: {}", e.getMessage());
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
         } catch (TokenServiceException e) {
             LOGGER.error("A failure has occurred which getting the ODP token: " + e.getMessage());
             return Response.serverError().entity((e.getMessage())).build();
@@ -61,33 +92,235 @@ public class OdpTokenServiceImpl implements OdpTokenServiceApi {
      * Creates a new authentication data based on the provided token generate parameters.
      *
      * @param params - The parameters which dictates the type of authentication data to be generated.
+     * @param idempotencyKey - The key identifying the creation among the retries of the caller, or null.
      * @return A response encapsulating the created token authentication data.
      */
     @Override
-    public Response createOdpToken(final ODPTokenGenerateParams params) {
+    public Response createOdpToken(final ODPTokenGenerateParams params, final String idempotencyKey) {
         try {
-            final ODPTokenAuthData odpAuthDataEntity = odpAuthDataService.createOdpAuthData(params.getUsername(), params.getTokenTypes());
+            final ODPTokenAuthData odpAuthDataEntity = odpAuthDataService.createOdpAuthData(params.getUsername(), params.getTokenTypes(),
+                    params.getTtl(), idempotencyKey);
             return Response.ok(odpAuthDataEntity).build();
+        } catch (InvalidTokenParamsException e) {
+            LOGGER.error("A failure has occurred while creating the ODP token: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (SsoUnavailableException e) {
+            LOGGER.error("A failure has occurred while creating the ODP token: " + e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(e.getMessage()).build();
         } catch (TokenServiceException e) {
             LOGGER.error("A failure has occurred while creating the ODP token: " + e.getMessage());
             return Response.serverError().entity((e.getMessage())).build();
         }
     }
 
+    /**
+     * Creates a batch of new authentication data based on the provided token generate parameters.
+     *
+     * @param paramsBatch - The parameters which dictates the type of authentication data to be generated, one per token.
+     * @return A response encapsulating the outcome of each token creation.
+     */
+    @Override
+    public Response createOdpTokens(final List<ODPTokenGenerateParams> paramsBatch) {
+        try {
+            return Response.ok(odpAuthDataBatchService.createOdpAuthDataBatch(paramsBatch)).build();
+        } catch (InvalidTokenParamsException e) {
+            LOGGER.error("A failure has occurred while creating the ODP tokens batch: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (TokenServiceException e) {
+            LOGGER.error("A failure has occurred while creating the ODP tokens batch: " + e.getMessage());
+            return Response.serverError().entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * Deletes the ODP tokens selected by the provided token names and labels.
+     *
+     * @param params - The token names and the labels of the ODP tokens to be deleted.
+     * @return A response encapsulating the outcome of each token deletion.
+     */
+    @Override
+    public Response deleteOdpTokens(final ODPTokenBatchDeleteParams params) {
+        try {
+            return Response.ok(odpAuthDataBatchService.deleteOdpAuthDataBatch(params)).build();
+        } catch (InvalidTokenParamsException e) {
+            LOGGER.error("A failure has occurred while deleting the ODP tokens batch: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (TokenServiceException e) {
+            LOGGER.error("A failure has occurred while deleting the ODP tokens batch: " + e.getMessage());
+            return Response.serverError().entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * Lists a page of the ODP tokens matching all the provided filters, without their authentication data.
+     *
+     * @param username - The username the ODP tokens have been created for, or null.
+     * @param tokenTypes - The token types the ODP tokens must all have, or null.
+     * @param minAgeSeconds - The minimum age of the ODP tokens in seconds, or null.
+     * @param maxAgeSeconds - The maximum age of the ODP tokens in seconds, or null.
+     * @param cursor - The cursor of the page, or null for the first page.
+     * @param limit - The maximum number of Token storages read for the page, or null to list all the ODP tokens.
+     * @return A response streaming the metadata of the ODP tokens of the page.
+     */
+    @Override
+    public Response listOdpTokens(final String username, final List<String> tokenTypes, final Long minAgeSeconds,
+                                  final Long maxAgeSeconds, final String cursor, final Integer limit) {
+        try {
+            return Response.ok(odpTokenListService.listOdpTokens(username, tokenTypes, minAgeSeconds, maxAgeSeconds, cursor, limit),
+                    MediaType.APPLICATION_JSON).build();
+        } catch (InvalidTokenParamsException e) {
+            LOGGER.error("A failure has occurred while listing the ODP tokens: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (TokenServiceException e) {
+            LOGGER.error("A failure has occurred while listing the ODP tokens: " + e.getMessage());
+            return Response.serverError().entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * Deletes all the ODP tokens of the provided user.
+     *
+     * @param username - The username the ODP tokens have been created for.
+     * @return A response encapsulating the outcome of each token deletion.
+     */
+    @Override
+    public Response deleteOdpTokensByUser(final String username) {
+        try {
+            return Response.ok(odpAuthDataBatchService.deleteOdpAuthDataByUser(username)).build();
+        } catch (InvalidTokenParamsException e) {
+            LOGGER.error("A failure has occurred while deleting the ODP tokens of a user: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (TokenServiceException e) {
+            LOGGER.error("A failure has occurred while deleting the ODP tokens of a user: " + e.getMessage());
+            return Response.serverError().entity(e.getMessage()).build();
+        }
+    }
+
     /**
      * Deletes the ODP token by the provided token name param.
      *
      * @param tokenName - The token name to delete the token authentication data for.
-     * @return A response encapsulating the delete outcome.
+     * @return A response encapsulating the delete outcome, accepted if the ODP token is deleted once logged out.
      */
     @Override
     public Response deleteOdpToken(final String tokenName) {
         try {
-            odpAuthDataService.deleteOdpAuthData(tokenName);
-            return Response.ok().build();
+            return buildDeleteResponse(odpAuthDataService.deleteOdpAuthData(tokenName));
+        } catch (TokenNotFoundException e) {
+            LOGGER.debug("The ODP token to be deleted does not exist: {}", e.getMessage());
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
         } catch (TokenServiceException e) {
             LOGGER.error("A failure has occurred while deleting the ODP token: " + e.getMessage());
             return Response.serverError().entity((e.getMessage())).build();
         }
     }
+
+    /**
+     * Gets the ODP token by the provided token name on the get operation executor.
+     *
+     * @param tokenName - The token name to get the token authentication data for.
+     * @param ifNoneMatch - The ETag(s) of the ODP token versions known by the caller, or null.
+     * @return A stage completed with the response encapsulating the fetched token authentication data, or not
+     * modified if its version is known by the caller.
+     */
+    @Override
+    public CompletionStage<Response> getOdpTokenAsync(final String tokenName, final String ifNoneMatch) {
+        final Set<String> knownVersions = parseEntityTags(ifNoneMatch);
+        return tokenOperationExecutor.submit(TokenOperationExecutor.Operation.GET,
+                        () -> odpAuthDataService.getOdpAuthData(tokenName, knownVersions))
+                .handle((versionedAuthData, e) -> e == null
+                        ? buildGetResponse(versionedAuthData)
+                        : buildErrorResponse("getting", e));
+    }
+
+    /**
+     * Creates a new authentication data based on the provided token generate parameters on the create operation executor.
+     *
+     * @param params - The parameters which dictates the type of authentication data to be generated.
+     * @param idempotencyKey - The key identifying the creation among the retries of the caller, or null.
+     * @return A stage completed with the response encapsulating the created token authentication data.
+     */
+    @Override
+    public CompletionStage<Response> createOdpTokenAsync(final ODPTokenGenerateParams params, final String idempotencyKey) {
+        return tokenOperationExecutor.submit(TokenOperationExecutor.Operation.CREATE,
+                        () -> odpAuthDataService.createOdpAuthData(params.getUsername(), params.getTokenTypes(), params.getTtl(), idempotencyKey))
+                .handle((odpAuthDataEntity, e) -> e == null
+                        ? Response.ok(odpAuthDataEntity).build()
+                        : buildErrorResponse("creating", e));
+    }
+
+    /**
+     * Deletes the ODP token by the provided token name param on the delete operation executor.
+     *
+     * @param tokenName - The token name to delete the token authentication data for.
+     * @return A stage completed with the response encapsulating the delete outcome, accepted if the ODP token is
+     * deleted once logged out.
+     */
+    @Override
+    public CompletionStage<Response> deleteOdpTokenAsync(final String tokenName) {
+        return tokenOperationExecutor.submit(TokenOperationExecutor.Operation.DELETE, () -> odpAuthDataService.deleteOdpAuthData(tokenName))
+                .handle((deleted, e) -> e == null
+                        ? buildDeleteResponse(deleted)
+                        : buildErrorResponse("deleting", e));
+    }
+
+    /**
+     * Parses the If-None-Match header into the ODP token versions known by the caller.
+     * <p>
+     * The weak and strong ETags are compared alike, as If-None-Match uses the weak comparison.
+     * </p>
+     *
+     * @param ifNoneMatch - The If-None-Match header value, or null.
+     * @return The ODP token versions, empty if none is provided.
+     */
+    static Set<String> parseEntityTags(final String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<String> versions = new HashSet<>();
+        for (final String entityTag : ifNoneMatch.split(",")) {
+            String version = entityTag.trim();
+            if (version.startsWith("W/")) {
+                version = version.substring(2);
+            }
+            if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+                version = version.substring(1, version.length() - 1);
+            }
+            if (!version.isEmpty()) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    private static Response buildGetResponse(final VersionedOdpAuthData versionedAuthData) {
+        final EntityTag entityTag = versionedAuthData.getVersion() == null ? null : new EntityTag(versionedAuthData.getVersion());
+        if (!versionedAuthData.isModified()) {
+            return entityTag == null ? Response.notModified().build() : Response.notModified(entityTag).build();
+        }
+        return Response.ok(versionedAuthData.getAuthData()).tag(entityTag).build();
+    }
+
+    private static Response buildDeleteResponse(final boolean deleted) {
+        return deleted ? Response.ok().build() : Response.accepted().build();
+    }
+
+    private static Response buildErrorResponse(final String operation, final Throwable throwable) {
+        final Throwable e = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        LOGGER.error("A failure has occurred while " + operation + " the ODP token: " + e.getMessage());
+        if (e instanceof RejectedExecutionException || e instanceof TimeoutException || e instanceof SsoUnavailableException) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(e.getMessage()).build();
+        }
+        if (e instanceof InvalidTokenParamsException) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        if (e instanceof TokenNotFoundException) {
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+        }
+        if (e instanceof TokenServiceException) {
+            return Response.serverError().entity(e.getMessage()).build();
+        }
+        return Response.serverError().entity("Failure " + operation + " the ODP token.").build();
+    }
 }
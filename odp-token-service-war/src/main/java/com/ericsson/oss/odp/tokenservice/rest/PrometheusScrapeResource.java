@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest;
+
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Exposes the service metrics in the Prometheus text format, on the path the Prometheus scrape annotations of the
+ * service point to.
+ */
+@Stateless
+@Path("/actuator/prometheus")
+public class PrometheusScrapeResource {
+
+    static final String PROMETHEUS_TEXT_FORMAT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Scrapes the service metrics.
+     *
+     * @return A response encapsulating the service metrics in the Prometheus text format.
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT_FORMAT)
+    public Response scrape() {
+        if (!(meterRegistry instanceof PrometheusMeterRegistry)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return Response.ok(((PrometheusMeterRegistry) meterRegistry).scrape()).build();
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the REST requests and counts the failed ones, per resource method of the {@link OdpTokenServiceImpl}.
+ * <p>
+ * The timer is stopped once the response is sent, so the asynchronous resource methods are timed until their
+ * response is resumed.
+ * </p>
+ */
+@Provider
+@ApplicationScoped
+public class RestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String TIMER_SAMPLE_PROPERTY = RestMetricsFilter.class.getName() + ".sample";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        if (isTimed()) {
+            requestContext.setProperty(TIMER_SAMPLE_PROPERTY, Timer.start(meterRegistry));
+        }
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+        final Object sample = requestContext.getProperty(TIMER_SAMPLE_PROPERTY);
+        if (!(sample instanceof Timer.Sample)) {
+            return;
+        }
+        final String operation = resourceInfo.getResourceMethod().getName();
+        final int status = responseContext.getStatus();
+        ((Timer.Sample) sample).stop(Timer.builder("odp.token.rest.requests")
+                .description("Duration of the ODP token REST requests")
+                .tag("operation", operation)
+                .tag("method", requestContext.getMethod())
+                .tag("status", String.valueOf(status))
+                .tag("outcome", getOutcome(status))
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        if (status >= 400) {
+            meterRegistry.counter("odp.token.rest.errors", "operation", operation, "status", String.valueOf(status))
+                    .increment();
+        }
+    }
+
+    private boolean isTimed() {
+        final Method resourceMethod = resourceInfo.getResourceMethod();
+        return resourceMethod != null && OdpTokenServiceImpl.class.isAssignableFrom(resourceInfo.getResourceClass());
+    }
+
+    private static String getOutcome(final int status) {
+        if (status >= 500) {
+            return "server_error";
+        }
+        if (status >= 400) {
+            return "client_error";
+        }
+        return "success";
+    }
+}
@@ -16,23 +16,43 @@
 
 package com.ericsson.oss.odp.tokenservice.service;
 
+import javax.annotation.PostConstruct;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
 import javax.ejb.Singleton;
 import javax.inject.Inject;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException;
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
 import com.ericsson.oss.odp.tokenservice.model.OdpToken;
+import com.ericsson.oss.odp.tokenservice.util.CircuitBreaker;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
 
 /**
  * Class with user impersonate and tokenId logout operations.
+ * <p>
+ * The SSO service requests go through a bulkhead capping the concurrent requests, so a slow SSO service cannot hold
+ * all the request threads, and through a circuit breaker failing them fast while the SSO service keeps failing or
+ * responding slowly. Both reject the requests with a {@link SsoUnavailableException}.
+ * </p>
  */
 @Singleton
+@Lock(LockType.READ)
 public class ClientRequestService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientRequestService.class);
@@ -40,30 +60,65 @@ public class ClientRequestService {
     private static final String BASE_PATH = System.getenv("SSOSERVICE_URL");
     static final String USER_IMPERSONATE_RESOURCE_PATH = BASE_PATH + "/singlesignon/impersonation/impersonate";
     static final String USER_LOGOUT_RESOURCE_PATH = BASE_PATH + "/singlesignon/logout";
+    static final int BULKHEAD_MAX_CONCURRENT_CALLS = Math.max(EnvironmentUtil.getInt("SSO_BULKHEAD_MAX_CONCURRENT_CALLS", 32), 1);
+    static final long BULKHEAD_MAX_WAIT_MILLIS = Math.max(EnvironmentUtil.getLong("SSO_BULKHEAD_MAX_WAIT_MS", 100L), 0L);
+    static final int CIRCUIT_BREAKER_WINDOW_SIZE = Math.max(EnvironmentUtil.getInt("SSO_CIRCUIT_BREAKER_WINDOW_SIZE", 50), 1);
+    static final int CIRCUIT_BREAKER_MINIMUM_CALLS =
+            Math.min(Math.max(EnvironmentUtil.getInt("SSO_CIRCUIT_BREAKER_MINIMUM_CALLS", 20), 1), CIRCUIT_BREAKER_WINDOW_SIZE);
+    static final int CIRCUIT_BREAKER_FAILURE_RATE_PERCENT =
+            Math.min(Math.max(EnvironmentUtil.getInt("SSO_CIRCUIT_BREAKER_FAILURE_RATE_PERCENT", 50), 1), 100);
+    static final long CIRCUIT_BREAKER_SLOW_CALL_MILLIS = Math.max(EnvironmentUtil.getLong("SSO_CIRCUIT_BREAKER_SLOW_CALL_MS", 5000L), 1L);
+    static final long CIRCUIT_BREAKER_OPEN_MILLIS = Math.max(EnvironmentUtil.getLong("SSO_CIRCUIT_BREAKER_OPEN_MS", 30000L), 1L);
+    static final int CIRCUIT_BREAKER_HALF_OPEN_CALLS = Math.max(EnvironmentUtil.getInt("SSO_CIRCUIT_BREAKER_HALF_OPEN_CALLS", 3), 1);
+    private static final String OPERATION_IMPERSONATE = "impersonate";
+    private static final String OPERATION_LOGOUT = "logout";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_FAILURE = "failure";
 
     @Inject
     Client httpClient;
+    @Inject
+    MeterRegistry meterRegistry;
+
+    final Semaphore bulkhead = new Semaphore(BULKHEAD_MAX_CONCURRENT_CALLS);
+    CircuitBreaker circuitBreaker = new CircuitBreaker(CIRCUIT_BREAKER_WINDOW_SIZE, CIRCUIT_BREAKER_MINIMUM_CALLS,
+            CIRCUIT_BREAKER_FAILURE_RATE_PERCENT, CIRCUIT_BREAKER_SLOW_CALL_MILLIS, CIRCUIT_BREAKER_OPEN_MILLIS,
+            CIRCUIT_BREAKER_HALF_OPEN_CALLS);
+
+    @PostConstruct
+    public void init() {
+        for (final CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("odp.token.sso.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .description("Whether the SSO service circuit breaker is in the given state")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("odp.token.sso.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Number of the SSO service requests which can still be sent concurrently")
+                .register(meterRegistry);
+    }
 
     /**
      * Operation to impersonate a user matching the given username.
      *
      * @param username The username to be impersonated
      * @return The ODP Token for the impersonated user
+     * @throws SsoUnavailableException If the SSO service is unavailable
      * @throws TokenServiceException If the impersonation is unsuccessful
      */
     public OdpToken impersonateUser(final String username) throws TokenServiceException {
         LOGGER.debug("Impersonating the user by {} username.", username);
         final WebTarget target = httpClient.target(USER_IMPERSONATE_RESOURCE_PATH);
         final Invocation.Builder invocationBuilder = target.request().header("X-OpenAM-Username", username);
-        try (final Response response = invocationBuilder.post(null)) {
-            final int statusCode = response.getStatusInfo().getStatusCode();
-            if (statusCode != Response.Status.OK.getStatusCode()) {
-                final String errorMsg = response.hasEntity() ? String.valueOf(response.readEntity(String.class)) : "";
-                LOGGER.error("User impersonate request finished with an unsuccessful {} status. Response message: {}", statusCode, errorMsg);
-                throw new TokenServiceException("Failure impersonating the user.");
-            }
-            return response.readEntity(OdpToken.class);
-        }
+        return send(OPERATION_IMPERSONATE, Response.Status.OK.getStatusCode(), () -> invocationBuilder.post(null),
+                (response, statusCode) -> {
+                    if (statusCode != Response.Status.OK.getStatusCode()) {
+                        LOGGER.error("User impersonate request finished with an unsuccessful {} status. Response message: {}",
+                                statusCode, getErrorMessage(response));
+                        throw new TokenServiceException("Failure impersonating the user.");
+                    }
+                    return response.readEntity(OdpToken.class);
+                });
     }
 
     /**
@@ -71,19 +126,106 @@ public class ClientRequestService {
      *
      * @param tokenId The tokenId to be logged out
      * @return true if the logout was successful, false otherwise
+     * @throws SsoUnavailableException If the SSO service is unavailable
      */
-    public boolean logoutUser(final String tokenId) {
+    public boolean logoutUser(final String tokenId) throws SsoUnavailableException {
+        return requestLogout(tokenId) == Response.Status.FOUND.getStatusCode();
+    }
+
+    /**
+     * Operation to logout the given tokenId, reporting the status of the logout response.
+     *
+     * @param tokenId The tokenId to be logged out
+     * @return The HTTP status code of the logout response, 302 if the logout was successful
+     * @throws SsoUnavailableException If the SSO service is unavailable
+     */
+    public int requestLogout(final String tokenId) throws SsoUnavailableException {
         LOGGER.debug("Logging out the user by {} token id.", tokenId);
         WebTarget target = httpClient.target(USER_LOGOUT_RESOURCE_PATH);
         final Invocation.Builder invocationBuilder = target.request().cookie("iPlanetDirectoryPro", tokenId);
-        try (final Response response = invocationBuilder.get()) {
+        return send(OPERATION_LOGOUT, Response.Status.FOUND.getStatusCode(), invocationBuilder::get,
+                (response, statusCode) -> {
+                    if (statusCode != Response.Status.FOUND.getStatusCode()) {
+                        LOGGER.error("User logout request finished with an unsuccessful {} status. Response message: {}",
+                                statusCode, getErrorMessage(response));
+                    }
+                    return statusCode;
+                });
+    }
+
+    /**
+     * Sends a request to the SSO service through the bulkhead and the circuit breaker, the request counting as failed
+     * for the circuit breaker if it gets no response or a 429 or 5xx response.
+     */
+    private <T, E extends Exception> T send(final String operation, final int successStatusCode, final Supplier<Response> request,
+                                            final ResponseHandler<T, E> responseHandler) throws SsoUnavailableException, E {
+        acquirePermit(operation);
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        final long startNanos = System.nanoTime();
+        String outcome = OUTCOME_FAILURE;
+        boolean ssoFailure = true;
+        try (final Response response = request.get()) {
             final int statusCode = response.getStatusInfo().getStatusCode();
-            if (statusCode != Response.Status.FOUND.getStatusCode()) {
-                final String errorMsg = response.hasEntity() ? String.valueOf(response.readEntity(String.class)) : "";
-                LOGGER.error("User logout request finished with an unsuccessful {} status. Response message: {}", statusCode, errorMsg);
-                return false;
+            ssoFailure = statusCode == 429 || statusCode >= 500;
+            final T result = responseHandler.handle(response, statusCode);
+            outcome = statusCode == successStatusCode ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
+            return result;
+        } catch (final ProcessingException e) {
+            if (!ssoFailure) {
+                throw e;
             }
-            return true;
+            LOGGER.error("The SSO service {} request has failed: {}", operation, e.getMessage());
+            throw new SsoUnavailableException("The SSO service is unavailable.");
+        } finally {
+            if (ssoFailure) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess(System.nanoTime() - startNanos);
+            }
+            bulkhead.release();
+            sample.stop(getRequestTimer(operation, outcome));
+        }
+    }
+
+    private void acquirePermit(final String operation) throws SsoUnavailableException {
+        final boolean bulkheadPermitted;
+        try {
+            bulkheadPermitted = bulkhead.tryAcquire(BULKHEAD_MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SsoUnavailableException("Interrupted while waiting to send the SSO service request.");
+        }
+        if (!bulkheadPermitted) {
+            reject(operation, "bulkhead_full");
+            throw new SsoUnavailableException("Too many concurrent SSO service requests.");
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            reject(operation, "circuit_open");
+            throw new SsoUnavailableException("The SSO service is unavailable.");
         }
     }
-}
\ No newline at end of file
+
+    private void reject(final String operation, final String reason) {
+        LOGGER.debug("The SSO service {} request has been rejected: {}.", operation, reason);
+        meterRegistry.counter("odp.token.sso.rejected", "operation", operation, "reason", reason).increment();
+    }
+
+    private static String getErrorMessage(final Response response) {
+        return response.hasEntity() ? String.valueOf(response.readEntity(String.class)) : "";
+    }
+
+    private Timer getRequestTimer(final String operation, final String outcome) {
+        return Timer.builder("odp.token.sso.requests")
+                .description("Duration of the SSO service requests")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T, E extends Exception> {
+        T handle(Response response, int statusCode) throws E;
+    }
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfig;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElector;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+
+/**
+ * Class which elects, among the service replicas, the one cleaning up the expired ODP tokens.
+ * <p>
+ * The replicas compete for a coordination.k8s.io Lease, the holder of the Lease is the leader. The Lease is released
+ * when the leader shuts down, and taken over once it has not been renewed for the Lease duration otherwise. An ended
+ * election is started again after a backoff, doubling from the retry period up to the Lease duration while the
+ * elections keep ending without this replica leading.
+ * </p>
+ */
+@Singleton
+@Startup
+@Lock(LockType.READ)
+public class LeaderElectionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeaderElectionService.class);
+
+    static final boolean LEADER_ELECTION_ENABLED =
+            Boolean.parseBoolean(System.getenv().getOrDefault("LEADER_ELECTION_ENABLED", "true"));
+    private static final String LEASE_NAME =
+            System.getenv().getOrDefault("LEADER_ELECTION_LEASE_NAME", "eric-odp-token-service-cleanup");
+    private static final Duration LEASE_DURATION =
+            Duration.ofSeconds(Math.max(EnvironmentUtil.getLong("LEADER_ELECTION_LEASE_DURATION_SECONDS", 15L), 1L));
+    private static final Duration RENEW_DEADLINE =
+            Duration.ofSeconds(Math.max(EnvironmentUtil.getLong("LEADER_ELECTION_RENEW_DEADLINE_SECONDS", 10L), 1L));
+    private static final Duration RETRY_PERIOD =
+            Duration.ofSeconds(Math.max(EnvironmentUtil.getLong("LEADER_ELECTION_RETRY_PERIOD_SECONDS", 2L), 1L));
+
+    private volatile boolean leader = !LEADER_ELECTION_ENABLED;
+    private volatile boolean running;
+    private final AtomicInteger electionRestarts = new AtomicInteger();
+    private volatile CompletableFuture<?> election;
+    private LeaderElector leaderElector;
+    private ScheduledExecutorService electionScheduler;
+
+    @Inject
+    KubernetesClient kubernetesClient;
+    @Inject
+    MeterRegistry meterRegistry;
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    /**
+     * Starts competing for the cleanup Lease and registers the leadership metric.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("odp.token.cleanup.leader", this, service -> service.isLeader() ? 1 : 0)
+                .description("Whether this replica is the leader cleaning up the expired ODP tokens")
+                .register(meterRegistry);
+        if (!LEADER_ELECTION_ENABLED) {
+            LOGGER.info("Leader election is disabled, the expired ODP tokens are cleaned up by this replica.");
+            return;
+        }
+        final String identity = getIdentity();
+        final LeaderElectionConfig leaderElectionConfig = new LeaderElectionConfigBuilder()
+                .withName(LEASE_NAME)
+                .withLock(new LeaseLock(kubernetesClient.getNamespace(), LEASE_NAME, identity))
+                .withLeaseDuration(LEASE_DURATION)
+                .withRenewDeadline(RENEW_DEADLINE)
+                .withRetryPeriod(RETRY_PERIOD)
+                .withReleaseOnCancel(true)
+                .withLeaderCallbacks(new LeaderCallbacks(this::onStartLeading, this::onStopLeading, this::onNewLeader))
+                .build();
+        leaderElector = kubernetesClient.leaderElector().withConfig(leaderElectionConfig).build();
+        electionScheduler = new ScheduledThreadPoolExecutor(1, managedThreadFactory);
+        running = true;
+        startElection();
+        LOGGER.info("Started competing for the {} Lease as {}.", LEASE_NAME, identity);
+    }
+
+    /**
+     * Stops competing for the cleanup Lease, releasing it if held.
+     */
+    @PreDestroy
+    public void destroy() {
+        synchronized (this) {
+            running = false;
+            if (election != null) {
+                election.cancel(true);
+            }
+        }
+        if (electionScheduler != null) {
+            electionScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether this replica is the leader cleaning up the expired ODP tokens.
+     *
+     * @return true if this replica holds the cleanup Lease, or if leader election is disabled.
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Competes for the Lease again whenever the election ends while running, e.g. once the leadership is lost.
+     */
+    private synchronized void startElection() {
+        if (!running) {
+            return;
+        }
+        election = leaderElector.start();
+        election.whenComplete((result, e) -> {
+            leader = false;
+            if (running) {
+                scheduleElection();
+            }
+        });
+    }
+
+    private void scheduleElection() {
+        final long delayMillis = getRestartDelayMillis(electionRestarts.incrementAndGet());
+        LOGGER.warn("The leader election for the {} Lease has ended, competing for it again in {} ms.", LEASE_NAME, delayMillis);
+        try {
+            electionScheduler.schedule(this::startElection, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            LOGGER.debug("The leader election is not started again, the service is shutting down.");
+        }
+    }
+
+    /**
+     * Gets the delay before competing for the Lease again, doubling from the retry period with each election ended
+     * since this replica last started leading, up to the Lease duration.
+     */
+    static long getRestartDelayMillis(final int restarts) {
+        final long maxDelayMillis = Math.max(LEASE_DURATION.toMillis(), RETRY_PERIOD.toMillis());
+        final long delayMillis = RETRY_PERIOD.toMillis() << Math.min(restarts - 1, 30);
+        return delayMillis <= 0 ? maxDelayMillis : Math.min(delayMillis, maxDelayMillis);
+    }
+
+    private void onStartLeading() {
+        leader = true;
+        electionRestarts.set(0);
+        LOGGER.info("Started leading the expired ODP tokens cleanup.");
+    }
+
+    private void onStopLeading() {
+        leader = false;
+        LOGGER.info("Stopped leading the expired ODP tokens cleanup.");
+    }
+
+    private void onNewLeader(final String newLeader) {
+        LOGGER.info("The expired ODP tokens cleanup is led by {}.", newLeader);
+    }
+
+    private static String getIdentity() {
+        final String podName = System.getenv("POD_NAME");
+        if (podName != null && !podName.isEmpty()) {
+            return podName;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (final UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
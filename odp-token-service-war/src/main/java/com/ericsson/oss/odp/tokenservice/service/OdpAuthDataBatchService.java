@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException;
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException;
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchDeleteParams;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchResult;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenDeleteResult;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+
+/**
+ * Class which creates and deletes ODP tokens in batches.
+ * <p>
+ * The batch items are fanned out on a dedicated bounded executor, with at most {@link #BATCH_CONCURRENCY} items of a
+ * batch in progress at a time so a single batch cannot flood the SSO service or the API server. The batch items do not
+ * run on the managed executor, as each ODP token creation runs its token data generators there and waits for them.
+ * </p>
+ */
+@Singleton
+@Lock(LockType.READ)
+public class OdpAuthDataBatchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OdpAuthDataBatchService.class);
+
+    static final int BATCH_MAX_SIZE = Math.max(EnvironmentUtil.getInt("BATCH_MAX_SIZE", 500), 1);
+    static final int BATCH_CONCURRENCY = Math.max(EnvironmentUtil.getInt("BATCH_CONCURRENCY", 16), 1);
+    static final int BATCH_THREADS = Math.max(EnvironmentUtil.getInt("BATCH_THREADS", 32), 1);
+    static final int BATCH_QUEUE_SIZE = Math.max(EnvironmentUtil.getInt("BATCH_QUEUE_SIZE", 1024), 1);
+
+    private ThreadPoolExecutor batchExecutor;
+
+    @Inject
+    OdpAuthDataService odpAuthDataService;
+    @Inject
+    K8sSecretManager k8SSecretManager;
+    @Inject
+    MeterRegistry meterRegistry;
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    /**
+     * Starts the batch executor and registers its metrics.
+     */
+    @PostConstruct
+    public void init() {
+        batchExecutor = new ThreadPoolExecutor(BATCH_THREADS, BATCH_THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(BATCH_QUEUE_SIZE), managedThreadFactory);
+        batchExecutor.allowCoreThreadTimeOut(true);
+        Gauge.builder("odp.token.batch.executor.active", batchExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Batch items being run")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.batch.executor.queued", batchExecutor, e -> e.getQueue().size())
+                .description("Batch items waiting for a free executor thread")
+                .register(meterRegistry);
+        LOGGER.info("Batch executor started with {} threads and {} queue size.", BATCH_THREADS, BATCH_QUEUE_SIZE);
+    }
+
+    /**
+     * Stops the batch executor.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates ODP token authentication data for each of the provided parameters.
+     *
+     * @param paramsBatch - The parameters of each ODP token to be created.
+     * @return The outcome of each ODP token creation, in the order of the provided parameters.
+     * @throws InvalidTokenParamsException - If no parameters or more than the maximum batch size parameters are provided.
+     */
+    public List<ODPTokenBatchResult> createOdpAuthDataBatch(final List<ODPTokenGenerateParams> paramsBatch) throws TokenServiceException {
+        if (paramsBatch == null || paramsBatch.isEmpty()) {
+            throw new InvalidTokenParamsException("No ODP token generate parameters have been specified.");
+        }
+        if (paramsBatch.size() > BATCH_MAX_SIZE) {
+            throw new InvalidTokenParamsException("At most " + BATCH_MAX_SIZE + " ODP tokens can be created in a batch.");
+        }
+        LOGGER.debug("Creating a batch of {} ODP tokens.", paramsBatch.size());
+
+        final List<Integer> indexes = new ArrayList<>(paramsBatch.size());
+        for (int index = 0; index < paramsBatch.size(); index++) {
+            indexes.add(index);
+        }
+        return fanOut(indexes, index -> create(index, paramsBatch.get(index)),
+                index -> new ODPTokenBatchResult(index, null, "The ODP token creation has not been started."));
+    }
+
+    /**
+     * Deletes the ODP token authentication data selected by the provided token names and labels.
+     *
+     * @param params - The token names and the labels of the ODP tokens to be deleted.
+     * @return The outcome of each ODP token deletion.
+     * @throws InvalidTokenParamsException - If neither token names nor labels are provided, or if the token names and the labels select
+     *                                      more than the maximum batch size ODP tokens.
+     * @throws TokenServiceException - If the ODP tokens having the provided labels cannot be selected.
+     */
+    public List<ODPTokenDeleteResult> deleteOdpAuthDataBatch(final ODPTokenBatchDeleteParams params) throws TokenServiceException {
+        final List<String> tokenNames = params == null || params.getTokenNames() == null
+                ? Collections.emptyList() : params.getTokenNames();
+        final boolean hasLabels = params != null && params.getLabels() != null && !params.getLabels().isEmpty();
+        if (tokenNames.isEmpty() && !hasLabels) {
+            throw new InvalidTokenParamsException("Neither token names nor labels have been specified.");
+        }
+        if (tokenNames.size() > BATCH_MAX_SIZE) {
+            throw new InvalidTokenParamsException("At most " + BATCH_MAX_SIZE + " token names can be deleted in a batch.");
+        }
+
+        final Set<String> selectedTokenNames = new LinkedHashSet<>(tokenNames);
+        if (hasLabels) {
+            selectedTokenNames.addAll(k8SSecretManager.getOdpTokenNamesByLabels(params.getLabels()));
+        }
+        if (selectedTokenNames.size() > BATCH_MAX_SIZE) {
+            throw new InvalidTokenParamsException("At most " + BATCH_MAX_SIZE + " ODP tokens can be deleted in a batch, "
+                    + selectedTokenNames.size() + " are selected by the token names and labels.");
+        }
+        LOGGER.info("Deleting a batch of {} ODP tokens.", selectedTokenNames.size());
+        return deleteAll(new ArrayList<>(selectedTokenNames));
+    }
+
+    /**
+     * Deletes all the ODP token authentication data of the provided user, e.g. on account lockout.
+     *
+     * @param username - The username the ODP tokens have been created for.
+     * @return The outcome of each ODP token deletion.
+     * @throws InvalidTokenParamsException - If no username is provided.
+     * @throws TokenServiceException - If the ODP tokens of the user cannot be selected.
+     */
+    public List<ODPTokenDeleteResult> deleteOdpAuthDataByUser(final String username) throws TokenServiceException {
+        final List<String> tokenNames = odpAuthDataService.getOdpTokenNamesByUser(username);
+        LOGGER.info("Deleting the {} ODP tokens of a user.", tokenNames.size());
+        return deleteAll(tokenNames);
+    }
+
+    private List<ODPTokenDeleteResult> deleteAll(final List<String> tokenNames) {
+        final Timer.Sample batchDeleteSample = Timer.start(meterRegistry);
+        final List<ODPTokenDeleteResult> results = fanOut(tokenNames, this::delete,
+                tokenName -> new ODPTokenDeleteResult(tokenName, ODPTokenDeleteResult.Outcome.FAILED,
+                        "The ODP token deletion has not been started."));
+        batchDeleteSample.stop(Timer.builder("odp.token.batch.delete.duration")
+                .description("Duration of the batch ODP token deletions")
+                .register(meterRegistry));
+        for (final ODPTokenDeleteResult result : results) {
+            meterRegistry.counter("odp.token.batch.delete.tokens", "outcome", result.getOutcome().toString()).increment();
+        }
+        return results;
+    }
+
+    /**
+     * Applies the operation to all the items on the batch executor, with at most {@link #BATCH_CONCURRENCY}
+     * items in progress at a time.
+     */
+    private <T, R> List<R> fanOut(final List<T> items, final Function<T, R> operation, final Function<T, R> notStartedResult) {
+        final Semaphore inProgressItems = new Semaphore(BATCH_CONCURRENCY);
+        final List<CompletableFuture<R>> pendingResults = new ArrayList<>(items.size());
+        for (final T item : items) {
+            pendingResults.add(submit(item, operation, notStartedResult, inProgressItems));
+        }
+
+        final List<R> results = new ArrayList<>(pendingResults.size());
+        for (final CompletableFuture<R> pendingResult : pendingResults) {
+            results.add(pendingResult.join());
+        }
+        return results;
+    }
+
+    private <T, R> CompletableFuture<R> submit(final T item, final Function<T, R> operation, final Function<T, R> notStartedResult,
+                                               final Semaphore inProgressItems) {
+        try {
+            inProgressItems.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(notStartedResult.apply(item));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> operation.apply(item), batchExecutor)
+                    .whenComplete((result, e) -> inProgressItems.release());
+        } catch (final RejectedExecutionException e) {
+            inProgressItems.release();
+            return CompletableFuture.completedFuture(notStartedResult.apply(item));
+        }
+    }
+
+    private ODPTokenBatchResult create(final int index, final ODPTokenGenerateParams params) {
+        if (params == null) {
+            return new ODPTokenBatchResult(index, null, "No ODP token generate parameters have been specified.");
+        }
+        final List<ODPTokenGenerateParams.TokenType> tokenTypes = params.getTokenTypes() == null
+                ? Collections.emptyList() : params.getTokenTypes();
+        try {
+            return new ODPTokenBatchResult(index, odpAuthDataService.createOdpAuthData(params.getUsername(), tokenTypes, params.getTtl()), null);
+        } catch (final TokenServiceException e) {
+            LOGGER.error("A failure has occurred while creating the ODP token {} of the batch: {}", index, e.getMessage());
+            return new ODPTokenBatchResult(index, null, e.getMessage());
+        } catch (final RuntimeException e) {
+            LOGGER.error("A failure has occurred while creating the ODP token {} of the batch: {}", index, e.getMessage(), e);
+            return new ODPTokenBatchResult(index, null, "Failure creating the ODP token.");
+        }
+    }
+
+    private ODPTokenDeleteResult delete(final String tokenName) {
+        try {
+            return odpAuthDataService.deleteOdpAuthData(tokenName)
+                    ? new ODPTokenDeleteResult(tokenName, ODPTokenDeleteResult.Outcome.DELETED, null)
+                    : new ODPTokenDeleteResult(tokenName, ODPTokenDeleteResult.Outcome.QUEUED, null);
+        } catch (final TokenNotFoundException e) {
+            return new ODPTokenDeleteResult(tokenName, ODPTokenDeleteResult.Outcome.NOT_FOUND, e.getMessage());
+        } catch (final TokenServiceException e) {
+            LOGGER.error("A failure has occurred while deleting the {} ODP token of the batch: {}", tokenName, e.getMessage());
+            return new ODPTokenDeleteResult(tokenName, ODPTokenDeleteResult.Outcome.FAILED, e.getMessage());
+        } catch (final RuntimeException e) {
+            LOGGER.error("A failure has occurred while deleting the {} ODP token of the batch: {}", tokenName, e.getMessage(), e);
+            return new ODPTokenDeleteResult(tokenName, ODPTokenDeleteResult.Outcome.FAILED, "Failure deleting the ODP token.");
+        }
+    }
+}
@@ -16,57 +16,157 @@
 
 package com.ericsson.oss.odp.tokenservice.service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
 import javax.ejb.Singleton;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.PartialObjectMetadata;
+import io.fabric8.kubernetes.api.model.PartialObjectMetadataList;
 import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException;
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException;
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException;
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGenerator;
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGeneratorRegistry;
 import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
-import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.model.VersionedOdpAuthData;
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData;
-import com.ericsson.oss.odp.tokenservice.model.OdpToken;
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenInfo;
 import com.ericsson.oss.odp.tokenservice.util.Base64Util;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+import com.ericsson.oss.odp.tokenservice.util.HashUtil;
 import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+import com.ericsson.oss.odp.tokenservice.util.SingleFlight;
+import com.ericsson.oss.odp.tokenservice.util.TokenTtlUtil;
 import com.ericsson.oss.odp.tokenservice.util.TokenTypeUtil;
-import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
 
 @Singleton
+@Lock(LockType.READ)
 public class OdpAuthDataService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OdpAuthDataService.class);
 
+    static final Duration IDEMPOTENCY_KEY_WINDOW =
+            Duration.ofSeconds(Math.max(EnvironmentUtil.getLong("IDEMPOTENCY_KEY_WINDOW_SECONDS", 3600L), 1L));
+    static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+
+    public static final String ANY_VERSION = "*";
+
+    final SingleFlight<String, VersionedOdpAuthData> getSingleFlight = new SingleFlight<>();
+    final SingleFlight<String, ODPTokenAuthData> createSingleFlight = new SingleFlight<>();
+
     @Inject
     K8sSecretManager k8SSecretManager;
     @Inject
+    TokenDataGeneratorRegistry tokenDataGeneratorRegistry;
+    @Inject
+    TokenCleanupEngine tokenCleanupEngine;
+    @Inject
+    TokenLogoutQueue tokenLogoutQueue;
+    @Inject
     ClientRequestService clientRequestService;
+    @Inject
+    MeterRegistry meterRegistry;
+    @Resource
+    ManagedExecutorService managedExecutorService;
+
+    /**
+     * Registers the metrics of the ODP token fetches coalescing.
+     */
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("odp.token.get.fetches", getSingleFlight, SingleFlight::getExecutedCount)
+                .description("Number of ODP token fetches made from the storage")
+                .tag("source", "storage")
+                .register(meterRegistry);
+        FunctionCounter.builder("odp.token.get.fetches", getSingleFlight, SingleFlight::getSharedCount)
+                .description("Number of ODP token fetches sharing a concurrent fetch of the same ODP token")
+                .tag("source", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.get.inflight", getSingleFlight, SingleFlight::getInFlightCount)
+                .description("Number of ODP tokens being fetched from the storage")
+                .register(meterRegistry);
+    }
 
     /**
      * Fetches the ODP token authentication data from the storage.
+     * <p>
+     * The concurrent fetches of the same ODP token are coalesced, they share a single fetch and its outcome.
+     * </p>
      *
      * @param tokenName - The token name to fetch the token authentication data for.
      * @return The ODPTokenAuthData object encapsulating the fetched data.
-     * @throws TokenServiceException - If no ODP Token Secret exists for the given name.
+     * @throws TokenServiceException - If no ODP Token Secret exists for the given name, or if it is pending logout.
      */
     public ODPTokenAuthData getOdpAuthData(final String tokenName) throws TokenServiceException {
-        final Secret fetchedSecret = k8SSecretManager.getSecretByName(tokenName);
-        if (fetchedSecret == null) {
-            throw new TokenServiceException("No ODP Token exists with [" + tokenName + "] token name.");
+        return getOdpAuthData(tokenName, Collections.emptySet()).getAuthData();
+    }
+
+    /**
+     * Fetches the ODP token authentication data from the storage, unless it has not changed since a version known by the caller.
+     * <p>
+     * The version is the resourceVersion of the ODP Token Secret. When it matches one of the known versions, the
+     * Secret is not decoded and the returned object only carries the version.
+     * </p>
+     *
+     * @param tokenName     - The token name to fetch the token authentication data for.
+     * @param knownVersions - The versions known by the caller, ANY_VERSION matches any existing ODP token.
+     * @return The VersionedOdpAuthData object encapsulating the version and, if modified, the fetched data.
+     * @throws TokenServiceException - If no ODP Token Secret exists for the given name, or if it is pending logout.
+     */
+    public VersionedOdpAuthData getOdpAuthData(final String tokenName, final Collection<String> knownVersions)
+            throws TokenServiceException {
+        if (!knownVersions.isEmpty()) {
+            final String version = getOdpTokenSecret(tokenName).getMetadata().getResourceVersion();
+            if (knownVersions.contains(ANY_VERSION) || knownVersions.contains(version)) {
+                LOGGER.debug("ODP Token Secret {} not modified since version {}.", tokenName, version);
+                return new VersionedOdpAuthData(version, null);
+            }
         }
+        return getSingleFlight.execute(tokenName, () -> fetchOdpAuthData(tokenName));
+    }
+
+    private VersionedOdpAuthData fetchOdpAuthData(final String tokenName) throws TokenServiceException {
+        final Secret fetchedSecret = getOdpTokenSecret(tokenName);
         LOGGER.debug("ODP Token Secret details fetched by {} token name: {}.", tokenName, fetchedSecret);
         final ObjectMeta secretMetadata = fetchedSecret.getMetadata();
         final String tokenTypeStrings = secretMetadata.getAnnotations().get(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION);
-        return buildODPTokenAuthData(secretMetadata.getName(), fetchedSecret.getData(),
-                TokenTypeUtil.stringListToTokenTypes(tokenTypeStrings));
+        return new VersionedOdpAuthData(secretMetadata.getResourceVersion(), buildODPTokenAuthData(secretMetadata.getName(),
+                fetchedSecret.getData(), TokenTypeUtil.stringListToTokenTypes(tokenTypeStrings)));
+    }
+
+    private Secret getOdpTokenSecret(final String tokenName) throws TokenNotFoundException {
+        final Secret fetchedSecret = k8SSecretManager.getSecretByName(tokenName);
+        if (fetchedSecret == null || TokenLogoutQueue.isPendingLogout(fetchedSecret.getMetadata())) {
+            throw new TokenNotFoundException(tokenName);
+        }
+        return fetchedSecret;
     }
 
     /**
@@ -77,24 +177,127 @@ public class OdpAuthDataService {
      * @return The ODPTokenAuthData object encapsulating the created data.
      */
     public ODPTokenAuthData createOdpAuthData(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes) throws TokenServiceException {
+        return createOdpAuthData(username, tokenTypes, null);
+    }
+
+    /**
+     * Creates ODP token authentication data for the provided parameters, expiring after the provided TTL.
+     *
+     * @param username   - The username to generate and store the authentication data for.
+     * @param tokenTypes - The types of the token data to be generated.
+     * @param ttlSeconds - The TTL of the authentication data in seconds, capped by the maximum TTL, or null for the default TTL.
+     * @return The ODPTokenAuthData object encapsulating the created data.
+     */
+    public ODPTokenAuthData createOdpAuthData(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes,
+                                              final Long ttlSeconds) throws TokenServiceException {
+        return createOdpAuthData(username, tokenTypes, ttlSeconds, null);
+    }
+
+    /**
+     * Creates ODP token authentication data for the provided parameters, expiring after the provided TTL, once per
+     * idempotency key.
+     * <p>
+     * The Secret is labeled with the hash of the username and the idempotency key. A repeated creation for the same
+     * username and idempotency key within the idempotency key window returns the ODP token authentication data already
+     * created, unless it has been deleted or has expired since, and the concurrent ones share a single creation.
+     * </p>
+     *
+     * @param username       - The username to generate and store the authentication data for.
+     * @param tokenTypes     - The types of the token data to be generated.
+     * @param ttlSeconds     - The TTL of the authentication data in seconds, capped by the maximum TTL, or null for the default TTL.
+     * @param idempotencyKey - The key identifying the creation among the retries of the caller, or null to always create.
+     * @return The ODPTokenAuthData object encapsulating the created data.
+     * @throws InvalidTokenParamsException - If the idempotency key is too long, or has been used for other token types.
+     */
+    public ODPTokenAuthData createOdpAuthData(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes,
+                                              final Long ttlSeconds, final String idempotencyKey) throws TokenServiceException {
+        validateCreateParams(username, tokenTypes, ttlSeconds);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return create(username, tokenTypes, ttlSeconds, Collections.emptyMap());
+        }
+        if (idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            throw new InvalidTokenParamsException("The idempotency key must not exceed " + IDEMPOTENCY_KEY_MAX_LENGTH + " characters.");
+        }
+        final String hashedIdempotencyKey = HashUtil.toLabelValue(username, idempotencyKey);
+        return createSingleFlight.execute(hashedIdempotencyKey,
+                () -> createIdempotently(username, tokenTypes, ttlSeconds, hashedIdempotencyKey));
+    }
+
+    private void validateCreateParams(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes,
+                                      final Long ttlSeconds) throws TokenServiceException {
         if (username == null || username.isEmpty()) {
             throw new TokenServiceException("The username param is mandatory.");
         }
         if (tokenTypes.isEmpty()) {
             throw new TokenServiceException("No tokentypes have been specified.");
         }
+        if (ttlSeconds != null && ttlSeconds <= 0) {
+            throw new InvalidTokenParamsException("The ttl param must be a positive number of seconds.");
+        }
+        if (tokenTypes.contains(ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR)
+                && tokenTypes.contains(ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR_ECDSA)) {
+            throw new InvalidTokenParamsException("Only one SSH key pair token type can be specified.");
+        }
+    }
 
+    private ODPTokenAuthData createIdempotently(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes,
+                                                final Long ttlSeconds, final String hashedIdempotencyKey) throws TokenServiceException {
+        final Instant now = Instant.now();
+        final Instant windowStart = now.minus(IDEMPOTENCY_KEY_WINDOW);
+        for (final Secret createdSecret : k8SSecretManager.getSecretsByIdempotencyKey(hashedIdempotencyKey)) {
+            final ObjectMeta secretMetadata = createdSecret.getMetadata();
+            if (isCreatedAfter(secretMetadata, windowStart) && isUnexpired(secretMetadata, now)
+                    && !TokenLogoutQueue.isPendingLogout(secretMetadata)) {
+                final List<ODPTokenGenerateParams.TokenType> createdTokenTypes = TokenTypeUtil.stringListToTokenTypes(
+                        secretMetadata.getAnnotations().get(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION));
+                if (!new HashSet<>(createdTokenTypes).equals(new HashSet<>(tokenTypes))) {
+                    throw new InvalidTokenParamsException("The idempotency key has already been used for other token types.");
+                }
+                LOGGER.debug("The ODP Token Secret with {} token name has already been created with the idempotency key.",
+                        secretMetadata.getName());
+                meterRegistry.counter("odp.token.create.idempotent", "outcome", "replayed").increment();
+                return buildODPTokenAuthData(secretMetadata.getName(), createdSecret.getData(), Collections.emptyList());
+            }
+        }
+        meterRegistry.counter("odp.token.create.idempotent", "outcome", "created").increment();
+        return create(username, tokenTypes, ttlSeconds,
+                Collections.singletonMap(OdpTokenConstants.ODP_TOKEN_IDEMPOTENCY_KEY_LABEL, hashedIdempotencyKey));
+    }
+
+    private static boolean isCreatedAfter(final ObjectMeta secretMetadata, final Instant windowStart) {
+        try {
+            return secretMetadata.getCreationTimestamp() != null
+                    && Instant.parse(secretMetadata.getCreationTimestamp()).isAfter(windowStart);
+        } catch (final DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static boolean isUnexpired(final ObjectMeta secretMetadata, final Instant now) {
+        final Instant expiresAt = TokenTtlUtil.getExpiresAt(secretMetadata);
+        return expiresAt != null && expiresAt.isAfter(now);
+    }
+
+    private ODPTokenAuthData create(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes,
+                                    final Long ttlSeconds, final Map<String, String> labels) throws TokenServiceException {
         LOGGER.debug("Creating ODP authentication data for username: {} and token types: {}. ", username, tokenTypes);
 
         final Map<String, String> tokenData = getTokenData(username, tokenTypes);
 
-        final String tokenName = k8SSecretManager.createSecret(tokenTypes, tokenData);
+        final Instant expiresAt = Instant.now().plus(TokenTtlUtil.resolveTtl(ttlSeconds));
+        final Map<String, String> secretLabels = new HashMap<>(labels);
+        secretLabels.put(OdpTokenConstants.ODP_TOKEN_USER_LABEL, HashUtil.toLabelValue(username));
+        final String tokenName = k8SSecretManager.createSecret(tokenTypes, tokenData, expiresAt, secretLabels);
         LOGGER.debug("The ODP Token Secret with {} token name has been created for {} username.", tokenName, username);
         return buildODPTokenAuthData(tokenName, tokenData, Collections.emptyList());
     }
 
-    private ODPTokenAuthData buildODPTokenAuthData(final String tokenName, final Map<String, String> tokenStorageData,
-                                                   final List<ODPTokenGenerateParams.TokenType> tokenTypes) {
+    /**
+     * Builds the ODP token authentication data out of the token storage data, decoding the token data values and
+     * leaving the SSH private key out.
+     */
+    static ODPTokenAuthData buildODPTokenAuthData(final String tokenName, final Map<String, String> tokenStorageData,
+                                                  final List<ODPTokenGenerateParams.TokenType> tokenTypes) {
         final Map<String, String> outputTokenData = new HashMap<>(tokenStorageData.size());
 
         for (final Map.Entry<String, String> entry : tokenStorageData.entrySet()) {
@@ -105,73 +308,187 @@ public class OdpAuthDataService {
         return new ODPTokenAuthData(tokenName, outputTokenData, tokenTypes);
     }
 
+    /**
+     * Generates the token data of all the token types concurrently, the first token type on the calling thread
+     * and the others on the managed executor, so the generation takes as long as the slowest token type.
+     * <p>
+     * All the generations are waited for, so if one of them fails, the SSO token already generated by another one
+     * is logged out rather than left to the SSO session expiry.
+     * </p>
+     */
     private Map<String, String> getTokenData(final String username, final List<ODPTokenGenerateParams.TokenType> tokenTypes) throws TokenServiceException {
-        final Map<String, String> tokenData = new HashMap<>(3);
+        final List<TokenDataGenerator> generators = tokenDataGeneratorRegistry.getGenerators(tokenTypes);
+        final List<CompletableFuture<Map<String, String>>> pendingTokenData = new ArrayList<>(generators.size());
+        for (final TokenDataGenerator generator : generators.subList(1, generators.size())) {
+            pendingTokenData.add(CompletableFuture.supplyAsync(() -> generate(generator, username), managedExecutorService));
+        }
+
+        final Map<String, String> tokenData = new HashMap<>(4);
+        Throwable failure = null;
+        try {
+            tokenData.putAll(generators.get(0).generate(username));
+        } catch (final TokenServiceException | RuntimeException e) {
+            failure = e;
+        }
+        for (final CompletableFuture<Map<String, String>> generatedTokenData : pendingTokenData) {
+            try {
+                tokenData.putAll(generatedTokenData.join());
+            } catch (final CompletionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (final RuntimeException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure == null) {
+            return tokenData;
+        }
+        logoutGeneratedTokenId(tokenData);
+        if (failure instanceof TokenServiceException) {
+            throw (TokenServiceException) failure;
+        }
+        LOGGER.error("A failure has occurred while generating the token data: {}", failure.getMessage(), failure);
+        throw new TokenServiceException("Failure generating the token data.");
+    }
+
+    private void logoutGeneratedTokenId(final Map<String, String> tokenData) {
+        final String encodedTokenId = tokenData.get(OdpTokenConstants.ODP_TOKEN_DATA_KEY);
+        if (encodedTokenId == null) {
+            return;
+        }
+        try {
+            if (!clientRequestService.logoutUser(Base64Util.decode(encodedTokenId))) {
+                LOGGER.warn("The SSO token generated for a failed token data generation could not be logged out.");
+            }
+        } catch (final SsoUnavailableException | RuntimeException e) {
+            LOGGER.warn("Failure logging out the SSO token generated for a failed token data generation: {}", e.getMessage());
+        }
+    }
 
-        if (tokenTypes.contains(ODPTokenGenerateParams.TokenType.SSO)) {
-            final OdpToken ssoODPToken = clientRequestService.impersonateUser(username);
-            tokenData.put(OdpTokenConstants.ODP_TOKEN_DATA_KEY, Base64Util.encode(ssoODPToken.getTokenId()));
+    private static Map<String, String> generate(final TokenDataGenerator generator, final String username) {
+        try {
+            return generator.generate(username);
+        } catch (final TokenServiceException e) {
+            throw new CompletionException(e);
         }
+    }
+
+    /**
+     * Fetches the metadata of the ODP tokens of the provided user, leaving the ODP tokens pending logout out.
+     * <p>
+     * The ODP tokens are selected by the hashed username label of their Secrets, so neither the other ODP tokens
+     * nor the token data are read.
+     * </p>
+     *
+     * @param username - The username the ODP tokens have been created for.
+     * @return The metadata of the ODP tokens of the user.
+     * @throws InvalidTokenParamsException - If no username is provided.
+     */
+    public List<ODPTokenInfo> getOdpTokensByUser(final String username) throws TokenServiceException {
+        return getOdpTokenSecretsByUser(username).stream()
+                .map(Secret::getMetadata)
+                .filter(secretMetadata -> !TokenLogoutQueue.isPendingLogout(secretMetadata))
+                .map(OdpAuthDataService::buildODPTokenInfo)
+                .collect(Collectors.toList());
+    }
 
-        if (tokenTypes.contains(ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR)) {
-            final SSHKeyPair keyPair = SSHKeyPairUtil.generateRSAKeyPair();
-            tokenData.put(OdpTokenConstants.SSH_PRIV_KEY, keyPair.getPrivateKey());
-            tokenData.put(OdpTokenConstants.SSH_PUB_KEY, keyPair.getPublicKey());
+    /**
+     * Fetches the names of the ODP tokens of the provided user.
+     *
+     * @param username - The username the ODP tokens have been created for.
+     * @return The names of the ODP tokens of the user, including the ODP tokens pending logout.
+     * @throws InvalidTokenParamsException - If no username is provided.
+     */
+    public List<String> getOdpTokenNamesByUser(final String username) throws TokenServiceException {
+        return getOdpTokenSecretsByUser(username).stream()
+                .map(secret -> secret.getMetadata().getName())
+                .collect(Collectors.toList());
+    }
+
+    private List<Secret> getOdpTokenSecretsByUser(final String username) throws TokenServiceException {
+        if (username == null || username.isEmpty()) {
+            throw new InvalidTokenParamsException("The user param is mandatory.");
         }
-        return tokenData;
+        return k8SSecretManager.getSecretsByUser(HashUtil.toLabelValue(username));
     }
 
     /**
-     * Operation to logout the tokenId and delete the ODP token authentication data from the storage.
+     * Builds the ODP token metadata out of the token storage metadata, without any of the token data.
+     */
+    static ODPTokenInfo buildODPTokenInfo(final ObjectMeta secretMetadata) {
+        final Map<String, String> annotations = secretMetadata.getAnnotations() == null
+                ? Collections.emptyMap() : secretMetadata.getAnnotations();
+        return new ODPTokenInfo(secretMetadata.getName(),
+                TokenTypeUtil.stringListToTokenTypes(annotations.get(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION)),
+                secretMetadata.getCreationTimestamp(),
+                annotations.get(OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION));
+    }
+
+    /**
+     * Operation to delete the ODP token authentication data from the storage.
+     * <p>
+     * An ODP token holding a tokenId is marked as pending logout and deleted by the token logout queue once its
+     * tokenId is logged out, it is no longer served meanwhile.
+     * </p>
      *
      * @param tokenName - The token name to delete the token authentication data for.
+     * @return true if the token authentication data has been deleted, false if it is pending logout.
      * @throws TokenServiceException - If no ODP Token Secret exists for the given name.
      */
-    public void deleteOdpAuthData(final String tokenName) throws TokenServiceException {
+    public boolean deleteOdpAuthData(final String tokenName) throws TokenServiceException {
         LOGGER.info("Deleting ODP Token: {}.", tokenName);
 
         final Secret secretToDelete = k8SSecretManager.getSecretByName(tokenName);
         if (secretToDelete == null) {
-            throw new TokenServiceException("No ODP Token exists with [" + tokenName + "] token name.");
-        }
-        final String tokenId = secretToDelete.getData().get(OdpTokenConstants.ODP_TOKEN_DATA_KEY);
-        boolean logoutSuccess = false;
-        if (tokenId != null) {
-            logoutSuccess = clientRequestService.logoutUser(Base64Util.decode(tokenId));
-            LOGGER.debug("Token ID logout status: {}.", logoutSuccess);
+            throw new TokenNotFoundException(tokenName);
         }
-
-        if (tokenId == null || logoutSuccess) {
+        if (secretToDelete.getData() == null || secretToDelete.getData().get(OdpTokenConstants.ODP_TOKEN_DATA_KEY) == null) {
             k8SSecretManager.deleteSecretByName(tokenName);
+            return true;
         }
+        tokenLogoutQueue.enqueue(secretToDelete);
+        return false;
     }
 
     /**
      * Operation to clean up the ODP tokens having their TTL expired.
      *
-     * @param cleanupTargetTimestamp - Cleanup target timestamp the tokens TTL should be checked against.
+     * @param cleanupTargetTimestamp - Cleanup target timestamp the tokens expiry should be checked against.
      * @return The count of cleaned up token storages
      * @throws TokenServiceException - If an exception occurs during the cleanup.
      */
     public int cleanupExpiredTokens(final Instant cleanupTargetTimestamp) throws TokenServiceException {
-        final List<Secret> allODPTokenSecrets = k8SSecretManager.getOdpTokenServiceLabeledSecrets();
-        int cleanupCount = 0;
-        for (final Secret secret : allODPTokenSecrets) {
-            if (hasODPTokenTTLExpired(secret, cleanupTargetTimestamp)) {
-                final String secretName = secret.getMetadata().getName();
-                try {
-                    deleteOdpAuthData(secretName);
-                    cleanupCount++;
-                } catch (final TokenServiceException e) {
-                    LOGGER.error("Failure deleting the {} token due to: {}", secretName, e.getMessage());
+        return tokenCleanupEngine.cleanup(getExpiredTokenNames(cleanupTargetTimestamp));
+    }
+
+    /**
+     * Operation to find the ODP tokens expired at the cleanup target timestamp.
+     * <p>
+     * The ODP token Secrets are listed page by page and by their metadata only, the full Secret is only fetched
+     * once an expired ODP token gets deleted. The ODP tokens pending logout are left to the {@link TokenLogoutQueue}.
+     * </p>
+     *
+     * @param cleanupTargetTimestamp - The timestamp to compare the ODP token expiry times against.
+     * @return The names of the ODP tokens having their TTL expired.
+     * @throws TokenServiceException - If the ODP token Secrets cannot be listed.
+     */
+    public List<String> getExpiredTokenNames(final Instant cleanupTargetTimestamp) throws TokenServiceException {
+        final List<String> expiredTokenNames = new ArrayList<>();
+        String continueToken = null;
+        do {
+            final PartialObjectMetadataList metadataPage = k8SSecretManager.getOdpTokenMetadataPage(continueToken);
+            for (final PartialObjectMetadata secretMetadata : metadataPage.getItems()) {
+                if (hasODPTokenTTLExpired(secretMetadata.getMetadata(), cleanupTargetTimestamp)
+                        && !TokenLogoutQueue.isPendingLogout(secretMetadata.getMetadata())) {
+                    expiredTokenNames.add(secretMetadata.getMetadata().getName());
                 }
             }
-        }
-        return cleanupCount;
+            continueToken = metadataPage.getMetadata() == null ? null : metadataPage.getMetadata().getContinue();
+        } while (continueToken != null && !continueToken.isEmpty());
+        return expiredTokenNames;
     }
 
-    private boolean hasODPTokenTTLExpired(final Secret secret, final Instant cleanupTargetTimestamp) {
-        final Instant secretCreationTimestamp = Instant.parse(secret.getMetadata().getCreationTimestamp());
-        return secretCreationTimestamp.compareTo(cleanupTargetTimestamp) < 1;
+    private boolean hasODPTokenTTLExpired(final ObjectMeta secretMetadata, final Instant cleanupTargetTimestamp) {
+        final Instant expiresAt = TokenTtlUtil.getExpiresAt(secretMetadata);
+        return expiresAt != null && !expiresAt.isAfter(cleanupTargetTimestamp);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.PartialObjectMetadata;
+import io.fabric8.kubernetes.api.model.PartialObjectMetadataList;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException;
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenInfo;
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenPage;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+
+/**
+ * Class which lists the metadata of the ODP tokens as a JSON stream.
+ * <p>
+ * The ODP tokens are written one at a time while they are read from the local Secret cache or from the pages of the
+ * Secret metadata of the API server, so listing does not hold more than a page of ODP tokens in memory, and never
+ * reads their token data.
+ * </p>
+ */
+@Singleton
+@Lock(LockType.READ)
+public class OdpTokenListService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OdpTokenListService.class);
+
+    static final int LIST_MAX_LIMIT = Math.max(EnvironmentUtil.getInt("LIST_MAX_LIMIT", 1000), 1);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT, false);
+
+    @Inject
+    K8sSecretManager k8SSecretManager;
+    @Inject
+    OdpAuthDataService odpAuthDataService;
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Lists the metadata of the ODP tokens matching all the provided filters, leaving the ODP tokens pending logout out.
+     * <p>
+     * A page reads at most limit Token storages from the API server, starting at the cursor, so it may hold fewer
+     * ODP tokens once filtered; the cursor of the next page is written as long as Token storages remain. Without a
+     * limit, all the ODP tokens from the cursor on are listed, from the local Secret cache if no cursor is provided
+     * and the cache has synced. The ODP tokens of a user are selected by their hashed username label, in a single page.
+     * </p>
+     *
+     * @param username      - The username the ODP tokens have been created for, or null for the ODP tokens of all the users.
+     * @param tokenTypes    - The token types the ODP tokens must all have, or null.
+     * @param minAgeSeconds - The minimum age of the ODP tokens in seconds, or null.
+     * @param maxAgeSeconds - The maximum age of the ODP tokens in seconds, or null.
+     * @param cursor        - The cursor of the page, or null for the first page.
+     * @param limit         - The maximum number of Token storages read for the page, or null to list all the ODP tokens.
+     * @return The JSON stream of the page of the ODP tokens, in the form of an ODPTokenPage.
+     * @throws InvalidTokenParamsException - If a filter, the limit or the cursor is invalid.
+     * @throws TokenServiceException - If the first Token storages of the page cannot be read.
+     */
+    public StreamingOutput listOdpTokens(final String username, final List<String> tokenTypes, final Long minAgeSeconds,
+                                         final Long maxAgeSeconds, final String cursor, final Integer limit) throws TokenServiceException {
+        final Predicate<ODPTokenInfo> filter = buildFilter(tokenTypes, minAgeSeconds, maxAgeSeconds, Instant.now());
+        if (limit != null && (limit < 1 || limit > LIST_MAX_LIMIT)) {
+            throw new InvalidTokenParamsException("The limit param must be between 1 and " + LIST_MAX_LIMIT + ".");
+        }
+        if (username != null) {
+            if (cursor != null || limit != null) {
+                throw new InvalidTokenParamsException("The cursor and limit params cannot be combined with the user param.");
+            }
+            final List<ODPTokenInfo> userTokens = odpAuthDataService.getOdpTokensByUser(username);
+            meterRegistry.counter("odp.token.list.requests", "source", "user").increment();
+            return output -> writePage(output, userTokens.iterator(), filter, null);
+        }
+        if (cursor == null && limit == null) {
+            final List<Secret> cachedSecrets = k8SSecretManager.getCachedOdpTokenSecrets();
+            if (cachedSecrets != null) {
+                meterRegistry.counter("odp.token.list.requests", "source", "cache").increment();
+                return output -> writePage(output, new TokenInfoIterator(cachedSecrets.stream().map(Secret::getMetadata).iterator()),
+                        filter, null);
+            }
+        }
+        final PartialObjectMetadataList firstPage = limit == null
+                ? k8SSecretManager.getOdpTokenMetadataPage(cursor)
+                : k8SSecretManager.getOdpTokenMetadataPage(cursor, limit);
+        meterRegistry.counter("odp.token.list.requests", "source", "api").increment();
+        if (limit != null) {
+            return output -> writePage(output,
+                    new TokenInfoIterator(firstPage.getItems().stream().map(PartialObjectMetadata::getMetadata).iterator()),
+                    filter, getContinueToken(firstPage));
+        }
+        return output -> writePage(output, new TokenInfoIterator(new PagedMetadataIterator(firstPage)), filter, null);
+    }
+
+    private static Predicate<ODPTokenInfo> buildFilter(final List<String> tokenTypeStrings, final Long minAgeSeconds,
+                                                       final Long maxAgeSeconds, final Instant now) throws InvalidTokenParamsException {
+        final List<ODPTokenGenerateParams.TokenType> tokenTypes = new ArrayList<>();
+        for (final String tokenTypeString : tokenTypeStrings == null ? Collections.<String>emptyList() : tokenTypeStrings) {
+            try {
+                tokenTypes.add(ODPTokenGenerateParams.TokenType.fromValue(tokenTypeString));
+            } catch (final IllegalArgumentException e) {
+                throw new InvalidTokenParamsException(e.getMessage());
+            }
+        }
+        if (minAgeSeconds != null && minAgeSeconds < 0 || maxAgeSeconds != null && maxAgeSeconds < 0) {
+            throw new InvalidTokenParamsException("The minage and maxage params must not be negative numbers of seconds.");
+        }
+        final Instant createdBefore = minAgeSeconds == null ? null : now.minus(Duration.ofSeconds(minAgeSeconds));
+        final Instant createdAfter = maxAgeSeconds == null ? null : now.minus(Duration.ofSeconds(maxAgeSeconds));
+        return tokenInfo -> tokenInfo.getTokenTypes().containsAll(tokenTypes)
+                && isCreatedWithin(tokenInfo, createdAfter, createdBefore);
+    }
+
+    private static boolean isCreatedWithin(final ODPTokenInfo tokenInfo, final Instant createdAfter, final Instant createdBefore) {
+        if (createdAfter == null && createdBefore == null) {
+            return true;
+        }
+        if (tokenInfo.getCreatedAt() == null) {
+            return false;
+        }
+        try {
+            final Instant createdAt = Instant.parse(tokenInfo.getCreatedAt());
+            return (createdAfter == null || !createdAt.isBefore(createdAfter))
+                    && (createdBefore == null || !createdAt.isAfter(createdBefore));
+        } catch (final DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static void writePage(final OutputStream output, final Iterator<ODPTokenInfo> tokenInfos,
+                                  final Predicate<ODPTokenInfo> filter, final String nextCursor) throws IOException {
+        try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(ODPTokenPage.TOKENS_FIELD);
+            while (tokenInfos.hasNext()) {
+                final ODPTokenInfo tokenInfo = tokenInfos.next();
+                if (filter.test(tokenInfo)) {
+                    generator.writeObject(tokenInfo);
+                }
+            }
+            generator.writeEndArray();
+            if (nextCursor != null) {
+                generator.writeStringField(ODPTokenPage.CURSOR_FIELD, nextCursor);
+            }
+            generator.writeEndObject();
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String getContinueToken(final PartialObjectMetadataList page) {
+        final String continueToken = page.getMetadata() == null ? null : page.getMetadata().getContinue();
+        return continueToken == null || continueToken.isEmpty() ? null : continueToken;
+    }
+
+    /**
+     * Iterates over the ODP tokens of the Secret metadata, leaving the ODP tokens pending logout out.
+     */
+    private static final class TokenInfoIterator implements Iterator<ODPTokenInfo> {
+
+        private final Iterator<ObjectMeta> secretMetadata;
+        private ODPTokenInfo next;
+
+        private TokenInfoIterator(final Iterator<ObjectMeta> secretMetadata) {
+            this.secretMetadata = secretMetadata;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && secretMetadata.hasNext()) {
+                final ObjectMeta metadata = secretMetadata.next();
+                if (!TokenLogoutQueue.isPendingLogout(metadata)) {
+                    next = OdpAuthDataService.buildODPTokenInfo(metadata);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public ODPTokenInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final ODPTokenInfo tokenInfo = next;
+            next = null;
+            return tokenInfo;
+        }
+    }
+
+    /**
+     * Iterates over the Secret metadata of all the pages from the first page on, fetching a page once the previous
+     * one has been iterated over.
+     */
+    private final class PagedMetadataIterator implements Iterator<ObjectMeta> {
+
+        private Iterator<PartialObjectMetadata> page;
+        private String continueToken;
+
+        private PagedMetadataIterator(final PartialObjectMetadataList firstPage) {
+            this.page = firstPage.getItems().iterator();
+            this.continueToken = getContinueToken(firstPage);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && continueToken != null) {
+                try {
+                    final PartialObjectMetadataList nextPage = k8SSecretManager.getOdpTokenMetadataPage(continueToken);
+                    page = nextPage.getItems().iterator();
+                    continueToken = getContinueToken(nextPage);
+                } catch (final TokenServiceException e) {
+                    LOGGER.error("A failure has occurred while listing the ODP tokens: {}", e.getMessage());
+                    throw new UncheckedIOException(new IOException(e.getMessage(), e));
+                }
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public ObjectMeta next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next().getMetadata();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.model.SSHKeyPair;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+import com.ericsson.oss.odp.tokenservice.util.SSHKeyPairUtil;
+
+/**
+ * Class which holds a bounded pool of pre-generated RSA key pairs.
+ * <p>
+ * The pool is refilled up to its high watermark by background generator threads whenever its size drops to
+ * the low watermark. A key pair is generated on the calling thread when the pool is empty.
+ * </p>
+ */
+@Singleton
+@Startup
+@Lock(LockType.READ)
+public class SSHKeyPairPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SSHKeyPairPool.class);
+
+    static final int POOL_HIGH_WATERMARK = Math.max(EnvironmentUtil.getInt("SSH_KEY_POOL_HIGH_WATERMARK", 32), 0);
+    static final int POOL_LOW_WATERMARK = Math.max(Math.min(EnvironmentUtil.getInt("SSH_KEY_POOL_LOW_WATERMARK", 8), POOL_HIGH_WATERMARK), 0);
+    static final int POOL_GENERATOR_THREADS = Math.max(EnvironmentUtil.getInt("SSH_KEY_POOL_GENERATOR_THREADS", 1), 1);
+    private static final long GENERATION_FAILURE_BACKOFF_MILLIS = 1000L;
+
+    private final BlockingQueue<SSHKeyPair> keyPairs = new ArrayBlockingQueue<>(Math.max(POOL_HIGH_WATERMARK, 1));
+    private final Object refillMonitor = new Object();
+    private final List<Thread> generatorThreads = new ArrayList<>(POOL_GENERATOR_THREADS);
+    private final AtomicLong poolHits = new AtomicLong();
+    private final AtomicLong poolMisses = new AtomicLong();
+    private final AtomicLong generatedKeyPairs = new AtomicLong();
+    private volatile boolean refilling = true;
+    private volatile boolean running;
+
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Registers the pool metrics and starts the background generator threads.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("odp.token.ssh.key.pool.size", keyPairs, BlockingQueue::size)
+                .description("Number of pre-generated RSA key pairs ready to be used")
+                .register(meterRegistry);
+        FunctionCounter.builder("odp.token.ssh.key.pool.requests", poolHits, AtomicLong::doubleValue)
+                .description("RSA key pairs taken from the pool")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("odp.token.ssh.key.pool.requests", poolMisses, AtomicLong::doubleValue)
+                .description("RSA key pairs generated on the request thread due to an empty pool")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("odp.token.ssh.key.pool.generated", generatedKeyPairs, AtomicLong::doubleValue)
+                .description("RSA key pairs generated by the background generator threads")
+                .register(meterRegistry);
+
+        if (POOL_HIGH_WATERMARK == 0) {
+            LOGGER.info("RSA key pair pool is disabled, key pairs will be generated on the request thread.");
+            return;
+        }
+        running = true;
+        for (int i = 0; i < POOL_GENERATOR_THREADS; i++) {
+            final Thread generatorThread = managedThreadFactory.newThread(this::refill);
+            generatorThread.setName("odp-ssh-key-pool-generator-" + i);
+            generatorThread.start();
+            generatorThreads.add(generatorThread);
+        }
+        LOGGER.info("RSA key pair pool started with {} generator threads, low watermark {} and high watermark {}.",
+                POOL_GENERATOR_THREADS, POOL_LOW_WATERMARK, POOL_HIGH_WATERMARK);
+    }
+
+    /**
+     * Stops the background generator threads.
+     */
+    @PreDestroy
+    public void destroy() {
+        synchronized (refillMonitor) {
+            running = false;
+            refillMonitor.notifyAll();
+        }
+        for (final Thread generatorThread : generatorThreads) {
+            generatorThread.interrupt();
+        }
+        generatorThreads.clear();
+    }
+
+    /**
+     * Takes a RSA key pair from the pool, or generates a new one if the pool is empty.
+     *
+     * @return An SSHKeyPair encapsulating the public and private keys.
+     * @throws TokenServiceException If an error occurs while generating the public and private RSA keys.
+     */
+    public SSHKeyPair takeKeyPair() throws TokenServiceException {
+        final SSHKeyPair keyPair = keyPairs.poll();
+        if (keyPairs.size() <= POOL_LOW_WATERMARK) {
+            requestRefill();
+        }
+        if (keyPair != null) {
+            poolHits.incrementAndGet();
+            return keyPair;
+        }
+        poolMisses.incrementAndGet();
+        LOGGER.debug("RSA key pair pool is empty, generating the key pair on the request thread.");
+        return generateKeyPair("request");
+    }
+
+    /**
+     * Gets the number of pre-generated RSA key pairs ready to be used.
+     *
+     * @return The pool size.
+     */
+    public int getPoolSize() {
+        return keyPairs.size();
+    }
+
+    private void requestRefill() {
+        if (!refilling) {
+            synchronized (refillMonitor) {
+                refilling = true;
+                refillMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void refill() {
+        while (running) {
+            try {
+                awaitRefillRequest();
+                if (!running) {
+                    return;
+                }
+                if (keyPairs.offer(generateKeyPair("pool"))) {
+                    generatedKeyPairs.incrementAndGet();
+                }
+                synchronized (refillMonitor) {
+                    if (keyPairs.remainingCapacity() == 0) {
+                        refilling = false;
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final TokenServiceException e) {
+                LOGGER.warn("RSA key pair pool refill failed, retrying in {} ms: {}", GENERATION_FAILURE_BACKOFF_MILLIS, e.getMessage());
+                if (!pauseRefill()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates an RSA key pair, timing the generation by the thread it is generated on, the request thread or a
+     * pool generator thread.
+     */
+    private SSHKeyPair generateKeyPair(final String trigger) throws TokenServiceException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return SSHKeyPairUtil.generateRSAKeyPair();
+        } finally {
+            sample.stop(Timer.builder("odp.token.ssh.key.generation")
+                    .description("Duration of the SSH key pair generation")
+                    .tag("algorithm", "rsa")
+                    .tag("trigger", trigger)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void awaitRefillRequest() throws InterruptedException {
+        synchronized (refillMonitor) {
+            while (running && !refilling) {
+                refillMonitor.wait();
+            }
+        }
+    }
+
+    private boolean pauseRefill() {
+        try {
+            Thread.sleep(GENERATION_FAILURE_BACKOFF_MILLIS);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
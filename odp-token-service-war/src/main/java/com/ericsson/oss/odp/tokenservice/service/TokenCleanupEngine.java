@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException;
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
+import com.ericsson.oss.odp.tokenservice.util.AdaptiveRateLimiter;
+import com.ericsson.oss.odp.tokenservice.util.Base64Util;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+
+/**
+ * Class which deletes expired ODP tokens on a bounded pool of cleanup workers.
+ * <p>
+ * The requests of the workers to the API server and to the SSO logout endpoint are paced by client side rate
+ * limiters, which back off when the downstream service answers with a 429 or 5xx status. A request rejected as
+ * overloaded is retried, up to {@link #CLEANUP_MAX_ATTEMPTS} attempts, at the backed off rate. The Secrets served by
+ * the informer cache are not fetched from the API server, so they are not paced by the Kubernetes rate limiter.
+ * </p>
+ */
+@Singleton
+@Startup
+@Lock(LockType.READ)
+public class TokenCleanupEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenCleanupEngine.class);
+
+    static final int CLEANUP_WORKERS = Math.max(EnvironmentUtil.getInt("CLEANUP_WORKERS", 8), 1);
+    static final int CLEANUP_MAX_QPS = Math.max(EnvironmentUtil.getInt("CLEANUP_MAX_QPS", 50), 1);
+    static final int CLEANUP_MIN_QPS = Math.min(Math.max(EnvironmentUtil.getInt("CLEANUP_MIN_QPS", 1), 1), CLEANUP_MAX_QPS);
+    static final int CLEANUP_MAX_ATTEMPTS = 3;
+
+    private static final String PHASE_GET = "get";
+    private static final String PHASE_LOGOUT = "logout";
+    private static final String PHASE_DELETE = "delete";
+
+    final AdaptiveRateLimiter kubernetesRateLimiter = new AdaptiveRateLimiter(CLEANUP_MIN_QPS, CLEANUP_MAX_QPS);
+    final AdaptiveRateLimiter ssoRateLimiter = new AdaptiveRateLimiter(CLEANUP_MIN_QPS, CLEANUP_MAX_QPS);
+    private ThreadPoolExecutor cleanupExecutor;
+
+    @Inject
+    K8sSecretManager k8SSecretManager;
+    @Inject
+    ClientRequestService clientRequestService;
+    @Inject
+    MeterRegistry meterRegistry;
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    /**
+     * Starts the cleanup workers and registers the cleanup metrics.
+     */
+    @PostConstruct
+    public void init() {
+        cleanupExecutor = new ThreadPoolExecutor(CLEANUP_WORKERS, CLEANUP_WORKERS, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), managedThreadFactory);
+        cleanupExecutor.allowCoreThreadTimeOut(true);
+        Gauge.builder("odp.token.cleanup.backlog", cleanupExecutor, e -> e.getQueue().size())
+                .description("Expired ODP tokens waiting to be cleaned up")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.cleanup.workers.active", cleanupExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Expired ODP tokens being cleaned up")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.cleanup.rate.limit", kubernetesRateLimiter, AdaptiveRateLimiter::getRate)
+                .description("Current cleanup request rate limit in requests per second")
+                .tag("target", "kubernetes")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.cleanup.rate.limit", ssoRateLimiter, AdaptiveRateLimiter::getRate)
+                .description("Current cleanup request rate limit in requests per second")
+                .tag("target", "sso")
+                .register(meterRegistry);
+        LOGGER.info("Token cleanup engine started with {} workers and a [{}, {}] requests per second rate limit.",
+                CLEANUP_WORKERS, CLEANUP_MIN_QPS, CLEANUP_MAX_QPS);
+    }
+
+    /**
+     * Stops the cleanup workers.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (cleanupExecutor != null) {
+            cleanupExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Logs out and deletes the provided ODP tokens.
+     * <p>
+     * An ODP token whose logout fails is kept, so it is retried by the next cleanup. An ODP token pending logout is
+     * skipped, as it is logged out and deleted by the {@link TokenLogoutQueue} with its own retries.
+     * </p>
+     *
+     * @param tokenNames - The names of the ODP tokens to be cleaned up.
+     * @return The count of cleaned up ODP tokens.
+     */
+    public int cleanup(final List<String> tokenNames) {
+        int cleanupCount = 0;
+        for (final CleanupOutcome outcome : cleanupAll(tokenNames, true)) {
+            if (outcome == CleanupOutcome.DELETED) {
+                cleanupCount++;
+            }
+        }
+        return cleanupCount;
+    }
+
+    /**
+     * Logs out and deletes the provided ODP tokens, including the ones pending logout, reporting the ones kept due to
+     * a logout or deletion failure.
+     *
+     * @param tokenNames - The names of the ODP tokens to be cleaned up.
+     * @return The names of the kept ODP tokens, the ones no longer existing are not reported as kept.
+     */
+    public List<String> cleanupAndGetKept(final List<String> tokenNames) {
+        final List<CleanupOutcome> outcomes = cleanupAll(tokenNames, false);
+        final List<String> keptTokenNames = new ArrayList<>();
+        for (int index = 0; index < tokenNames.size(); index++) {
+            if (outcomes.get(index) == CleanupOutcome.KEPT) {
+                keptTokenNames.add(tokenNames.get(index));
+            }
+        }
+        return keptTokenNames;
+    }
+
+    private List<CleanupOutcome> cleanupAll(final List<String> tokenNames, final boolean skipPendingLogout) {
+        final long startNanos = System.nanoTime();
+        final List<Future<CleanupOutcome>> pendingCleanups = new ArrayList<>(tokenNames.size());
+        for (final String tokenName : tokenNames) {
+            pendingCleanups.add(cleanupExecutor.submit(() -> cleanupToken(tokenName, skipPendingLogout)));
+        }
+
+        final List<CleanupOutcome> outcomes = new ArrayList<>(tokenNames.size());
+        int cleanupCount = 0;
+        boolean interrupted = false;
+        for (final Future<CleanupOutcome> pendingCleanup : pendingCleanups) {
+            CleanupOutcome outcome = CleanupOutcome.KEPT;
+            if (!interrupted) {
+                try {
+                    outcome = pendingCleanup.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                    pendingCleanups.forEach(cleanup -> cleanup.cancel(true));
+                    cleanupExecutor.purge();
+                    LOGGER.warn("Token cleanup interrupted, the remaining ODP tokens are kept.");
+                } catch (final CancellationException e) {
+                    LOGGER.debug("Token cleanup worker cancelled.");
+                } catch (final ExecutionException e) {
+                    LOGGER.error("Token cleanup worker finished with an error: {}", e.getMessage(), e);
+                }
+            }
+            outcomes.add(outcome);
+            if (outcome == CleanupOutcome.DELETED) {
+                cleanupCount++;
+            }
+        }
+
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        Timer.builder("odp.token.cleanup.duration")
+                .description("Duration of the ODP token cleanups")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!tokenNames.isEmpty()) {
+            DistributionSummary.builder("odp.token.cleanup.throughput")
+                    .description("Cleaned up ODP tokens per second of each ODP token cleanup")
+                    .baseUnit("tokens/s")
+                    .register(meterRegistry)
+                    .record(cleanupCount * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1L));
+        }
+        LOGGER.info("Cleaned up {} out of {} ODP tokens in {} ms ({} tokens/s).", cleanupCount, tokenNames.size(),
+                elapsedMillis, elapsedMillis == 0 ? cleanupCount : cleanupCount * 1000L / elapsedMillis);
+        return outcomes;
+    }
+
+    private CleanupOutcome cleanupToken(final String tokenName, final boolean skipPendingLogout) {
+        CleanupOutcome outcome = CleanupOutcome.KEPT;
+        try {
+            final Secret secret = getSecret(tokenName);
+            if (secret == null) {
+                LOGGER.debug("No ODP Token exists with {} token name to be cleaned up.", tokenName);
+                outcome = CleanupOutcome.NOT_FOUND;
+                return outcome;
+            }
+            if (skipPendingLogout && secret.getMetadata() != null && TokenLogoutQueue.isPendingLogout(secret.getMetadata())) {
+                LOGGER.debug("The {} ODP token is pending logout, it is left to the logout queue.", tokenName);
+                outcome = CleanupOutcome.SKIPPED;
+                return outcome;
+            }
+            final String tokenId = secret.getData() == null ? null : secret.getData().get(OdpTokenConstants.ODP_TOKEN_DATA_KEY);
+            if (tokenId != null && !logout(Base64Util.decode(tokenId))) {
+                LOGGER.error("Failure logging out the {} token, it is kept for the next cleanup.", tokenName);
+                return CleanupOutcome.KEPT;
+            }
+            callKubernetes(PHASE_DELETE, () -> {
+                k8SSecretManager.deleteSecretByName(tokenName);
+                return null;
+            });
+            outcome = CleanupOutcome.DELETED;
+            return outcome;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CleanupOutcome.KEPT;
+        } catch (final TokenServiceException | RuntimeException e) {
+            LOGGER.error("Failure deleting the {} token due to: {}", tokenName, e.getMessage());
+            return CleanupOutcome.KEPT;
+        } finally {
+            meterRegistry.counter("odp.token.cleanup.tokens", "outcome", outcome.tag).increment();
+        }
+    }
+
+    private Secret getSecret(final String tokenName) throws TokenServiceException, InterruptedException {
+        final Secret cachedSecret = k8SSecretManager.getCachedSecretByName(tokenName);
+        return cachedSecret != null ? cachedSecret : callKubernetes(PHASE_GET, () -> k8SSecretManager.getSecretByName(tokenName));
+    }
+
+    private <T> T callKubernetes(final String phase, final KubernetesCall<T> call) throws TokenServiceException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            kubernetesRateLimiter.acquire();
+            final Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                final T result = call.call();
+                kubernetesRateLimiter.onSuccess();
+                return result;
+            } catch (final TokenServiceException e) {
+                if (!isOverloaded(e.getStatusCode())) {
+                    throw e;
+                }
+                kubernetesRateLimiter.onThrottle();
+                if (attempt >= CLEANUP_MAX_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.warn("The API server is overloaded with a {} status, backing off to {} requests per second.",
+                        e.getStatusCode(), kubernetesRateLimiter.getRate());
+            } finally {
+                sample.stop(getPhaseTimer(phase));
+            }
+        }
+    }
+
+    private boolean logout(final String tokenId) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            ssoRateLimiter.acquire();
+            final Timer.Sample sample = Timer.start(meterRegistry);
+            int statusCode;
+            try {
+                statusCode = clientRequestService.requestLogout(tokenId);
+            } catch (final SsoUnavailableException e) {
+                statusCode = Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+            } finally {
+                sample.stop(getPhaseTimer(PHASE_LOGOUT));
+            }
+            if (!isOverloaded(statusCode)) {
+                ssoRateLimiter.onSuccess();
+                return statusCode == Response.Status.FOUND.getStatusCode();
+            }
+            ssoRateLimiter.onThrottle();
+            if (attempt >= CLEANUP_MAX_ATTEMPTS) {
+                return false;
+            }
+            LOGGER.warn("The SSO service is overloaded with a {} status, backing off to {} requests per second.",
+                    statusCode, ssoRateLimiter.getRate());
+        }
+    }
+
+    private static boolean isOverloaded(final int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    private Timer getPhaseTimer(final String phase) {
+        return Timer.builder("odp.token.cleanup.phase.duration")
+                .description("Duration of the ODP token cleanup requests")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private enum CleanupOutcome {
+        DELETED("deleted"), NOT_FOUND("notfound"), SKIPPED("skipped"), KEPT("failed");
+
+        private final String tag;
+
+        CleanupOutcome(final String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @FunctionalInterface
+    private interface KubernetesCall<T> {
+        T call() throws TokenServiceException;
+    }
+}
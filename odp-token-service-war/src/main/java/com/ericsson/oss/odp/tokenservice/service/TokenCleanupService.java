@@ -16,12 +16,15 @@
 
 package com.ericsson.oss.odp.tokenservice.service;
 
+import javax.ejb.Lock;
+import javax.ejb.LockType;
 import javax.ejb.Schedule;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.inject.Inject;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,29 +33,72 @@ import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
 
 /**
  * Class used to clean up ODP tokens having their TTL expired.
+ * <p>
+ * The ODP tokens are cleaned up shortly after their expiry from the expiry index, while the hourly full cleanup
+ * reconciles the ODP tokens missed by the index, e.g. the ones whose logout has failed.
+ * Only the replica elected as the cleanup leader cleans up ODP tokens.
+ * </p>
  */
 @Singleton
 @Startup
+@Lock(LockType.READ)
 public class TokenCleanupService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenCleanupService.class);
-    private static final int TOKEN_TTL_HOURS = 24;
+
+    private final AtomicBoolean reconcileRunning = new AtomicBoolean();
+    private final AtomicBoolean expiryRunning = new AtomicBoolean();
 
     @Inject
     OdpAuthDataService odpAuthDataService;
+    @Inject
+    TokenExpiryIndex tokenExpiryIndex;
+    @Inject
+    TokenCleanupEngine tokenCleanupEngine;
+    @Inject
+    LeaderElectionService leaderElectionService;
 
     /**
      * Method that gets invoked every hour to execute clean up of ODP tokens having their TTL expired.
      */
     @Schedule(hour = "*/1", persistent = false)
     public void execute() {
-        final Instant cleanupTargetTimestamp = Instant.now().minus(TOKEN_TTL_HOURS, ChronoUnit.HOURS);
-        LOGGER.info("Tokens cleanup started, targeting ODP Token Data older than {}.", cleanupTargetTimestamp);
+        if (!leaderElectionService.isLeader()) {
+            LOGGER.debug("Tokens cleanup skipped, this replica is not the cleanup leader.");
+            return;
+        }
+        if (!reconcileRunning.compareAndSet(false, true)) {
+            LOGGER.warn("Tokens cleanup skipped, the previous cleanup is still running.");
+            return;
+        }
         try {
+            final Instant cleanupTargetTimestamp = Instant.now();
+            LOGGER.info("Tokens cleanup started, targeting ODP Token Data expired by {}.", cleanupTargetTimestamp);
             final int cleanupCount = odpAuthDataService.cleanupExpiredTokens(cleanupTargetTimestamp);
             LOGGER.info("Token cleanup finished with {} tokens being deleted.", cleanupCount);
         } catch (final TokenServiceException e) {
             LOGGER.error("Tokens cleanup finished with an error due to: {}", e.getMessage());
+        } finally {
+            reconcileRunning.set(false);
+        }
+    }
+
+    /**
+     * Method that gets invoked every 10 seconds to clean up the ODP tokens expired since its previous invocation.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/10", persistent = false)
+    public void expire() {
+        if (!leaderElectionService.isLeader() || !expiryRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final List<String> expiredTokenNames = tokenExpiryIndex.pollExpired(Instant.now());
+            if (!expiredTokenNames.isEmpty()) {
+                LOGGER.info("Expiring {} ODP tokens.", expiredTokenNames.size());
+                tokenCleanupEngine.cleanup(expiredTokenNames);
+            }
+        } finally {
+            expiryRunning.set(false);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.DependsOn;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
+import com.ericsson.oss.odp.tokenservice.util.TokenTtlUtil;
+
+/**
+ * Class which indexes the ODP tokens by their expiry time.
+ * <p>
+ * The index is kept up to date from the watch events of the odp-token-service labeled Secrets, so the expired
+ * ODP tokens are found at a cost proportional to the number of expired tokens rather than to all the tokens.
+ * </p>
+ */
+@Singleton
+@Startup
+@DependsOn("K8sSecretManager")
+@Lock(LockType.READ)
+public class TokenExpiryIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenExpiryIndex.class);
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private final Map<String, Instant> tokenExpiries = new HashMap<>();
+    private final PriorityQueue<TokenExpiry> expiryQueue =
+            new PriorityQueue<>(Comparator.comparing((TokenExpiry tokenExpiry) -> tokenExpiry.expiresAt));
+
+    @Inject
+    K8sSecretManager k8SSecretManager;
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Starts indexing the ODP tokens from the Secret watch events and registers the index metrics.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("odp.token.expiry.index.size", this, TokenExpiryIndex::size)
+                .description("Number of ODP tokens held in the expiry index")
+                .register(meterRegistry);
+        if (k8SSecretManager.addSecretEventHandler(new SecretExpiryHandler())) {
+            LOGGER.info("Started indexing the ODP tokens by expiry time.");
+        } else {
+            LOGGER.warn("No Secret watch events are available, the ODP tokens are only cleaned up by the periodic reconcile.");
+        }
+    }
+
+    /**
+     * Adds an ODP token to the index, or updates its expiry time.
+     *
+     * @param tokenName - The name of the ODP token.
+     * @param expiresAt - The expiry time of the ODP token.
+     */
+    public synchronized void put(final String tokenName, final Instant expiresAt) {
+        if (expiresAt.equals(tokenExpiries.put(tokenName, expiresAt))) {
+            return;
+        }
+        expiryQueue.add(new TokenExpiry(tokenName, expiresAt));
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes an ODP token from the index.
+     *
+     * @param tokenName - The name of the ODP token.
+     */
+    public synchronized void remove(final String tokenName) {
+        if (tokenExpiries.remove(tokenName) != null) {
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Removes the ODP tokens expired at the provided time from the index.
+     *
+     * @param now - The time to compare the ODP token expiry times against.
+     * @return The names of the expired ODP tokens, the earliest expired first.
+     */
+    public List<String> pollExpired(final Instant now) {
+        final List<TokenExpiry> expired = new ArrayList<>();
+        synchronized (this) {
+            while (!expiryQueue.isEmpty() && !expiryQueue.peek().expiresAt.isAfter(now)) {
+                final TokenExpiry tokenExpiry = expiryQueue.poll();
+                if (tokenExpiry.expiresAt.equals(tokenExpiries.get(tokenExpiry.tokenName))) {
+                    tokenExpiries.remove(tokenExpiry.tokenName);
+                    expired.add(tokenExpiry);
+                }
+            }
+        }
+        final List<String> expiredTokenNames = new ArrayList<>(expired.size());
+        final Timer expiryLag = Timer.builder("odp.token.expiry.lag")
+                .description("Delay between the ODP token expiry time and its expiry being fired")
+                .register(meterRegistry);
+        for (final TokenExpiry tokenExpiry : expired) {
+            expiryLag.record(Duration.between(tokenExpiry.expiresAt, now));
+            expiredTokenNames.add(tokenExpiry.tokenName);
+        }
+        return expiredTokenNames;
+    }
+
+    /**
+     * Gets the number of ODP tokens held in the index.
+     *
+     * @return The number of indexed ODP tokens.
+     */
+    public synchronized int size() {
+        return tokenExpiries.size();
+    }
+
+    /**
+     * Drops the stale entries, left by the updated and removed ODP tokens, once they outnumber the indexed ODP tokens.
+     */
+    private void compactIfNeeded() {
+        if (expiryQueue.size() > COMPACTION_THRESHOLD && expiryQueue.size() > 2 * tokenExpiries.size()) {
+            expiryQueue.removeIf(tokenExpiry -> !tokenExpiry.expiresAt.equals(tokenExpiries.get(tokenExpiry.tokenName)));
+        }
+    }
+
+    private static final class TokenExpiry {
+        private final String tokenName;
+        private final Instant expiresAt;
+
+        private TokenExpiry(final String tokenName, final Instant expiresAt) {
+            this.tokenName = tokenName;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final class SecretExpiryHandler implements ResourceEventHandler<Secret> {
+
+        @Override
+        public void onAdd(final Secret secret) {
+            index(secret);
+        }
+
+        @Override
+        public void onUpdate(final Secret oldSecret, final Secret newSecret) {
+            index(newSecret);
+        }
+
+        @Override
+        public void onDelete(final Secret secret, final boolean deletedFinalStateUnknown) {
+            remove(secret.getMetadata().getName());
+        }
+
+        private void index(final Secret secret) {
+            final Instant expiresAt = TokenTtlUtil.getExpiresAt(secret.getMetadata());
+            if (expiresAt != null) {
+                put(secret.getMetadata().getName(), expiresAt);
+            }
+        }
+    }
+}
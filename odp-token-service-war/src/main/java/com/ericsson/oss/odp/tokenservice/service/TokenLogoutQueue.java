@@ -0,0 +1,384 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.DependsOn;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException;
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager;
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
+
+/**
+ * Class which logs out and deletes the ODP tokens pending logout in the background.
+ * <p>
+ * An ODP token is marked as pending logout by annotating its Secret, and is then logged out and deleted by a worker
+ * draining the due logouts in batches on the cleanup engine. A failed logout is retried after an exponential backoff
+ * with jitter, the attempts and the next attempt time being persisted in the Secret annotations as well. After
+ * {@link #LOGOUT_MAX_ATTEMPTS} failed attempts the logout is abandoned and the Secret is deleted, leaving the SSO
+ * session to expire by itself. The queue is rebuilt from the Secret watch events, so the pending logouts survive
+ * restarts and are drained by whichever replica is the cleanup leader.
+ * </p>
+ */
+@Singleton
+@Startup
+@DependsOn("K8sSecretManager")
+@Lock(LockType.READ)
+public class TokenLogoutQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenLogoutQueue.class);
+
+    static final int LOGOUT_BATCH_SIZE = Math.max(EnvironmentUtil.getInt("LOGOUT_QUEUE_BATCH_SIZE", 50), 1);
+    static final long LOGOUT_RETRY_BASE_MILLIS = Math.max(EnvironmentUtil.getLong("LOGOUT_QUEUE_RETRY_BASE_MS", 1000L), 1L);
+    static final long LOGOUT_RETRY_MAX_MILLIS =
+            Math.max(EnvironmentUtil.getLong("LOGOUT_QUEUE_RETRY_MAX_MS", 600000L), LOGOUT_RETRY_BASE_MILLIS);
+    static final int LOGOUT_MAX_ATTEMPTS = Math.max(EnvironmentUtil.getInt("LOGOUT_QUEUE_MAX_ATTEMPTS", 20), 1);
+    static final long LEADER_RECHECK_MILLIS = 5000L;
+
+    final DelayQueue<PendingLogout> dueLogouts = new DelayQueue<>();
+    private final Map<String, PendingLogout> pendingLogouts = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread worker;
+
+    @Inject
+    K8sSecretManager k8SSecretManager;
+    @Inject
+    TokenCleanupEngine tokenCleanupEngine;
+    @Inject
+    LeaderElectionService leaderElectionService;
+    @Inject
+    MeterRegistry meterRegistry;
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    /**
+     * Starts tracking the ODP tokens pending logout from the Secret watch events, starts the logout worker and
+     * registers the queue metrics.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("odp.token.logout.queue.size", pendingLogouts, Map::size)
+                .description("Number of ODP tokens pending logout")
+                .register(meterRegistry);
+        if (!k8SSecretManager.addSecretEventHandler(new PendingLogoutHandler())) {
+            LOGGER.warn("No Secret watch events are available, only the logouts queued by this replica are drained.");
+        }
+        running = true;
+        worker = managedThreadFactory.newThread(this::drain);
+        worker.setName("odp-token-logout-worker");
+        worker.start();
+        LOGGER.info("Token logout queue started with a batch size of {}.", LOGOUT_BATCH_SIZE);
+    }
+
+    /**
+     * Stops the logout worker, the pending logouts are kept in the Secret annotations.
+     */
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Marks an ODP token as pending logout and queues its logout, unless it is already pending logout.
+     *
+     * @param secret - The Secret of the ODP token.
+     * @throws TokenServiceException - If the Secret cannot be marked as pending logout.
+     */
+    public void enqueue(final Secret secret) throws TokenServiceException {
+        final PendingLogout persistedLogout = getPendingLogout(secret.getMetadata());
+        if (persistedLogout != null) {
+            schedule(persistedLogout);
+            return;
+        }
+        final PendingLogout pendingLogout = new PendingLogout(secret.getMetadata().getName(), Instant.now(), 0, Instant.now());
+        k8SSecretManager.annotateSecret(pendingLogout.tokenName, pendingLogout.toAnnotations());
+        schedule(pendingLogout);
+        LOGGER.debug("The {} ODP token is pending logout.", pendingLogout.tokenName);
+    }
+
+    /**
+     * Checks whether an ODP token is pending logout.
+     *
+     * @param secretMetadata - The metadata of the Secret of the ODP token.
+     * @return true if the ODP token is pending logout, false otherwise.
+     */
+    public static boolean isPendingLogout(final ObjectMeta secretMetadata) {
+        return secretMetadata.getAnnotations() != null
+                && secretMetadata.getAnnotations().containsKey(OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION);
+    }
+
+    /**
+     * Gets the number of ODP tokens pending logout.
+     *
+     * @return The number of ODP tokens pending logout.
+     */
+    public int size() {
+        return pendingLogouts.size();
+    }
+
+    /**
+     * Queues a pending logout, replacing the one queued for the same ODP token unless it is the same.
+     */
+    void schedule(final PendingLogout pendingLogout) {
+        pendingLogouts.compute(pendingLogout.tokenName, (tokenName, queuedLogout) -> {
+            if (pendingLogout.equals(queuedLogout)) {
+                return queuedLogout;
+            }
+            dueLogouts.add(pendingLogout);
+            return pendingLogout;
+        });
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                final List<PendingLogout> batch = new ArrayList<>(LOGOUT_BATCH_SIZE);
+                batch.add(dueLogouts.take());
+                dueLogouts.drainTo(batch, LOGOUT_BATCH_SIZE - 1);
+                process(batch);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final RuntimeException e) {
+                LOGGER.error("Token logout worker failed to process a batch: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Logs out and deletes a batch of due ODP tokens, skipping the logouts replaced or dropped since they were queued.
+     */
+    void process(final List<PendingLogout> batch) {
+        final List<PendingLogout> currentLogouts = new ArrayList<>(batch.size());
+        for (final PendingLogout pendingLogout : batch) {
+            if (pendingLogouts.get(pendingLogout.tokenName) == pendingLogout) {
+                currentLogouts.add(pendingLogout);
+            }
+        }
+        if (currentLogouts.isEmpty()) {
+            return;
+        }
+        if (!leaderElectionService.isLeader()) {
+            final Instant recheckAt = Instant.now().plusMillis(LEADER_RECHECK_MILLIS);
+            currentLogouts.forEach(pendingLogout -> schedule(pendingLogout.deferredTo(recheckAt)));
+            return;
+        }
+
+        final List<String> tokenNames = new ArrayList<>(currentLogouts.size());
+        currentLogouts.forEach(pendingLogout -> tokenNames.add(pendingLogout.tokenName));
+        final Set<String> keptTokenNames = new HashSet<>(tokenCleanupEngine.cleanupAndGetKept(tokenNames));
+        final Timer logoutDelay = Timer.builder("odp.token.logout.queue.delay")
+                .description("Delay between an ODP token deletion request and its Secret being deleted")
+                .register(meterRegistry);
+        for (final PendingLogout pendingLogout : currentLogouts) {
+            if (keptTokenNames.contains(pendingLogout.tokenName) && pendingLogout.attempts + 1 >= LOGOUT_MAX_ATTEMPTS) {
+                abandon(pendingLogout);
+            } else if (keptTokenNames.contains(pendingLogout.tokenName)) {
+                retry(pendingLogout);
+            } else {
+                pendingLogouts.remove(pendingLogout.tokenName, pendingLogout);
+                logoutDelay.record(Duration.between(pendingLogout.pendingSince, Instant.now()));
+                meterRegistry.counter("odp.token.logout.queue.logouts", "outcome", "deleted").increment();
+            }
+        }
+    }
+
+    private void retry(final PendingLogout pendingLogout) {
+        final PendingLogout retriedLogout = pendingLogout.retriedAt(Instant.now().plusMillis(getBackoffMillis(pendingLogout.attempts + 1)));
+        schedule(retriedLogout);
+        meterRegistry.counter("odp.token.logout.queue.logouts", "outcome", "retried").increment();
+        LOGGER.warn("Failure logging out the {} ODP token, retrying at {} after {} attempts.",
+                retriedLogout.tokenName, retriedLogout.nextAttemptAt, retriedLogout.attempts);
+        try {
+            k8SSecretManager.annotateSecret(retriedLogout.tokenName, retriedLogout.toAnnotations());
+        } catch (final TokenServiceException e) {
+            LOGGER.warn("Failure persisting the logout retry of the {} ODP token: {}", retriedLogout.tokenName, e.getMessage());
+        }
+    }
+
+    private void abandon(final PendingLogout pendingLogout) {
+        pendingLogouts.remove(pendingLogout.tokenName, pendingLogout);
+        meterRegistry.counter("odp.token.logout.queue.logouts", "outcome", "abandoned").increment();
+        LOGGER.error("Failure logging out the {} ODP token after {} attempts, the logout is abandoned and the ODP token deleted.",
+                pendingLogout.tokenName, pendingLogout.attempts + 1);
+        try {
+            k8SSecretManager.deleteSecretByName(pendingLogout.tokenName);
+        } catch (final TokenServiceException e) {
+            LOGGER.warn("Failure deleting the {} ODP token whose logout is abandoned: {}", pendingLogout.tokenName, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the backoff before the next logout attempt, doubling with each failed attempt up to the maximum backoff,
+     * of which a random half is jittered so the retries of the logouts failed together are spread out.
+     */
+    static long getBackoffMillis(final int attempts) {
+        final long backoffMillis = LOGOUT_RETRY_BASE_MILLIS << Math.min(attempts - 1, 30);
+        final long cappedBackoffMillis = backoffMillis <= 0 ? LOGOUT_RETRY_MAX_MILLIS : Math.min(backoffMillis, LOGOUT_RETRY_MAX_MILLIS);
+        return cappedBackoffMillis / 2 + ThreadLocalRandom.current().nextLong(cappedBackoffMillis / 2 + 1);
+    }
+
+    /**
+     * Gets the pending logout persisted in the Secret annotations.
+     *
+     * @return The pending logout, or null if the ODP token is not pending logout.
+     */
+    static PendingLogout getPendingLogout(final ObjectMeta secretMetadata) {
+        if (!isPendingLogout(secretMetadata)) {
+            return null;
+        }
+        final Map<String, String> annotations = secretMetadata.getAnnotations();
+        final Instant pendingSince = parseInstant(annotations.get(OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION), Instant.now());
+        int attempts = 0;
+        try {
+            attempts = Math.max(Integer.parseInt(annotations.getOrDefault(OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION, "0")), 0);
+        } catch (final NumberFormatException e) {
+            LOGGER.warn("Invalid logout attempts annotation of the {} ODP token, defaulting to 0.", secretMetadata.getName());
+        }
+        final Instant nextAttemptAt = parseInstant(annotations.get(OdpTokenConstants.ODP_TOKEN_LOGOUT_NEXT_ATTEMPT_AT_ANNOTATION), pendingSince);
+        return new PendingLogout(secretMetadata.getName(), pendingSince, attempts, nextAttemptAt);
+    }
+
+    private static Instant parseInstant(final String value, final Instant defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (final DateTimeParseException e) {
+            return defaultValue;
+        }
+    }
+
+    static final class PendingLogout implements Delayed {
+        private final String tokenName;
+        private final Instant pendingSince;
+        private final int attempts;
+        private final Instant nextAttemptAt;
+
+        PendingLogout(final String tokenName, final Instant pendingSince, final int attempts, final Instant nextAttemptAt) {
+            this.tokenName = tokenName;
+            this.pendingSince = pendingSince;
+            this.attempts = attempts;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+
+        private PendingLogout retriedAt(final Instant retryAt) {
+            return new PendingLogout(tokenName, pendingSince, attempts + 1, retryAt);
+        }
+
+        private PendingLogout deferredTo(final Instant deferAt) {
+            return new PendingLogout(tokenName, pendingSince, attempts, deferAt);
+        }
+
+        private Map<String, String> toAnnotations() {
+            final Map<String, String> annotations = new HashMap<>(4);
+            annotations.put(OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION, pendingSince.toString());
+            annotations.put(OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION, String.valueOf(attempts));
+            annotations.put(OdpTokenConstants.ODP_TOKEN_LOGOUT_NEXT_ATTEMPT_AT_ANNOTATION, nextAttemptAt.toString());
+            return annotations;
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), nextAttemptAt).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return nextAttemptAt.compareTo(((PendingLogout) other).nextAttemptAt);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof PendingLogout)) {
+                return false;
+            }
+            final PendingLogout pendingLogout = (PendingLogout) other;
+            return tokenName.equals(pendingLogout.tokenName) && attempts == pendingLogout.attempts
+                    && nextAttemptAt.equals(pendingLogout.nextAttemptAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return tokenName.hashCode() * 31 + nextAttemptAt.hashCode();
+        }
+    }
+
+    private final class PendingLogoutHandler implements ResourceEventHandler<Secret> {
+
+        @Override
+        public void onAdd(final Secret secret) {
+            track(secret);
+        }
+
+        @Override
+        public void onUpdate(final Secret oldSecret, final Secret newSecret) {
+            track(newSecret);
+        }
+
+        @Override
+        public void onDelete(final Secret secret, final boolean deletedFinalStateUnknown) {
+            pendingLogouts.remove(secret.getMetadata().getName());
+        }
+
+        private void track(final Secret secret) {
+            final PendingLogout pendingLogout = getPendingLogout(secret.getMetadata());
+            if (pendingLogout != null) {
+                schedule(pendingLogout);
+            }
+        }
+    }
+}
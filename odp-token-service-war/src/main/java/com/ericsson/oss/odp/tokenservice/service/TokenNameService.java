@@ -18,17 +18,27 @@ package com.ericsson.oss.odp.tokenservice.service;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class which generates new token names.
+ * <p>
+ * The token names are made of the service startup timestamp, the replica id and a per replica counter, so they are
+ * unique across the replicas, whose pod names differ, and across the restarts of a replica.
+ * </p>
  */
 @ApplicationScoped
 public class TokenNameService {
 
     private static final String SEPARATOR = "-";
     private static final String ODPTOKEN_SECRET_NAME_PREFIX = "odptoken-secret";
-    private final AtomicInteger odpTokenSecretIndex = new AtomicInteger();
+    private static final int REPLICA_ID_LENGTH = 5;
+    private static final String REPLICA_ID_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    private final AtomicLong odpTokenSecretIndex = new AtomicLong();
+    private volatile String tokenNamePrefix;
 
     @Inject
     TokenServiceSetup tokenServiceSetup;
@@ -39,8 +49,37 @@ public class TokenNameService {
      * @return - A new token name.
      */
     public String getNewTokenName() {
-        return ODPTOKEN_SECRET_NAME_PREFIX
-                + SEPARATOR + tokenServiceSetup.getTokenServiceTimestamp()
-                + SEPARATOR + odpTokenSecretIndex.incrementAndGet();
+        return getTokenNamePrefix() + odpTokenSecretIndex.incrementAndGet();
+    }
+
+    private String getTokenNamePrefix() {
+        String prefix = tokenNamePrefix;
+        if (prefix == null) {
+            prefix = ODPTOKEN_SECRET_NAME_PREFIX
+                    + SEPARATOR + tokenServiceSetup.getTokenServiceTimestamp()
+                    + SEPARATOR + toReplicaId(System.getenv("POD_NAME"))
+                    + SEPARATOR;
+            tokenNamePrefix = prefix;
+        }
+        return prefix;
+    }
+
+    /**
+     * Derives the replica id from the pod name, whose last segment is the random suffix telling apart the pods
+     * of the deployment, or generates a random replica id when the pod name is not known.
+     */
+    static String toReplicaId(final String podName) {
+        if (podName != null) {
+            final String podSuffix = podName.substring(podName.lastIndexOf(SEPARATOR) + 1)
+                    .toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            if (!podSuffix.isEmpty()) {
+                return podSuffix;
+            }
+        }
+        final StringBuilder replicaId = new StringBuilder(REPLICA_ID_LENGTH);
+        for (int i = 0; i < REPLICA_ID_LENGTH; i++) {
+            replicaId.append(REPLICA_ID_CHARS.charAt(ThreadLocalRandom.current().nextInt(REPLICA_ID_CHARS.length())));
+        }
+        return replicaId.toString();
     }
-}
\ No newline at end of file
+}
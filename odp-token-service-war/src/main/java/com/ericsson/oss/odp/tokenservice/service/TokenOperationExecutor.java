@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ericsson.oss.odp.tokenservice.util.EnvironmentUtil;
+
+/**
+ * Class which runs the token operations of the asynchronous REST resources on dedicated bounded executors,
+ * so the container request threads are not held while the operations wait on the SSO service or the API server.
+ */
+@Singleton
+@Startup
+@Lock(LockType.READ)
+public class TokenOperationExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenOperationExecutor.class);
+
+    /**
+     * The token operations, each of them with its own executor and timeout.
+     * <p>
+     * Only the read-only operations are interrupted on timeout. A create or delete operation timing out may already
+     * have impersonated the user or reached the API server, so it is left to run to completion rather than being
+     * interrupted half done.
+     * </p>
+     */
+    public enum Operation {
+        CREATE(16, 256, 30000L, false),
+        GET(16, 512, 5000L, true),
+        DELETE(8, 256, 30000L, false);
+
+        private final String tag;
+        private final int threads;
+        private final int queueSize;
+        private final long timeoutMillis;
+        private final boolean interruptedOnTimeout;
+
+        Operation(final int defaultThreads, final int defaultQueueSize, final long defaultTimeoutMillis,
+                  final boolean interruptedOnTimeout) {
+            final String envPrefix = "ASYNC_" + name() + "_";
+            this.tag = name().toLowerCase(Locale.ROOT);
+            this.threads = Math.max(EnvironmentUtil.getInt(envPrefix + "THREADS", defaultThreads), 1);
+            this.queueSize = Math.max(EnvironmentUtil.getInt(envPrefix + "QUEUE_SIZE", defaultQueueSize), 1);
+            this.timeoutMillis = Math.max(EnvironmentUtil.getLong(envPrefix + "TIMEOUT_MS", defaultTimeoutMillis), 1L);
+            this.interruptedOnTimeout = interruptedOnTimeout;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public boolean isInterruptedOnTimeout() {
+            return interruptedOnTimeout;
+        }
+    }
+
+    private final Map<Operation, ThreadPoolExecutor> executors = new EnumMap<>(Operation.class);
+    ScheduledThreadPoolExecutor timeoutScheduler;
+
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    /**
+     * Starts the operation executors and registers their metrics.
+     */
+    @PostConstruct
+    public void init() {
+        for (final Operation operation : Operation.values()) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(operation.threads, operation.threads,
+                    60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(operation.queueSize), managedThreadFactory);
+            executor.allowCoreThreadTimeOut(true);
+            executors.put(operation, executor);
+
+            Gauge.builder("odp.token.operation.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Token operations being run")
+                    .tag("operation", operation.tag)
+                    .register(meterRegistry);
+            Gauge.builder("odp.token.operation.executor.queued", executor, e -> e.getQueue().size())
+                    .description("Token operations waiting for a free executor thread")
+                    .tag("operation", operation.tag)
+                    .register(meterRegistry);
+            LOGGER.info("Token {} operation executor started with {} threads, {} queue size and {} ms timeout.",
+                    operation.tag, operation.threads, operation.queueSize, operation.timeoutMillis);
+        }
+        timeoutScheduler = new ScheduledThreadPoolExecutor(1, managedThreadFactory);
+        timeoutScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Stops the operation executors.
+     */
+    @PreDestroy
+    public void destroy() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits a token operation to its executor.
+     * <p>
+     * The returned stage completes exceptionally with a {@link RejectedExecutionException} if the operation
+     * executor is saturated, or with a {@link TimeoutException} if the operation does not complete in time. The timed
+     * out operation is only interrupted if it is {@link Operation#isInterruptedOnTimeout() interrupted on timeout}.
+     * </p>
+     *
+     * @param operation - The token operation to be run.
+     * @param task - The task running the token operation.
+     * @param <T> - The token operation result type.
+     * @return A stage completed with the token operation result.
+     */
+    public <T> CompletableFuture<T> submit(final Operation operation, final Callable<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            final Future<?> runningTask = executors.get(operation).submit(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (final Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            final ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException("The token " + operation.tag
+                        + " operation has not completed within " + operation.timeoutMillis + " ms."))
+                        && operation.interruptedOnTimeout) {
+                    runningTask.cancel(true);
+                }
+            }, operation.timeoutMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((value, e) -> timeout.cancel(false));
+        } catch (final RejectedExecutionException e) {
+            LOGGER.warn("Token {} operation rejected, the executor is saturated.", operation.tag);
+            result.completeExceptionally(new RejectedExecutionException("The token " + operation.tag
+                    + " operation has been rejected, too many operations are in progress."));
+        }
+        return result;
+    }
+}
@@ -19,18 +19,23 @@ package com.ericsson.oss.odp.tokenservice.service;
 
 import javax.ejb.Startup;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
 import javax.net.ssl.SSLContext;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 
+import com.ericsson.oss.odp.tokenservice.util.HttpClientUtil;
 import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants;
 import com.ericsson.oss.odp.tokenservice.util.SSLContextBuilder;
 
@@ -62,16 +67,43 @@ public class TokenServiceSetup {
         return new KubernetesClientBuilder().build();
     }
 
+    /**
+     * Produces the registry shared by all the service components to publish their metrics.
+     *
+     * @return - The service meter registry.
+     */
+    @Produces
+    @Singleton
+    public MeterRegistry getMeterRegistry() {
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    }
+
+    /**
+     * Produces the HTTP client shared by all the SSO service requests, pooling and keeping alive its connections.
+     *
+     * @param meterRegistry - The registry to publish the connection pool metrics to.
+     * @return - The SSO service HTTP client.
+     */
     @Produces
-    public Client getHttpClient() {
+    @Singleton
+    public Client getHttpClient(final MeterRegistry meterRegistry) {
         try {
             final SSLContext sslContext = sslContextBuilder.buildSSLContext();
-            return ClientBuilder.newBuilder().sslContext(sslContext).build();
+            return HttpClientUtil.buildPooledHttpClient(sslContext, meterRegistry);
         } catch (Exception e) {
             throw new RuntimeException("An error has occurred while starting up the odp-token-service. " + e.getMessage());
         }
     }
 
+    /**
+     * Closes the SSO service HTTP client along with its pooled connections.
+     *
+     * @param httpClient - The SSO service HTTP client.
+     */
+    public void closeHttpClient(@Disposes final Client httpClient) {
+        httpClient.close();
+    }
+
     @Produces
     @Named("odp_token_keystore_path")
     public String getOdpTokenKeystorePath() {
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side rate limiter whose rate adapts to the downstream service load.
+ * <p>
+ * The permits are spread evenly at the current rate. The rate is increased additively on successful requests,
+ * by about one request per second for each second of successful requests, and halved when the downstream service
+ * reports it is overloaded, at most once per second so a burst of overload responses only halves it once.
+ * </p>
+ */
+public class AdaptiveRateLimiter {
+
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double minRate;
+    private final double maxRate;
+    private double rate;
+    private long nextPermitNanos;
+    private long lastDecreaseNanos;
+
+    /**
+     * Creates a rate limiter starting at the maximum rate.
+     *
+     * @param minRate - The minimum rate in permits per second the rate limiter backs off to.
+     * @param maxRate - The maximum rate in permits per second.
+     */
+    public AdaptiveRateLimiter(final double minRate, final double maxRate) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("Invalid [" + minRate + ", " + maxRate + "] rate range.");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.rate = maxRate;
+        this.nextPermitNanos = System.nanoTime();
+        this.lastDecreaseNanos = nextPermitNanos - DECREASE_INTERVAL_NANOS;
+    }
+
+    /**
+     * Waits for a permit at the current rate.
+     *
+     * @throws InterruptedException - If the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        final long waitNanos;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            final long permitNanos = Math.max(nextPermitNanos, now);
+            nextPermitNanos = permitNanos + (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            waitNanos = permitNanos - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Records a request the downstream service has handled, increasing the rate.
+     */
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + 1 / rate);
+    }
+
+    /**
+     * Records a request the downstream service has rejected as overloaded, halving the rate.
+     */
+    public synchronized void onThrottle() {
+        final long now = System.nanoTime();
+        if (now - lastDecreaseNanos >= DECREASE_INTERVAL_NANOS) {
+            rate = Math.max(minRate, rate / 2);
+            lastDecreaseNanos = now;
+        }
+    }
+
+    /**
+     * Gets the current rate.
+     *
+     * @return The current rate in permits per second.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+}
@@ -14,6 +14,7 @@
  * program(s) have been supplied.
  ******************************************************************************/
 
+
 package com.ericsson.oss.odp.tokenservice.util;
 
 import java.nio.charset.StandardCharsets;
@@ -21,9 +22,15 @@ import java.util.Base64;
 
 /**
  * Utility class which deals with the base64 encoding.
+ * <p>
+ * Raw strings are always converted with the UTF-8 charset, independently of the platform default charset.
+ * </p>
  */
 public class Base64Util {
 
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
     private Base64Util() {}
 
     /**
@@ -43,7 +50,7 @@ public class Base64Util {
      * @return The base64 string representation.
      */
     public static String encodeToString(final byte[] bytes) {
-        return new String(Base64.getEncoder().encode(bytes));
+        return ENCODER.encodeToString(bytes);
     }
 
     /**
@@ -53,6 +60,6 @@ public class Base64Util {
      * @return The raw string representation.
      */
     public static String decode(final String encoded) {
-        return new String(Base64.getDecoder().decode(encoded));
+        return new String(DECODER.decode(encoded), StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker failing the calls to a downstream service fast while the service keeps failing or responding slowly.
+ * <p>
+ * The outcomes of the latest calls are kept in a sliding window, a call failing or taking longer than the slow call
+ * duration counting as failed. The circuit opens once the failure rate of the window reaches the threshold, and
+ * rejects the calls until the open duration has elapsed. It is then half open and lets a few probe calls through,
+ * closing again once all of them succeed and opening again as soon as one of them fails.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the circuit.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] failedCalls;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param windowSize - The number of the latest calls the failure rate is computed over.
+     * @param minimumCalls - The minimum number of calls in the window before the circuit can open.
+     * @param failureRateThreshold - The failure rate percentage the circuit opens at.
+     * @param slowCallMillis - The duration in milliseconds over which a call counts as failed.
+     * @param openMillis - The duration in milliseconds the circuit stays open before letting probe calls through.
+     * @param halfOpenCalls - The number of probe calls which must succeed for the circuit to close again.
+     */
+    public CircuitBreaker(final int windowSize, final int minimumCalls, final int failureRateThreshold,
+                          final long slowCallMillis, final long openMillis, final int halfOpenCalls) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || failureRateThreshold <= 0
+                || failureRateThreshold > 100 || slowCallMillis <= 0 || openMillis <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker configuration.");
+        }
+        this.failedCalls = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Asks for a permit to call the downstream service, each permitted call must be recorded as succeeded or failed.
+     *
+     * @return true if the call is permitted, false if the circuit is open or all the probe calls are in progress.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * Records a permitted call the downstream service has handled, counting as failed if it has been slow.
+     *
+     * @param durationNanos - The duration of the call in nanoseconds.
+     */
+    public synchronized void onSuccess(final long durationNanos) {
+        record(durationNanos > slowCallNanos);
+    }
+
+    /**
+     * Records a permitted call the downstream service has failed.
+     */
+    public synchronized void onFailure() {
+        record(true);
+    }
+
+    /**
+     * Gets the current state of the circuit.
+     *
+     * @return The current state of the circuit.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(final boolean failed) {
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            if (windowCalls == failedCalls.length) {
+                windowFailures -= failedCalls[windowIndex] ? 1 : 0;
+            } else {
+                windowCalls++;
+            }
+            failedCalls[windowIndex] = failed;
+            windowFailures += failed ? 1 : 0;
+            windowIndex = (windowIndex + 1) % failedCalls.length;
+            if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class which reads the service tuning parameters from the environment.
+ */
+public class EnvironmentUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnvironmentUtil.class);
+
+    private EnvironmentUtil() {}
+
+    /**
+     * Gets the integer value of an environment variable.
+     *
+     * @param name - The name of the environment variable.
+     * @param defaultValue - The value to be used when the variable is not set or is not a valid integer.
+     * @return The integer value of the environment variable.
+     */
+    public static int getInt(final String name, final int defaultValue) {
+        final long value = getLong(name, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            LOGGER.warn("Out of range {} environment variable value [{}], defaulting to {}.", name, value, defaultValue);
+            return defaultValue;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Gets the long value of an environment variable.
+     *
+     * @param name - The name of the environment variable.
+     * @param defaultValue - The value to be used when the variable is not set or is not a valid long.
+     * @return The long value of the environment variable.
+     */
+    public static long getLong(final String name, final long defaultValue) {
+        final String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException e) {
+            LOGGER.warn("Invalid {} environment variable value [{}], defaulting to {}.", name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+}
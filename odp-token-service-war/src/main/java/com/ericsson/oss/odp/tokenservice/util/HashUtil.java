@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility class which hashes values to be stored as Kubernetes label values.
+ * <p>
+ * The values are hashed with SHA-256 and truncated to 160 bits of lowercase hex, which fits the label value length
+ * and character set whatever the hashed values, and keeps them out of the Secret metadata.
+ * </p>
+ */
+public class HashUtil {
+
+    private static final int LABEL_VALUE_HASH_BYTES = 20;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private HashUtil() {}
+
+    /**
+     * Hashes the provided values into a label value, each value being hashed separately from the others.
+     *
+     * @param values - The values to be hashed together.
+     * @return The hex hash of the values, usable as a label value.
+     */
+    public static String toLabelValue(final String... values) {
+        final MessageDigest digest = getSha256Digest();
+        for (final String value : values) {
+            final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) (valueBytes.length >>> 24));
+            digest.update((byte) (valueBytes.length >>> 16));
+            digest.update((byte) (valueBytes.length >>> 8));
+            digest.update((byte) valueBytes.length);
+            digest.update(valueBytes);
+        }
+        final byte[] hash = digest.digest();
+        final char[] labelValue = new char[LABEL_VALUE_HASH_BYTES * 2];
+        for (int i = 0; i < LABEL_VALUE_HASH_BYTES; i++) {
+            labelValue[i * 2] = HEX_DIGITS[(hash[i] >>> 4) & 0x0f];
+            labelValue[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0f];
+        }
+        return new String(labelValue);
+    }
+
+    private static MessageDigest getSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported.", e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+
+/**
+ * Utility class which builds the HTTP client of the SSO service requests.
+ */
+public class HttpClientUtil {
+
+    static final int MAX_CONNECTIONS = Math.max(EnvironmentUtil.getInt("SSO_HTTP_MAX_CONNECTIONS", 64), 1);
+    static final int MAX_CONNECTIONS_PER_ROUTE =
+            Math.min(Math.max(EnvironmentUtil.getInt("SSO_HTTP_MAX_CONNECTIONS_PER_ROUTE", 64), 1), MAX_CONNECTIONS);
+    static final int CONNECT_TIMEOUT_MILLIS = Math.max(EnvironmentUtil.getInt("SSO_HTTP_CONNECT_TIMEOUT_MS", 2000), 1);
+    static final int READ_TIMEOUT_MILLIS = Math.max(EnvironmentUtil.getInt("SSO_HTTP_READ_TIMEOUT_MS", 10000), 1);
+    static final int POOL_TIMEOUT_MILLIS = Math.max(EnvironmentUtil.getInt("SSO_HTTP_POOL_TIMEOUT_MS", 2000), 1);
+    static final long KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(
+            Math.max(EnvironmentUtil.getLong("SSO_HTTP_KEEP_ALIVE_SECONDS", 60L), 1L));
+    static final long IDLE_EVICTION_SECONDS = Math.max(EnvironmentUtil.getLong("SSO_HTTP_IDLE_EVICTION_SECONDS", 30L), 1L);
+    static final int TLS_SESSION_TIMEOUT_SECONDS = Math.max(EnvironmentUtil.getInt("SSO_TLS_SESSION_TIMEOUT_SECONDS", 3600), 1);
+    static final int TLS_SESSION_CACHE_SIZE = Math.max(EnvironmentUtil.getInt("SSO_TLS_SESSION_CACHE_SIZE", 1024), 1);
+    static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private HttpClientUtil() {}
+
+    /**
+     * Builds a HTTP client pooling and keeping alive its connections, and resuming the TLS sessions of the new ones.
+     * <p>
+     * The connections are not bound to the TLS client certificate they are authenticated with, so any idle pooled
+     * connection can be leased, and no cookies nor redirects are handled as the client is shared by all the users.
+     * </p>
+     *
+     * @param sslContext - The SSL context of the HTTPS connections, its client session cache is shared by them.
+     * @param meterRegistry - The registry to publish the connection pool metrics to.
+     * @return The pooled HTTP client, closing its connection pool once closed.
+     */
+    public static Client buildPooledHttpClient(final SSLContext sslContext, final MeterRegistry meterRegistry) {
+        final SSLSessionContext clientSessionContext = sslContext.getClientSessionContext();
+        clientSessionContext.setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+        clientSessionContext.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext))
+                .build();
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+        registerPoolMetrics(connectionManager, meterRegistry);
+
+        final CloseableHttpClient httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(CONNECT_TIMEOUT_MILLIS)
+                        .setSocketTimeout(READ_TIMEOUT_MILLIS)
+                        .setConnectionRequestTimeout(POOL_TIMEOUT_MILLIS)
+                        .build())
+                .setKeepAliveStrategy(getKeepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_EVICTION_SECONDS, TimeUnit.SECONDS)
+                .disableConnectionState()
+                .disableCookieManagement()
+                .disableRedirectHandling()
+                .build();
+        return ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+                .httpEngine(new ApacheHttpClient43Engine(httpClient, true))
+                .build();
+    }
+
+    /**
+     * Keeps the connections alive as long as the server allows, capped by the configured keep alive time which also
+     * applies when the server does not tell.
+     */
+    static ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+        return (response, context) -> {
+            final long keepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAliveMillis > 0 ? Math.min(keepAliveMillis, KEEP_ALIVE_MILLIS) : KEEP_ALIVE_MILLIS;
+        };
+    }
+
+    private static void registerPoolMetrics(final PoolingHttpClientConnectionManager connectionManager,
+                                            final MeterRegistry meterRegistry) {
+        Gauge.builder("odp.token.sso.connections", connectionManager, manager -> manager.getTotalStats().getLeased())
+                .description("Number of the SSO service connections by their state")
+                .tag("state", "leased")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.sso.connections", connectionManager, manager -> manager.getTotalStats().getAvailable())
+                .description("Number of the SSO service connections by their state")
+                .tag("state", "available")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.sso.connections.pending", connectionManager, manager -> manager.getTotalStats().getPending())
+                .description("Number of the SSO service requests waiting for a pooled connection")
+                .register(meterRegistry);
+        Gauge.builder("odp.token.sso.connections.max", connectionManager, manager -> manager.getTotalStats().getMax())
+                .description("Maximum number of the SSO service connections")
+                .register(meterRegistry);
+    }
+}
@@ -23,8 +23,14 @@ public interface OdpTokenConstants {
 
     String ODP_TOKEN_DATA_KEY = "odptoken";
     String ODP_TOKEN_TYPES_ANNOTATION = "com.ericsson.odp.tokentypes";
+    String ODP_TOKEN_EXPIRES_AT_ANNOTATION = "com.ericsson.odp.expires.at";
+    String ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION = "com.ericsson.odp.logout.pending.since";
+    String ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION = "com.ericsson.odp.logout.attempts";
+    String ODP_TOKEN_LOGOUT_NEXT_ATTEMPT_AT_ANNOTATION = "com.ericsson.odp.logout.next.attempt.at";
     String ODP_TOKEN_CREATED_BY_LABEL = "com.ericsson.odp.created.by";
     String ODP_TOKEN_CREATED_BY_SERVICE = "odp-token-service";
+    String ODP_TOKEN_IDEMPOTENCY_KEY_LABEL = "com.ericsson.odp.idempotency.key";
+    String ODP_TOKEN_USER_LABEL = "com.ericsson.odp.user";
     String SSH_PUB_KEY = "sshpubkey";
     String SSH_PRIV_KEY = "sshprivkey";
     String ODP_TOKEN_KEYSTORE_PATH = "/keystore/odp-token-service.jks";
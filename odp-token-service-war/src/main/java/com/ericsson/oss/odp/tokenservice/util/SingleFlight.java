@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces the concurrent calls made for the same key into a single call.
+ * <p>
+ * The first caller of a key makes the call, the callers arriving while it is in flight wait for it and share its
+ * result, or its failure. The call is made again by the next caller once it has completed, so no result is cached.
+ * </p>
+ *
+ * @param <K> - The type of the keys the calls are coalesced by.
+ * @param <V> - The type of the call results.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlightCalls = new ConcurrentHashMap<>();
+    private final LongAdder executedCalls = new LongAdder();
+    private final LongAdder sharedCalls = new LongAdder();
+
+    /**
+     * Makes the call for the provided key, or waits for the call in flight for the same key and shares its outcome.
+     *
+     * @param key - The key the call is coalesced by.
+     * @param call - The call to be made if none is in flight for the key.
+     * @param <E> - The type of the checked exception thrown by the call.
+     * @return The result of the call.
+     * @throws E - If the call fails.
+     */
+    public <E extends Exception> V execute(final K key, final Call<V, E> call) throws E {
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> inFlightCall = inFlightCalls.putIfAbsent(key, flight);
+        if (inFlightCall != null) {
+            sharedCalls.increment();
+            return await(inFlightCall);
+        }
+        executedCalls.increment();
+        try {
+            final V result = call.call();
+            inFlightCalls.remove(key, flight);
+            flight.complete(result);
+            return result;
+        } catch (final Exception | Error e) {
+            inFlightCalls.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of keys having a call in flight.
+     *
+     * @return The number of keys having a call in flight.
+     */
+    public int getInFlightCount() {
+        return inFlightCalls.size();
+    }
+
+    /**
+     * Gets the number of calls made.
+     *
+     * @return The number of calls made.
+     */
+    public long getExecutedCount() {
+        return executedCalls.sum();
+    }
+
+    /**
+     * Gets the number of calls coalesced into a call in flight.
+     *
+     * @return The number of calls which shared the outcome of a call in flight.
+     */
+    public long getSharedCount() {
+        return sharedCalls.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, E extends Exception> V await(final CompletableFuture<V> inFlightCall) throws E {
+        try {
+            return inFlightCall.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (E) cause;
+        }
+    }
+
+    /**
+     * A call whose concurrent invocations for the same key can be coalesced.
+     *
+     * @param <V> - The type of the call result.
+     * @param <E> - The type of the checked exception thrown by the call.
+     */
+    @FunctionalInterface
+    public interface Call<V, E extends Exception> {
+        V call() throws E;
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+
+/**
+ * Utility class for the ODP token TTL.
+ */
+public class TokenTtlUtil {
+
+    public static final Duration MAX_TOKEN_TTL =
+            Duration.ofSeconds(Math.max(EnvironmentUtil.getLong("TOKEN_MAX_TTL_SECONDS", 86400L), 1L));
+    public static final Duration DEFAULT_TOKEN_TTL = min(
+            Duration.ofSeconds(Math.max(EnvironmentUtil.getLong("TOKEN_DEFAULT_TTL_SECONDS", 86400L), 1L)), MAX_TOKEN_TTL);
+
+    private TokenTtlUtil() {
+    }
+
+    /**
+     * Resolves the TTL of a new ODP token.
+     *
+     * @param ttlSeconds - The requested TTL in seconds, or null for the default TTL.
+     * @return The requested TTL capped by the maximum TTL, or the default TTL.
+     */
+    public static Duration resolveTtl(final Long ttlSeconds) {
+        return ttlSeconds == null ? DEFAULT_TOKEN_TTL : min(Duration.ofSeconds(ttlSeconds), MAX_TOKEN_TTL);
+    }
+
+    /**
+     * Gets the expiry time of an ODP token.
+     * <p>
+     * The ODP token expires at the time held by its expiry annotation, capped by the maximum TTL from its creation.
+     * The ODP tokens created without expiry annotation expire after the default TTL.
+     * </p>
+     *
+     * @param secretMetadata - The metadata of the ODP token Secret.
+     * @return The expiry time of the ODP token, or null if the Secret has no creation timestamp yet.
+     */
+    public static Instant getExpiresAt(final ObjectMeta secretMetadata) {
+        final String creationTimestamp = secretMetadata.getCreationTimestamp();
+        if (creationTimestamp == null || creationTimestamp.isEmpty()) {
+            return null;
+        }
+        final Instant createdAt = Instant.parse(creationTimestamp);
+        final Instant annotatedExpiresAt = getAnnotatedExpiresAt(secretMetadata.getAnnotations());
+        if (annotatedExpiresAt == null) {
+            return createdAt.plus(DEFAULT_TOKEN_TTL);
+        }
+        final Instant maxExpiresAt = createdAt.plus(MAX_TOKEN_TTL);
+        return annotatedExpiresAt.isAfter(maxExpiresAt) ? maxExpiresAt : annotatedExpiresAt;
+    }
+
+    private static Instant getAnnotatedExpiresAt(final Map<String, String> annotations) {
+        final String expiresAt = annotations == null ? null : annotations.get(OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION);
+        if (expiresAt == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(expiresAt);
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Duration min(final Duration duration, final Duration maxDuration) {
+        return duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+    }
+}
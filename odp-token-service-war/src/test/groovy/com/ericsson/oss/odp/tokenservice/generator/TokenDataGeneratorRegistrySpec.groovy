@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.generator
+
+import javax.enterprise.inject.Instance
+
+import spock.lang.Specification
+
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
+
+class TokenDataGeneratorRegistrySpec extends Specification {
+
+    def ssoGenerator = new SSOTokenDataGenerator()
+    def sshKeyPairGenerator = new SSHKeyPairTokenDataGenerator()
+
+    def "Generator beans are registered by their token type"() {
+        given: "A registry with the generator beans available"
+        def registry = new TokenDataGeneratorRegistry()
+        registry.tokenDataGenerators = Stub(Instance) {
+            iterator() >> [ssoGenerator, sshKeyPairGenerator].iterator()
+        }
+
+        when: "The registry is initialized and the generators are fetched for the token types"
+        registry.init()
+        def generators = registry.getGenerators([
+                ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR,
+                ODPTokenGenerateParams.TokenType.SSO,
+                ODPTokenGenerateParams.TokenType.SSO
+        ])
+
+        then: "A single generator of each token type is returned"
+        generators == [ssoGenerator, sshKeyPairGenerator]
+    }
+
+    def "Only one generator can be registered per token type"() {
+        given: "A registry with a registered SSO generator"
+        def registry = new TokenDataGeneratorRegistry()
+        registry.register(ssoGenerator)
+
+        when: "Another SSO generator is registered"
+        registry.register(new SSOTokenDataGenerator())
+
+        then: "Failure registering the generator"
+        thrown(IllegalStateException)
+    }
+
+    def "No generator registered for a token type"() {
+        given: "A registry with a registered SSO generator only"
+        def registry = new TokenDataGeneratorRegistry()
+        registry.register(ssoGenerator)
+
+        when: "The generators are fetched for the SSH key pair token type"
+        registry.getGenerators([ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR])
+
+        then: "Failure fetching the generators"
+        def e = thrown(TokenServiceException)
+        e.getMessage() == "No token data generator exists for [sshkeypair] token type."
+    }
+}
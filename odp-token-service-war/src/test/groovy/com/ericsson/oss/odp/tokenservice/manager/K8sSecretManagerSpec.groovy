@@ -25,18 +25,38 @@ import io.fabric8.kubernetes.client.KubernetesClientException
 import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable
 import io.fabric8.kubernetes.client.dsl.MixedOperation
 import io.fabric8.kubernetes.client.dsl.Resource
+import io.fabric8.kubernetes.client.dsl.base.PatchContext
+import io.fabric8.kubernetes.client.dsl.base.PatchType
+import io.fabric8.kubernetes.client.http.HttpClient
+import io.fabric8.kubernetes.client.http.HttpRequest
+import io.fabric8.kubernetes.client.http.HttpResponse
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer
+import io.fabric8.kubernetes.client.informers.cache.Indexer
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
 import com.ericsson.oss.odp.tokenservice.service.TokenNameService
 import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
 
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+
 class K8sSecretManagerSpec extends Specification {
 
     def SECRET_NAME = "odptoken-secret-20240509125212-1"
+    def METADATA_PAGE = """{"kind":"PartialObjectMetadataList","apiVersion":"meta.k8s.io/v1","metadata":{"continue":"next-page"},
+            "items":[{"kind":"PartialObjectMetadata","apiVersion":"meta.k8s.io/v1",
+            "metadata":{"name":"odptoken-secret-20240509125212-1","creationTimestamp":"2024-05-09T12:52:12Z"}}]}"""
     K8sSecretManager k8sSecretManager = new K8sSecretManager()
 
+    def setup() {
+        k8sSecretManager.meterRegistry = new SimpleMeterRegistry()
+    }
+
     def "Create new Secret"() {
         given: "A list of token types and token data"
         def base64OdpToken = "Z3AxS2x0aXZXSlRDQ3ZIbWVkUWtIYVpzS3V3LipBQUpUU1FBQ01ERUFBbE5MQUJ4TVdWaGtjMkl3ZVhrd1kzQlphVVpIVVZWWlN6bGhhVVZNUXpROUFBUjBlWEJsQUFORFZGTUFBbE14QUFBLioK"
@@ -46,23 +66,67 @@ class K8sSecretManagerSpec extends Specification {
         k8sSecretManager.tokenNameService = Stub(TokenNameService) {
             getNewTokenName() >> SECRET_NAME
         }
+        Secret builtSecret = null
+        def createdSecretResource = Stub(Resource) {
+            create() >> Stub(Secret) {
+                getMetadata() >> Stub(ObjectMeta) {
+                    getName() >> SECRET_NAME
+                }
+            }
+        }
         k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
             secrets() >> Stub(MixedOperation) {
-                resource(_) >> Stub(Resource) {
-                    create() >> Stub(Secret) {
-                        getMetadata() >> Stub(ObjectMeta) {
-                            getName() >> SECRET_NAME
-                        }
-                    }
+                resource(_) >> { Secret secret ->
+                    builtSecret = secret
+                    createdSecretResource
                 }
             }
         }
+        def expiresAt = Instant.parse("2024-05-10T12:52:12Z")
 
         when: "A secret is created to store the passed data as params"
-        def createdSecretName = k8sSecretManager.createSecret(tokenTypes, tokenData)
+        def createdSecretName = k8sSecretManager.createSecret(tokenTypes, tokenData, expiresAt)
 
         then: "The Secret is created with the expected name"
         createdSecretName == SECRET_NAME
+
+        and: "The Secret is annotated with the token types and the expiry time"
+        builtSecret.metadata.annotations == [(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION): "sso",
+                                             (OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION): "2024-05-10T12:52:12Z"]
+    }
+
+    def "Create new Secret with a new name when the name is already taken"() {
+        given: "The first generated Secret name is already taken"
+        def tokenNames = ["odptoken-secret-taken", SECRET_NAME]
+        k8sSecretManager.tokenNameService = Stub(TokenNameService) {
+            getNewTokenName() >>> tokenNames
+        }
+        def createdNames = []
+        Secret secretToCreate = null
+        def secretResource = Stub(Resource) {
+            create() >> {
+                createdNames << secretToCreate.metadata.name
+                if (secretToCreate.metadata.name == "odptoken-secret-taken") {
+                    throw new KubernetesClientException("AlreadyExists", 409, null)
+                }
+                secretToCreate
+            }
+        }
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            secrets() >> Stub(MixedOperation) {
+                resource(_) >> { Secret secret ->
+                    secretToCreate = secret
+                    secretResource
+                }
+            }
+        }
+
+        when: "A secret is created"
+        def createdSecretName = k8sSecretManager.createSecret([ODPTokenGenerateParams.TokenType.SSO], [:], Instant.now())
+
+        then: "The Secret is created with the next generated name"
+        createdNames == tokenNames
+        createdSecretName == SECRET_NAME
     }
 
     def "Failure to create new Secret"() {
@@ -73,7 +137,7 @@ class K8sSecretManagerSpec extends Specification {
         }
 
         when: "A secret is created to store the passed data as params"
-        k8sSecretManager.createSecret(Collections.emptyList(), Collections.emptyMap())
+        k8sSecretManager.createSecret(Collections.emptyList(), Collections.emptyMap(), Instant.now())
 
         then: "Failure creating new Secret"
         def e = thrown(TokenServiceException)
@@ -101,6 +165,64 @@ class K8sSecretManagerSpec extends Specification {
         fetchedSecret.getMetadata().getName() == SECRET_NAME
     }
 
+    def "Get Secret by name from the Secret cache"() {
+        given: "A Secret with a particular name is held in the Secret cache"
+        def meterRegistry = new SimpleMeterRegistry()
+        def resource = Mock(Resource)
+        k8sSecretManager.meterRegistry = meterRegistry
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            secrets() >> Stub(MixedOperation) {
+                withLabel(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL, OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE) >> Stub(FilterWatchListDeletable) {
+                    runnableInformer(_) >> Stub(SharedIndexInformer) {
+                        hasSynced() >> true
+                        getIndexer() >> Stub(Indexer) {
+                            byIndex(K8sSecretManager.SECRET_NAME_INDEX, SECRET_NAME) >> createTwoLabeledSecrets().subList(0, 1)
+                        }
+                    }
+                }
+                withName(_ as String) >> resource
+            }
+        }
+        k8sSecretManager.init()
+
+        when: "Secret is fetched by name"
+        def fetchedSecret = k8sSecretManager.getSecretByName(SECRET_NAME)
+
+        then: "The cached Secret is returned without requesting the API server"
+        fetchedSecret.getMetadata().getName() == SECRET_NAME
+        0 * resource.get()
+        meterRegistry.get("odp.token.secret.cache.requests").tag("result", "hit").functionCounter().count() == 1
+    }
+
+    def "Get Secret by name from the API server on a Secret cache miss"() {
+        given: "A Secret with a particular name exists, but it is not held in the Secret cache yet"
+        def meterRegistry = new SimpleMeterRegistry()
+        k8sSecretManager.meterRegistry = meterRegistry
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            secrets() >> Stub(MixedOperation) {
+                withLabel(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL, OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE) >> Stub(FilterWatchListDeletable) {
+                    runnableInformer(_) >> Stub(SharedIndexInformer) {
+                        hasSynced() >> true
+                        getIndexer() >> Stub(Indexer) {
+                            byIndex(K8sSecretManager.SECRET_NAME_INDEX, SECRET_NAME) >> []
+                        }
+                    }
+                }
+                withName(SECRET_NAME) >> Stub(Resource) {
+                    get() >> createTwoLabeledSecrets().get(0)
+                }
+            }
+        }
+        k8sSecretManager.init()
+
+        when: "Secret is fetched by name"
+        def fetchedSecret = k8sSecretManager.getSecretByName(SECRET_NAME)
+
+        then: "The Secret fetched from the API server is returned"
+        fetchedSecret.getMetadata().getName() == SECRET_NAME
+        meterRegistry.get("odp.token.secret.cache.requests").tag("result", "miss").functionCounter().count() == 1
+    }
+
     def "Failure to get Secret by name"() {
         given: "An exception is thrown while fetching a Secret"
         k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
@@ -115,43 +237,177 @@ class K8sSecretManagerSpec extends Specification {
         e.getMessage() == "Failure getting Secret by name."
     }
 
-    def "Get Secrets by odp-token-service label"() {
-        given: "Two odp-token-service labeled Secrets exist"
+    def "Failure to get Secret by name reports the API server status"() {
+        given: "The API server rejects the Secret fetch as overloaded"
         k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
             secrets() >> Stub(MixedOperation) {
-                withLabel(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL, OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE) >> Stub(FilterWatchListDeletable) {
-                    list() >> Stub(SecretList) {
-                        getItems() >> createTwoLabeledSecrets()
-                    }
+                withName(SECRET_NAME) >> Stub(Resource) {
+                    get() >> {throw new KubernetesClientException("Too many requests", 429, null)}
                 }
             }
         }
 
-        when: "Secret is fetched by odp-token-service label"
-        def fetchedSecrets = k8sSecretManager.getOdpTokenServiceLabeledSecrets()
+        when: "A secret is fetched by name"
+        k8sSecretManager.getSecretByName(SECRET_NAME)
 
-        then: "A list of two odp-token-service labeled Secrets is returned"
-        fetchedSecrets.size() == 2
-        fetchedSecrets.get(0).getMetadata().getLabels()
-                .get(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL) == OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE
-        fetchedSecrets.get(1).getMetadata().getLabels()
-                .get(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL) == OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE
+        then: "Failure fetching the Secret with the API server status"
+        def e = thrown(TokenServiceException)
+        e.getStatusCode() == 429
     }
 
-    def "Failure to get Secrets by odp-token-service label"() {
-        given: "An exception is thrown while fetching the Secrets by label"
+    def "Get Secrets by idempotency key from the API server before the Secret cache has synced"() {
+        given: "A Secret created with a particular idempotency key"
+        Map<String, String> selector = null
+        def labeledSecrets = Stub(FilterWatchListDeletable) {
+            list() >> new SecretList(items: [new Secret(metadata: new ObjectMeta(name: SECRET_NAME))])
+        }
         k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
-            secrets() >> {throw new KubernetesClientException("namespace not specified for an operation requiring one and no default was found in the Config.")}
+            secrets() >> Stub(MixedOperation) {
+                withLabels(_ as Map) >> { Map<String, String> labels ->
+                    selector = labels
+                    labeledSecrets
+                }
+            }
+        }
+
+        when: "The Secrets are fetched by idempotency key"
+        def fetchedSecrets = k8sSecretManager.getSecretsByIdempotencyKey("0123456789abcdef")
+
+        then: "The Secrets are listed by the odp-token-service and idempotency key labels"
+        fetchedSecrets*.metadata*.name == [SECRET_NAME]
+        selector == [(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL)    : OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE,
+                     (OdpTokenConstants.ODP_TOKEN_IDEMPOTENCY_KEY_LABEL): "0123456789abcdef"]
+    }
+
+    def "Get Secrets by user from the Secret cache"() {
+        given: "A Secret created for a particular user is held in the synced Secret cache"
+        def kubernetesClient = Mock(KubernetesClient)
+        k8sSecretManager.kubernetesClient = kubernetesClient
+        k8sSecretManager.secretInformer = Stub(SharedIndexInformer) {
+            hasSynced() >> true
+            getIndexer() >> Stub(Indexer) {
+                byIndex(K8sSecretManager.USER_INDEX, "0123456789abcdef") >> createTwoLabeledSecrets().subList(0, 1)
+            }
+        }
+
+        when: "The Secrets are fetched by user"
+        def fetchedSecrets = k8sSecretManager.getSecretsByUser("0123456789abcdef")
+
+        then: "The Secrets are served from the user index without requesting the API server"
+        fetchedSecrets*.metadata*.name == [SECRET_NAME]
+        0 * kubernetesClient.secrets()
+    }
+
+    def "Get a page of odp-token-service labeled Secret metadata"() {
+        given: "The API server returns a page of the Secret metadata with a continue token"
+        def requestedUrls = []
+        def requestBuilder = Stub(HttpRequest.Builder)
+        requestBuilder.uri(_ as String) >> { String url -> requestedUrls << url; requestBuilder }
+        requestBuilder.header(_ as String, _ as String) >> requestBuilder
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            getMasterUrl() >> new URL("https://kubernetes.default.svc/")
+            getNamespace() >> "odp"
+            getKubernetesSerialization() >> new KubernetesSerialization()
+            getHttpClient() >> Stub(HttpClient) {
+                newHttpRequestBuilder() >> requestBuilder
+                sendAsync(_, String) >> CompletableFuture.completedFuture(Stub(HttpResponse) {
+                    isSuccessful() >> true
+                    code() >> 200
+                    body() >> METADATA_PAGE
+                })
+            }
+        }
+
+        when: "The page following the previous continue token is fetched"
+        def metadataPage = k8sSecretManager.getOdpTokenMetadataPage("previous-page")
+
+        then: "Only the metadata of the labeled Secrets is requested, page by page"
+        requestedUrls == ["https://kubernetes.default.svc/api/v1/namespaces/odp/secrets?labelSelector="
+                                  + URLEncoder.encode(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL + "=" + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE, "UTF-8")
+                                  + "&limit=" + K8sSecretManager.SECRET_LIST_PAGE_SIZE + "&continue=previous-page"]
+
+        and: "The page holds the Secret metadata and the next continue token"
+        metadataPage.items*.metadata*.name == [SECRET_NAME]
+        metadataPage.metadata.getContinue() == "next-page"
+    }
+
+    def "Failure to get a page of odp-token-service labeled Secret metadata"() {
+        given: "An exception is thrown while fetching the Secret metadata"
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            getNamespace() >> "odp"
+            getHttpClient() >> {throw new KubernetesClientException("Connection refused.")}
         }
 
-        when: "Secret is fetched by odp-token-service label"
-        k8sSecretManager.getOdpTokenServiceLabeledSecrets()
+        when: "A page of the Secret metadata is fetched"
+        k8sSecretManager.getOdpTokenMetadataPage(null)
 
         then: "Failure fetching the odp-token-service labeled Secrets"
         def e = thrown(TokenServiceException)
         e.getMessage() == "Failure getting " + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE + " labeled Secrets."
     }
 
+    def "Failure to get a page of odp-token-service labeled Secret metadata without a namespace"() {
+        given: "No namespace is configured for the Kubernetes client"
+        def kubernetesClient = Mock(KubernetesClient) {
+            getNamespace() >> namespace
+        }
+        k8sSecretManager.kubernetesClient = kubernetesClient
+
+        when: "A page of the Secret metadata is fetched"
+        k8sSecretManager.getOdpTokenMetadataPage(null)
+
+        then: "Failure fetching the odp-token-service labeled Secrets, without any request to the API server"
+        def e = thrown(TokenServiceException)
+        e.getMessage() == "No Kubernetes namespace is configured to get the " + OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE + " labeled Secrets from."
+        0 * kubernetesClient.getHttpClient()
+
+        where:
+        namespace << [null, ""]
+    }
+
+    def "Annotate Secret by name"() {
+        given: "A Secret with a particular name exists"
+        PatchContext patchContext = null
+        String annotationsPatch = null
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            getKubernetesSerialization() >> new KubernetesSerialization()
+            secrets() >> Stub(MixedOperation) {
+                withName(SECRET_NAME) >> Stub(Resource) {
+                    patch(_ as PatchContext, _ as String) >> { PatchContext context, String patch ->
+                        patchContext = context
+                        annotationsPatch = patch
+                        null
+                    }
+                }
+            }
+        }
+
+        when: "The Secret is annotated by name"
+        k8sSecretManager.annotateSecret(SECRET_NAME, [(OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION): "1"])
+
+        then: "The annotations are merged into the Secret metadata"
+        patchContext.patchType == PatchType.JSON_MERGE
+        annotationsPatch == '{"metadata":{"annotations":{"' + OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION + '":"1"}}}'
+    }
+
+    def "No Secret to be annotated by name"() {
+        given: "No Secret exists for a given name"
+        k8sSecretManager.kubernetesClient = Stub(KubernetesClient) {
+            getKubernetesSerialization() >> new KubernetesSerialization()
+            secrets() >> Stub(MixedOperation) {
+                withName(SECRET_NAME) >> Stub(Resource) {
+                    patch(_ as PatchContext, _ as String) >> {throw new KubernetesClientException("Not found", 404, null)}
+                }
+            }
+        }
+
+        when: "The Secret is annotated by name"
+        k8sSecretManager.annotateSecret(SECRET_NAME, [(OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION): "1"])
+
+        then: "The token is not found"
+        thrown(TokenNotFoundException)
+    }
+
     def "Delete Secret by name"() {
         given: "A Secret with a particular name exists"
         def statusDetails = Spy(ArrayList)
@@ -16,49 +16,100 @@
 
 package com.ericsson.oss.odp.tokenservice.rest
 
+import javax.enterprise.concurrent.ManagedThreadFactory
+import javax.ws.rs.core.MediaType
 import javax.ws.rs.core.Response
+import javax.ws.rs.core.StreamingOutput
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
+import com.ericsson.oss.odp.tokenservice.model.VersionedOdpAuthData
 import com.ericsson.oss.odp.tokenservice.rest.api.OdpTokenServiceApi
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchDeleteParams
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchResult
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenDeleteResult
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
+import com.ericsson.oss.odp.tokenservice.service.OdpAuthDataBatchService
 import com.ericsson.oss.odp.tokenservice.service.OdpAuthDataService
+import com.ericsson.oss.odp.tokenservice.service.OdpTokenListService
+import com.ericsson.oss.odp.tokenservice.service.TokenOperationExecutor
 import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
 
 class OdpTokenServiceSpec extends Specification {
     def TOKEN_NAME = "odptoken-secret-20240509125212-1"
+    def SECRET_VERSION = "4711"
     def BASE64_ODPTOKEN = "Z3AxS2x0aXZXSlRDQ3ZIbWVkUWtIYVpzS3V3LipBQUpUU1FBQ01ERUFBbE5MQUJ4TVdWaGtjMkl3ZVhrd1kzQlphVVpIVVZWWlN6bGhhVVZNUXpROUFBUjBlWEJsQUFORFZGTUFBbE14QUFBLioK"
 
     def "Get ODP token by token name"() {
         given: "ODP token params"
         OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
         odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
-            getOdpAuthData(TOKEN_NAME) >> new ODPTokenAuthData(TOKEN_NAME, [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN], [])
+            getOdpAuthData(TOKEN_NAME, []) >> new VersionedOdpAuthData(SECRET_VERSION,
+                    new ODPTokenAuthData(TOKEN_NAME, [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN], []))
         }
 
         when: "ODP token is fetched by name"
-        def response = odpTokenService.getOdpToken(TOKEN_NAME)
+        def response = odpTokenService.getOdpToken(TOKEN_NAME, null)
 
         then: "The response status is OK and the entity contains the authentication data"
         with(response) {
             getStatus() == Response.Status.OK.statusCode
             ((ODPTokenAuthData)getEntity()).tokenName == TOKEN_NAME
             ((ODPTokenAuthData)getEntity()).tokenData[OdpTokenConstants.ODP_TOKEN_DATA_KEY] == BASE64_ODPTOKEN
+            getEntityTag().value == SECRET_VERSION
+        }
+    }
+
+    def "Get ODP token by token name is not modified when its version is known"() {
+        given: "The caller already knows the ODP token version"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpAuthData(TOKEN_NAME, [SECRET_VERSION] as Set) >> new VersionedOdpAuthData(SECRET_VERSION, null)
+        }
+
+        when: "ODP token is fetched by name with the known version"
+        def response = odpTokenService.getOdpToken(TOKEN_NAME, 'W/"' + SECRET_VERSION + '"')
+
+        then: "The response status is NOT_MODIFIED without an entity"
+        with(response) {
+            getStatus() == Response.Status.NOT_MODIFIED.statusCode
+            getEntity() == null
+            getEntityTag().value == SECRET_VERSION
         }
     }
 
+    def "Parse the If-None-Match header into the known ODP token versions"() {
+        expect: "The weak and strong ETags are parsed into their values"
+        OdpTokenServiceImpl.parseEntityTags(ifNoneMatch) == versions as Set
+
+        where:
+        ifNoneMatch    || versions
+        null           || []
+        " "            || []
+        '"12"'         || ["12"]
+        'W/"12", "13"' || ["12", "13"]
+        "*"            || ["*"]
+    }
+
     def "Failure to get ODP token by token name"() {
         given: "An exception is thrown while fetching the ODP token"
         OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
         def expectedErrorMessage = "No ODP Token exists with [" + TOKEN_NAME + "] token name."
         odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
-            getOdpAuthData(TOKEN_NAME) >> {throw new TokenServiceException(expectedErrorMessage)}
+            getOdpAuthData(TOKEN_NAME, _) >> {throw new TokenServiceException(expectedErrorMessage)}
         }
 
         when: "ODP token is fetched by name"
-        def response = odpTokenService.getOdpToken(TOKEN_NAME)
+        def response = odpTokenService.getOdpToken(TOKEN_NAME, null)
 
         then: "The response status is INTERNAL_SERVER_ERROR and the entity contains the error message"
         with(response) {
@@ -67,20 +118,37 @@ class OdpTokenServiceSpec extends Specification {
         }
     }
 
+    def "Get ODP token by token name which does not exist"() {
+        given: "No ODP token exists for the token name"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpAuthData(TOKEN_NAME, _) >> {throw new TokenNotFoundException(TOKEN_NAME)}
+        }
+
+        when: "ODP token is fetched by name"
+        def response = odpTokenService.getOdpToken(TOKEN_NAME, null)
+
+        then: "The response status is NOT_FOUND and the entity contains the error message"
+        with(response) {
+            getStatus() == Response.Status.NOT_FOUND.statusCode
+            getEntity().toString() == "No ODP Token exists with [" + TOKEN_NAME + "] token name."
+        }
+    }
+
     def "Create ODP token"() {
         given: "ODP token params"
         OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
         def createForUsername = "odpusername"
         def createForTokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
         odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
-            createOdpAuthData(createForUsername, createForTokenTypes) >> new ODPTokenAuthData(TOKEN_NAME, [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN], [])
+            createOdpAuthData(createForUsername, createForTokenTypes, _, _) >> new ODPTokenAuthData(TOKEN_NAME, [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN], [])
         }
 
         when: "ODP token is created"
         def params = new ODPTokenGenerateParams()
         params.username = createForUsername
         params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
-        def response = odpTokenService.createOdpToken(params)
+        def response = odpTokenService.createOdpToken(params, null)
 
         then: "The response status is OK and the entity contains the authentication data"
         with(response) {
@@ -95,13 +163,13 @@ class OdpTokenServiceSpec extends Specification {
         OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
         def expectedErrorMessage = "The username param is mandatory."
         odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
-            createOdpAuthData(null, [ODPTokenGenerateParams.TokenType.SSO]) >> {throw new TokenServiceException(expectedErrorMessage)}
+            createOdpAuthData(null, [ODPTokenGenerateParams.TokenType.SSO], _, _) >> {throw new TokenServiceException(expectedErrorMessage)}
         }
 
         when: "ODP token is created"
         def params = new ODPTokenGenerateParams()
         params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
-        def response = odpTokenService.createOdpToken(params)
+        def response = odpTokenService.createOdpToken(params, null)
 
         then: "The response status is INTERNAL_SERVER_ERROR and the entity contains the error message"
         with(response) {
@@ -110,10 +178,193 @@ class OdpTokenServiceSpec extends Specification {
         }
     }
 
+    def "ODP token creation with an idempotency key used for other token types is rejected"() {
+        given: "An idempotency key already used for other token types"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        def expectedErrorMessage = "The idempotency key has already been used for other token types."
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSO], _, "create-1") >> {
+                throw new InvalidTokenParamsException(expectedErrorMessage)
+            }
+        }
+
+        when: "ODP token is created with the idempotency key"
+        def params = new ODPTokenGenerateParams()
+        params.username = "odpusername"
+        params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
+        def response = odpTokenService.createOdpToken(params, "create-1")
+
+        then: "The response status is BAD_REQUEST and the entity contains the error message"
+        with(response) {
+            getStatus() == Response.Status.BAD_REQUEST.statusCode
+            getEntity().toString() == expectedErrorMessage
+        }
+    }
+
+    def "ODP token creation fails fast while the SSO service is unavailable"() {
+        given: "An unavailable SSO service"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            createOdpAuthData(_ as String, _ as List, _, _) >> { throw new SsoUnavailableException("The SSO service is unavailable.") }
+        }
+
+        when: "ODP token is created"
+        def params = new ODPTokenGenerateParams()
+        params.username = "odpusername"
+        params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
+        def response = odpTokenService.createOdpToken(params, null)
+
+        then: "The response status is SERVICE_UNAVAILABLE and the entity contains the error message"
+        with(response) {
+            getStatus() == Response.Status.SERVICE_UNAVAILABLE.statusCode
+            getEntity().toString() == "The SSO service is unavailable."
+        }
+    }
+
+    def "Create a batch of ODP tokens"() {
+        given: "A batch of ODP token params"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        def params = new ODPTokenGenerateParams()
+        params.username = "odpusername"
+        params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
+        odpTokenService.odpAuthDataBatchService = Stub(OdpAuthDataBatchService) {
+            createOdpAuthDataBatch([params]) >> [new ODPTokenBatchResult(0, new ODPTokenAuthData(TOKEN_NAME, [:], []), null)]
+        }
+
+        when: "The batch of ODP tokens is created"
+        def response = odpTokenService.createOdpTokens([params])
+
+        then: "The response status is OK and the entity contains the outcome of each ODP token creation"
+        with(response) {
+            getStatus() == Response.Status.OK.statusCode
+            ((List<ODPTokenBatchResult>) getEntity())[0].authData.tokenName == TOKEN_NAME
+        }
+    }
+
+    def "Failure to create an invalid batch of ODP tokens"() {
+        given: "An exception is thrown while creating an empty batch of ODP tokens"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        def expectedErrorMessage = "No ODP token generate parameters have been specified."
+        odpTokenService.odpAuthDataBatchService = Stub(OdpAuthDataBatchService) {
+            createOdpAuthDataBatch([]) >> {throw new InvalidTokenParamsException(expectedErrorMessage)}
+        }
+
+        when: "The batch of ODP tokens is created"
+        def response = odpTokenService.createOdpTokens([])
+
+        then: "The response status is BAD_REQUEST and the entity contains the error message"
+        with(response) {
+            getStatus() == Response.Status.BAD_REQUEST.statusCode
+            getEntity().toString() == expectedErrorMessage
+        }
+    }
+
+    def "Delete a batch of ODP tokens"() {
+        given: "The token names of the ODP tokens to be deleted"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        def params = new ODPTokenBatchDeleteParams()
+        params.tokenNames = [TOKEN_NAME]
+        odpTokenService.odpAuthDataBatchService = Stub(OdpAuthDataBatchService) {
+            deleteOdpAuthDataBatch(params) >> [new ODPTokenDeleteResult(TOKEN_NAME, ODPTokenDeleteResult.Outcome.DELETED, null)]
+        }
+
+        when: "The batch of ODP tokens is deleted"
+        def response = odpTokenService.deleteOdpTokens(params)
+
+        then: "The response status is OK and the entity contains the outcome of each ODP token deletion"
+        with(response) {
+            getStatus() == Response.Status.OK.statusCode
+            ((List<ODPTokenDeleteResult>) getEntity())[0].outcome == ODPTokenDeleteResult.Outcome.DELETED
+        }
+    }
+
+    def "Failure to delete a batch of ODP tokens"() {
+        given: "An exception is thrown while deleting the batch of ODP tokens"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        def params = new ODPTokenBatchDeleteParams()
+        odpTokenService.odpAuthDataBatchService = Stub(OdpAuthDataBatchService) {
+            deleteOdpAuthDataBatch(params) >> {throw exception}
+        }
+
+        when: "The batch of ODP tokens is deleted"
+        def response = odpTokenService.deleteOdpTokens(params)
+
+        then: "The response status matches the failure and the entity contains the error message"
+        with(response) {
+            getStatus() == expectedStatus.statusCode
+            getEntity().toString() == exception.getMessage()
+        }
+
+        where:
+        exception                                                                           | expectedStatus
+        new InvalidTokenParamsException("Neither token names nor labels have been specified.") | Response.Status.BAD_REQUEST
+        new TokenServiceException("Failure getting {tenant=a} labeled Secrets.")            | Response.Status.INTERNAL_SERVER_ERROR
+    }
+
+    def "List the ODP tokens"() {
+        given: "A stream of the page of the ODP tokens"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        def page = Stub(StreamingOutput)
+        odpTokenService.odpTokenListService = Stub(OdpTokenListService) {
+            listOdpTokens(null, ["sso"], 60L, null, "next-page", 100) >> page
+        }
+
+        when: "The ODP tokens are listed"
+        def response = odpTokenService.listOdpTokens(null, ["sso"], 60L, null, "next-page", 100)
+
+        then: "The response status is OK and the entity streams the page of the ODP tokens"
+        with(response) {
+            getStatus() == Response.Status.OK.statusCode
+            getEntity().is(page)
+            getMediaType() == MediaType.APPLICATION_JSON_TYPE
+        }
+    }
+
+    def "Failure to list the ODP tokens"() {
+        given: "An exception is thrown while listing the ODP tokens"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpTokenListService = Stub(OdpTokenListService) {
+            listOdpTokens(*_) >> {throw exception}
+        }
+
+        when: "The ODP tokens are listed"
+        def response = odpTokenService.listOdpTokens(null, null, null, null, null, 0)
+
+        then: "The response status matches the failure and the entity contains the error message"
+        with(response) {
+            getStatus() == expectedStatus.statusCode
+            getEntity().toString() == exception.getMessage()
+        }
+
+        where:
+        exception                                                                       | expectedStatus
+        new InvalidTokenParamsException("The limit param must be between 1 and 1000.") | Response.Status.BAD_REQUEST
+        new TokenServiceException("Failure getting odp-token-service labeled Secrets.") | Response.Status.INTERNAL_SERVER_ERROR
+    }
+
+    def "Delete the ODP tokens of a user"() {
+        given: "An ODP token of the user"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpAuthDataBatchService = Stub(OdpAuthDataBatchService) {
+            deleteOdpAuthDataByUser("odpusername") >> [new ODPTokenDeleteResult(TOKEN_NAME, ODPTokenDeleteResult.Outcome.QUEUED, null)]
+        }
+
+        when: "The ODP tokens of the user are deleted"
+        def response = odpTokenService.deleteOdpTokensByUser("odpusername")
+
+        then: "The response status is OK and the entity contains the outcome of each ODP token deletion"
+        with(response) {
+            getStatus() == Response.Status.OK.statusCode
+            ((List<ODPTokenDeleteResult>) getEntity())[0].outcome == ODPTokenDeleteResult.Outcome.QUEUED
+        }
+    }
+
     def "Delete ODP token by token name"() {
         given: "ODP token params"
         OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
-        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService)
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            deleteOdpAuthData(TOKEN_NAME) >> true
+        }
 
         when: "ODP token is deleted by name"
         def response = odpTokenService.deleteOdpToken(TOKEN_NAME)
@@ -122,6 +373,20 @@ class OdpTokenServiceSpec extends Specification {
         response.getStatus() == Response.Status.OK.statusCode
     }
 
+    def "Delete ODP token pending logout by token name"() {
+        given: "The ODP token is deleted once logged out"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            deleteOdpAuthData(TOKEN_NAME) >> false
+        }
+
+        when: "ODP token is deleted by name"
+        def response = odpTokenService.deleteOdpToken(TOKEN_NAME)
+
+        then: "The response status is ACCEPTED"
+        response.getStatus() == Response.Status.ACCEPTED.statusCode
+    }
+
     def "Failure to delete ODP token by token name"() {
         given: "An exception is thrown while deleting the ODP token"
         OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
@@ -139,4 +404,159 @@ class OdpTokenServiceSpec extends Specification {
             getEntity().toString() == expectedErrorMessage
         }
     }
+
+    def "Delete ODP token by token name which does not exist"() {
+        given: "No ODP token exists for the token name"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            deleteOdpAuthData(TOKEN_NAME) >> {throw new TokenNotFoundException(TOKEN_NAME)}
+        }
+
+        when: "ODP token is deleted by name"
+        def response = odpTokenService.deleteOdpToken(TOKEN_NAME)
+
+        then: "The response status is NOT_FOUND and the entity contains the error message"
+        with(response) {
+            getStatus() == Response.Status.NOT_FOUND.statusCode
+            getEntity().toString() == "No ODP Token exists with [" + TOKEN_NAME + "] token name."
+        }
+    }
+
+    def "Get ODP token by token name asynchronously"() {
+        given: "ODP token params"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.tokenOperationExecutor = createTokenOperationExecutor()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpAuthData(TOKEN_NAME, []) >> new VersionedOdpAuthData(SECRET_VERSION,
+                    new ODPTokenAuthData(TOKEN_NAME, [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN], []))
+        }
+
+        when: "ODP token is fetched by name"
+        def response = odpTokenService.getOdpTokenAsync(TOKEN_NAME, null).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then: "The response status is OK and the entity contains the authentication data"
+        with(response) {
+            getStatus() == Response.Status.OK.statusCode
+            ((ODPTokenAuthData)getEntity()).tokenName == TOKEN_NAME
+            ((ODPTokenAuthData)getEntity()).tokenData[OdpTokenConstants.ODP_TOKEN_DATA_KEY] == BASE64_ODPTOKEN
+        }
+
+        cleanup:
+        odpTokenService.tokenOperationExecutor.destroy()
+    }
+
+    def "Failure to get ODP token by token name asynchronously"() {
+        given: "An exception is thrown while fetching the ODP token"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.tokenOperationExecutor = createTokenOperationExecutor()
+        def expectedErrorMessage = "No ODP Token exists with [" + TOKEN_NAME + "] token name."
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpAuthData(TOKEN_NAME, _) >> {throw new TokenServiceException(expectedErrorMessage)}
+        }
+
+        when: "ODP token is fetched by name"
+        def response = odpTokenService.getOdpTokenAsync(TOKEN_NAME, null).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then: "The response status is INTERNAL_SERVER_ERROR and the entity contains the error message"
+        with(response) {
+            getStatus() == Response.Status.INTERNAL_SERVER_ERROR.statusCode
+            getEntity().toString() == expectedErrorMessage
+        }
+
+        cleanup:
+        odpTokenService.tokenOperationExecutor.destroy()
+    }
+
+    def "Get ODP token by token name which does not exist asynchronously"() {
+        given: "No ODP token exists for the token name"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.tokenOperationExecutor = createTokenOperationExecutor()
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpAuthData(TOKEN_NAME, _) >> {throw new TokenNotFoundException(TOKEN_NAME)}
+        }
+
+        when: "ODP token is fetched by name"
+        def response = odpTokenService.getOdpTokenAsync(TOKEN_NAME, null).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then: "The response status is NOT_FOUND"
+        response.getStatus() == Response.Status.NOT_FOUND.statusCode
+
+        cleanup:
+        odpTokenService.tokenOperationExecutor.destroy()
+    }
+
+    def "Create ODP token asynchronously"() {
+        given: "ODP token params"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.tokenOperationExecutor = createTokenOperationExecutor()
+        def createForUsername = "odpusername"
+        def createForTokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            createOdpAuthData(createForUsername, createForTokenTypes, _, _) >> new ODPTokenAuthData(TOKEN_NAME, [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN], [])
+        }
+
+        when: "ODP token is created"
+        def params = new ODPTokenGenerateParams()
+        params.username = createForUsername
+        params.tokenTypes = createForTokenTypes
+        def response = odpTokenService.createOdpTokenAsync(params, null).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then: "The response status is OK and the entity contains the authentication data"
+        with(response) {
+            getStatus() == Response.Status.OK.statusCode
+            ((ODPTokenAuthData)getEntity()).tokenName == TOKEN_NAME
+        }
+
+        cleanup:
+        odpTokenService.tokenOperationExecutor.destroy()
+    }
+
+    def "Delete ODP token by token name asynchronously"() {
+        given: "ODP token params"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.tokenOperationExecutor = createTokenOperationExecutor()
+        def odpAuthDataService = Mock(OdpAuthDataService)
+        odpTokenService.odpAuthDataService = odpAuthDataService
+
+        when: "ODP token is deleted by name"
+        def response = odpTokenService.deleteOdpTokenAsync(TOKEN_NAME).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then: "The ODP token is deleted and the response status is OK"
+        1 * odpAuthDataService.deleteOdpAuthData(TOKEN_NAME) >> true
+        response.getStatus() == Response.Status.OK.statusCode
+
+        cleanup:
+        odpTokenService.tokenOperationExecutor.destroy()
+    }
+
+    def "ODP token operations are rejected when too many operations are in progress"() {
+        given: "The get operation executor threads and queue are all busy"
+        OdpTokenServiceApi odpTokenService = new OdpTokenServiceImpl()
+        odpTokenService.tokenOperationExecutor = createTokenOperationExecutor()
+        def blocker = new CountDownLatch(1)
+        odpTokenService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpAuthData(TOKEN_NAME, _) >> { blocker.await(); null }
+        }
+        1000.times { odpTokenService.getOdpTokenAsync(TOKEN_NAME, null) }
+
+        when: "ODP token is fetched by name"
+        def response = odpTokenService.getOdpTokenAsync(TOKEN_NAME, null).toCompletableFuture().get(5, TimeUnit.SECONDS)
+
+        then: "The response status is SERVICE_UNAVAILABLE"
+        response.getStatus() == Response.Status.SERVICE_UNAVAILABLE.statusCode
+
+        cleanup:
+        blocker.countDown()
+        odpTokenService.tokenOperationExecutor.destroy()
+    }
+
+    TokenOperationExecutor createTokenOperationExecutor() {
+        def tokenOperationExecutor = new TokenOperationExecutor()
+        tokenOperationExecutor.meterRegistry = new SimpleMeterRegistry()
+        tokenOperationExecutor.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> { Runnable runnable -> new Thread(runnable) }
+        }
+        tokenOperationExecutor.init()
+        tokenOperationExecutor
+    }
 }
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest
+
+import javax.ws.rs.core.Response
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.micrometer.prometheus.PrometheusConfig
+import io.micrometer.prometheus.PrometheusMeterRegistry
+import spock.lang.Specification
+
+class PrometheusScrapeResourceSpec extends Specification {
+
+    def prometheusScrapeResource = new PrometheusScrapeResource()
+
+    def "Service metrics are scraped in the Prometheus text format"() {
+        given: "A Prometheus meter registry with an ODP token metric"
+        def meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+        meterRegistry.counter("odp.token.rest.errors", "operation", "createOdpToken", "status", "503").increment()
+        prometheusScrapeResource.meterRegistry = meterRegistry
+
+        when: "The service metrics are scraped"
+        def response = prometheusScrapeResource.scrape()
+
+        then: "The ODP token metric is returned"
+        response.getStatus() == Response.Status.OK.getStatusCode()
+        (response.getEntity() as String).contains('odp_token_rest_errors_total{operation="createOdpToken",status="503",} 1.0')
+    }
+
+    def "Service metrics are not found without a Prometheus meter registry"() {
+        given: "A meter registry not backed by Prometheus"
+        prometheusScrapeResource.meterRegistry = new SimpleMeterRegistry()
+
+        when: "The service metrics are scraped"
+        def response = prometheusScrapeResource.scrape()
+
+        then: "No service metrics are found"
+        response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.rest
+
+import javax.ws.rs.container.ContainerRequestContext
+import javax.ws.rs.container.ContainerResponseContext
+import javax.ws.rs.container.ResourceInfo
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.lang.reflect.Method
+
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
+
+class RestMetricsFilterSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def restMetricsFilter = new RestMetricsFilter()
+    def requestProperties = [:]
+    ContainerRequestContext requestContext = Stub(ContainerRequestContext) {
+        setProperty(_ as String, _) >> { String name, Object value -> requestProperties[name] = value }
+        getProperty(_ as String) >> { String name -> requestProperties[name] }
+        getMethod() >> "POST"
+    }
+
+    def setup() {
+        restMetricsFilter.meterRegistry = meterRegistry
+    }
+
+    def "Successful ODP token request is timed per resource method"() {
+        given: "A request to create an ODP token"
+        restMetricsFilter.resourceInfo = createResourceInfo(OdpTokenServiceImpl,
+                OdpTokenServiceImpl.getMethod("createOdpToken", ODPTokenGenerateParams))
+
+        when: "The request is filtered and responded successfully"
+        restMetricsFilter.filter(requestContext)
+        restMetricsFilter.filter(requestContext, Stub(ContainerResponseContext) { getStatus() >> 200 })
+
+        then: "The request is timed as successful and not counted as failed"
+        meterRegistry.get("odp.token.rest.requests")
+                .tags("operation", "createOdpToken", "method", "POST", "status", "200", "outcome", "success")
+                .timer().count() == 1
+        meterRegistry.find("odp.token.rest.errors").counter() == null
+    }
+
+    def "Failed ODP token request is timed and counted per status"() {
+        given: "A request to create an ODP token"
+        restMetricsFilter.resourceInfo = createResourceInfo(OdpTokenServiceImpl,
+                OdpTokenServiceImpl.getMethod("createOdpToken", ODPTokenGenerateParams))
+
+        when: "The request is filtered and responded with a failure"
+        restMetricsFilter.filter(requestContext)
+        restMetricsFilter.filter(requestContext, Stub(ContainerResponseContext) { getStatus() >> status })
+
+        then: "The request is timed with the failure outcome and counted as failed"
+        meterRegistry.get("odp.token.rest.requests").tags("status", String.valueOf(status), "outcome", outcome)
+                .timer().count() == 1
+        meterRegistry.get("odp.token.rest.errors").tags("operation", "createOdpToken", "status", String.valueOf(status))
+                .counter().count() == 1
+
+        where:
+        status | outcome
+        400    | "client_error"
+        503    | "server_error"
+    }
+
+    def "Requests of other resources are not timed"() {
+        given: "A request to scrape the metrics"
+        restMetricsFilter.resourceInfo = createResourceInfo(PrometheusScrapeResource,
+                PrometheusScrapeResource.getMethod("scrape"))
+
+        when: "The request is filtered and responded"
+        restMetricsFilter.filter(requestContext)
+        restMetricsFilter.filter(requestContext, Stub(ContainerResponseContext) { getStatus() >> 200 })
+
+        then: "The request is not timed"
+        meterRegistry.find("odp.token.rest.requests").timer() == null
+    }
+
+    ResourceInfo createResourceInfo(Class resourceClass, Method resourceMethod) {
+        Stub(ResourceInfo) {
+            getResourceClass() >> resourceClass
+            getResourceMethod() >> resourceMethod
+        }
+    }
+}
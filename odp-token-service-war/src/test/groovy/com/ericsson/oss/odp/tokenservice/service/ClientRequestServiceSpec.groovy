@@ -16,10 +16,14 @@
 
 package com.ericsson.oss.odp.tokenservice.service
 
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
 import com.ericsson.oss.odp.tokenservice.model.OdpToken
+import com.ericsson.oss.odp.tokenservice.util.CircuitBreaker
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
+import javax.ws.rs.ProcessingException
 import javax.ws.rs.client.Client
 import javax.ws.rs.client.Invocation
 import javax.ws.rs.client.WebTarget
@@ -28,11 +32,13 @@ import javax.ws.rs.core.Response
 class ClientRequestServiceSpec extends Specification {
 
     def ODPTOKEN_ID = "gp1KltivWJTCCvHmedQkHaZsKuw.*AAJTSQACMDEAAlNLABxMWVhkc2IweXkwY3BZaUZHUVVZSzlhaUVMQzQ9AAR0eXBlAANDVFMAAlMxAAA.*"
+    def meterRegistry = new SimpleMeterRegistry()
 
     def "Impersonates a give user"() {
         given: "An username to impersonate"
         def username = "odpuser"
         ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
         clientRequestService.httpClient = Stub(Client) {
             target(ClientRequestService.USER_IMPERSONATE_RESOURCE_PATH) >> Stub(WebTarget) {
                 request() >> Stub(Invocation.Builder) {
@@ -55,12 +61,14 @@ class ClientRequestServiceSpec extends Specification {
 
         then: "OdpToken is returned as output"
         odpTokenOutput.tokenId == ODPTOKEN_ID
+        meterRegistry.get("odp.token.sso.requests").tags("operation", "impersonate", "outcome", "success").timer().count() == 1
     }
 
     def "Failure impersonating a give user"() {
         given: "An username to impersonate"
         def username = "odpuser"
         ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
         clientRequestService.httpClient = Stub(Client) {
             target(ClientRequestService.USER_IMPERSONATE_RESOURCE_PATH) >> Stub(WebTarget) {
                 request() >> Stub(Invocation.Builder) {
@@ -86,6 +94,7 @@ class ClientRequestServiceSpec extends Specification {
     def "Successful tokenId logout"() {
         given: "A tokenId to revoke"
         ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
         clientRequestService.httpClient = Stub(Client) {
             target(ClientRequestService.USER_LOGOUT_RESOURCE_PATH) >> Stub(WebTarget) {
                 request() >> Stub(Invocation.Builder) {
@@ -110,6 +119,7 @@ class ClientRequestServiceSpec extends Specification {
     def "Unsuccessful tokenId logout"() {
         given: "A tokenId to revoke"
         ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
         clientRequestService.httpClient = Stub(Client) {
             target(ClientRequestService.USER_LOGOUT_RESOURCE_PATH) >> Stub(WebTarget) {
                 request() >> Stub(Invocation.Builder) {
@@ -129,5 +139,115 @@ class ClientRequestServiceSpec extends Specification {
 
         then: "TokenId logout is unsuccessful"
         !logoutSuccess
+        meterRegistry.get("odp.token.sso.requests").tags("operation", "logout", "outcome", "failure").timer().count() == 1
     }
-}
\ No newline at end of file
+
+    def "TokenId logout reports the logout response status"() {
+        given: "A tokenId to revoke while the SSO service is overloaded"
+        ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
+        clientRequestService.httpClient = Stub(Client) {
+            target(ClientRequestService.USER_LOGOUT_RESOURCE_PATH) >> Stub(WebTarget) {
+                request() >> Stub(Invocation.Builder) {
+                    cookie("iPlanetDirectoryPro", ODPTOKEN_ID) >> Stub(Invocation.Builder) {
+                        get() >> Stub(Response) {
+                            getStatusInfo() >> Stub(Response.StatusType) {
+                                getStatusCode() >> Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        when: "TokenId is logged out"
+        def statusCode = clientRequestService.requestLogout(ODPTOKEN_ID)
+
+        then: "The logout response status is reported"
+        statusCode == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+    }
+
+    def "User impersonate request getting no response fails as the SSO service is unavailable"() {
+        given: "An SSO service which does not respond in time"
+        def username = "odpuser"
+        ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
+        clientRequestService.httpClient = Stub(Client) {
+            target(ClientRequestService.USER_IMPERSONATE_RESOURCE_PATH) >> Stub(WebTarget) {
+                request() >> Stub(Invocation.Builder) {
+                    header("X-OpenAM-Username", username) >> Stub(Invocation.Builder) {
+                        post(null) >> { throw new ProcessingException("Read timed out") }
+                    }
+                }
+            }
+        }
+
+        when: "User is impersonated"
+        clientRequestService.impersonateUser(username)
+
+        then: "The SSO service is unavailable"
+        def e = thrown(SsoUnavailableException)
+        e.getMessage() == "The SSO service is unavailable."
+        meterRegistry.get("odp.token.sso.requests").tags("operation", "impersonate", "outcome", "failure").timer().count() == 1
+    }
+
+    def "TokenId logout is rejected while the circuit breaker is open"() {
+        given: "An SSO service failing the logout requests and a circuit breaker opening on the first failure"
+        ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
+        clientRequestService.circuitBreaker = new CircuitBreaker(1, 1, 100, 10000, 60000, 1)
+        clientRequestService.init()
+        clientRequestService.httpClient = Stub(Client) {
+            target(ClientRequestService.USER_LOGOUT_RESOURCE_PATH) >> Stub(WebTarget) {
+                request() >> Stub(Invocation.Builder) {
+                    cookie("iPlanetDirectoryPro", ODPTOKEN_ID) >> Stub(Invocation.Builder) {
+                        get() >> Stub(Response) {
+                            getStatusInfo() >> Stub(Response.StatusType) {
+                                getStatusCode() >> Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        when: "TokenId logout fails"
+        def statusCode = clientRequestService.requestLogout(ODPTOKEN_ID)
+
+        then: "The circuit breaker opens"
+        statusCode == Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()
+        meterRegistry.get("odp.token.sso.circuit.breaker.state").tag("state", "open").gauge().value() == 1
+        meterRegistry.get("odp.token.sso.circuit.breaker.state").tag("state", "closed").gauge().value() == 0
+
+        when: "TokenId is logged out again"
+        clientRequestService.requestLogout(ODPTOKEN_ID)
+
+        then: "The logout is rejected without calling the SSO service"
+        thrown(SsoUnavailableException)
+        meterRegistry.get("odp.token.sso.rejected").tags("operation", "logout", "reason", "circuit_open").counter().count() == 1
+        meterRegistry.get("odp.token.sso.requests").tags("operation", "logout").timer().count() == 1
+        meterRegistry.get("odp.token.sso.bulkhead.available").gauge().value() == ClientRequestService.BULKHEAD_MAX_CONCURRENT_CALLS
+    }
+
+    def "User impersonate request is rejected when too many SSO service requests are in progress"() {
+        given: "No SSO service request permit left"
+        ClientRequestService clientRequestService = new ClientRequestService()
+        clientRequestService.meterRegistry = meterRegistry
+        clientRequestService.httpClient = Stub(Client) {
+            target(ClientRequestService.USER_IMPERSONATE_RESOURCE_PATH) >> Stub(WebTarget) {
+                request() >> Stub(Invocation.Builder) {
+                    header(_ as String, _) >> Stub(Invocation.Builder)
+                }
+            }
+        }
+        clientRequestService.bulkhead.drainPermits()
+
+        when: "User is impersonated"
+        clientRequestService.impersonateUser("odpuser")
+
+        then: "The request is rejected"
+        def e = thrown(SsoUnavailableException)
+        e.getMessage() == "Too many concurrent SSO service requests."
+        meterRegistry.get("odp.token.sso.rejected").tags("operation", "impersonate", "reason", "bulkhead_full").counter().count() == 1
+    }
+}
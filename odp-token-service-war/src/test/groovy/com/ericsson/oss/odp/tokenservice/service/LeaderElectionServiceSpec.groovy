@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.enterprise.concurrent.ManagedThreadFactory
+
+import io.fabric8.kubernetes.client.KubernetesClient
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfig
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElector
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectorBuilder
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+
+class LeaderElectionServiceSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def leaderElectionService = new LeaderElectionService()
+    LeaderElectionConfig leaderElectionConfig
+    def elections = []
+
+    def setup() {
+        def leaderElectorBuilder = Stub(LeaderElectorBuilder)
+        leaderElectorBuilder.withConfig(_ as LeaderElectionConfig) >> { LeaderElectionConfig config ->
+            leaderElectionConfig = config
+            leaderElectorBuilder
+        }
+        leaderElectorBuilder.build() >> Stub(LeaderElector) {
+            start() >> {
+                def election = new CompletableFuture()
+                elections << election
+                election
+            }
+        }
+        leaderElectionService.kubernetesClient = Stub(KubernetesClient) {
+            getNamespace() >> "odp"
+            leaderElector() >> leaderElectorBuilder
+        }
+        leaderElectionService.meterRegistry = meterRegistry
+        leaderElectionService.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> { Runnable runnable -> new Thread(runnable) }
+        }
+        leaderElectionService.init()
+    }
+
+    def cleanup() {
+        leaderElectionService.destroy()
+    }
+
+    def "Replicas compete for the cleanup Lease"() {
+        expect: "The replica competes for the cleanup Lease without being the leader yet"
+        leaderElectionConfig.lock instanceof LeaseLock
+        leaderElectionConfig.releaseOnCancel
+        elections.size() == 1
+        !leaderElectionService.isLeader()
+        meterRegistry.get("odp.token.cleanup.leader").gauge().value() == 0
+    }
+
+    def "Leadership follows the Lease callbacks"() {
+        when: "The replica acquires the cleanup Lease"
+        leaderElectionConfig.leaderCallbacks.onStartLeading()
+
+        then: "The replica is the leader"
+        leaderElectionService.isLeader()
+        meterRegistry.get("odp.token.cleanup.leader").gauge().value() == 1
+
+        when: "The replica loses the cleanup Lease"
+        leaderElectionConfig.leaderCallbacks.onStopLeading()
+
+        then: "The replica is no longer the leader"
+        !leaderElectionService.isLeader()
+    }
+
+    def "Replica competes again once the election ends"() {
+        given: "The replica is the leader"
+        leaderElectionConfig.leaderCallbacks.onStartLeading()
+
+        when: "The election ends as the Lease can no longer be renewed"
+        elections[0].complete(null)
+
+        then: "The replica is no longer the leader and competes for the Lease again after a backoff"
+        !leaderElectionService.isLeader()
+        elections.size() == 1
+        new PollingConditions(timeout: 10).eventually {
+            assert elections.size() == 2
+        }
+    }
+
+    def "Replica does not compete again once shut down while the election restart is pending"() {
+        given: "The election has ended and its restart is pending"
+        elections[0].complete(null)
+
+        when: "The replica shuts down before the election restart"
+        leaderElectionService.destroy()
+        Thread.sleep(LeaderElectionService.getRestartDelayMillis(1) + 500)
+
+        then: "The election is not started again"
+        elections.size() == 1
+    }
+
+    def "Election restart backoff grows up to the Lease duration"() {
+        expect: "The backoff doubles with each ended election and is capped"
+        (1..40).every { restarts -> LeaderElectionService.getRestartDelayMillis(restarts) > 0 }
+        LeaderElectionService.getRestartDelayMillis(2) == 2 * LeaderElectionService.getRestartDelayMillis(1)
+        LeaderElectionService.getRestartDelayMillis(40) == LeaderElectionService.getRestartDelayMillis(41)
+        LeaderElectionService.getRestartDelayMillis(1) <= LeaderElectionService.getRestartDelayMillis(40)
+    }
+
+    def "Replica stops competing on shutdown"() {
+        when: "The replica shuts down"
+        leaderElectionService.destroy()
+
+        then: "The election is cancelled, releasing the Lease, and not started again"
+        elections[0].isCancelled()
+        elections.size() == 1
+    }
+}
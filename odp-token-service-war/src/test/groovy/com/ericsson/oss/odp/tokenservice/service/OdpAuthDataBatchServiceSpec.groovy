@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.enterprise.concurrent.ManagedExecutorService
+import javax.enterprise.concurrent.ManagedThreadFactory
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException
+import com.ericsson.oss.odp.tokenservice.exception.TokenNotFoundException
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGenerator
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGeneratorRegistry
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenAuthData
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenBatchDeleteParams
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenDeleteResult
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
+
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class OdpAuthDataBatchServiceSpec extends Specification {
+
+    def batchService = new OdpAuthDataBatchService()
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def setup() {
+        batchService.meterRegistry = meterRegistry
+        batchService.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> { Runnable runnable -> new Thread(runnable) }
+        }
+        batchService.init()
+    }
+
+    def cleanup() {
+        batchService.destroy()
+    }
+
+    def "Create a batch of ODP tokens with per item outcome"() {
+        given: "A batch of ODP token generate params where the second one has no username"
+        batchService.odpAuthDataService = Stub(OdpAuthDataService) {
+            createOdpAuthData("user1", [ODPTokenGenerateParams.TokenType.SSO], _) >> new ODPTokenAuthData("odptoken-secret-1", [:], [])
+            createOdpAuthData(null, [ODPTokenGenerateParams.TokenType.SSO], _) >> { throw new TokenServiceException("The username param is mandatory.") }
+            createOdpAuthData("user3", [ODPTokenGenerateParams.TokenType.SSO], _) >> new ODPTokenAuthData("odptoken-secret-3", [:], [])
+        }
+
+        when: "The batch of ODP tokens is created"
+        def results = batchService.createOdpAuthDataBatch([params("user1"), params(null), params("user3")])
+
+        then: "The outcome of each ODP token is returned in the order of the params"
+        results*.index == [0, 1, 2]
+        results[0].authData.tokenName == "odptoken-secret-1"
+        results[1].authData == null
+        results[1].error == "The username param is mandatory."
+        results[2].authData.tokenName == "odptoken-secret-3"
+    }
+
+    def "Batch items are created with bounded concurrency"() {
+        given: "An ODP token creation which records the number of creations in progress"
+        def inProgress = new AtomicInteger()
+        def maxInProgress = new AtomicInteger()
+        batchService.odpAuthDataService = Stub(OdpAuthDataService) {
+            createOdpAuthData(_, _, _) >> { args ->
+                maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), { a, b -> Math.max(a, b) })
+                Thread.sleep(10)
+                inProgress.decrementAndGet()
+                new ODPTokenAuthData(args[0], [:], [])
+            }
+        }
+
+        when: "A batch larger than the batch concurrency is created"
+        def results = batchService.createOdpAuthDataBatch((1..100).collect { params("user" + it) })
+
+        then: "All ODP tokens are created without exceeding the batch concurrency"
+        results.size() == 100
+        results.every { it.error == null }
+        maxInProgress.get() <= OdpAuthDataBatchService.BATCH_CONCURRENCY
+    }
+
+    @Timeout(10)
+    def "Batch of multi type ODP tokens is created on a small managed executor"() {
+        given: "An ODP token creation running its token data generators on a managed executor of 2 threads"
+        def managedExecutor = Executors.newFixedThreadPool(2)
+        def tokenIndex = new AtomicInteger()
+        def odpAuthDataService = new OdpAuthDataService()
+        odpAuthDataService.managedExecutorService = Stub(ManagedExecutorService) {
+            execute(_ as Runnable) >> { Runnable runnable -> managedExecutor.execute(runnable) }
+        }
+        odpAuthDataService.tokenDataGeneratorRegistry = new TokenDataGeneratorRegistry()
+        odpAuthDataService.tokenDataGeneratorRegistry.register(Stub(TokenDataGenerator) {
+            getTokenType() >> ODPTokenGenerateParams.TokenType.SSO
+            generate(_ as String) >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): "c3NvdG9rZW4="]
+        })
+        odpAuthDataService.tokenDataGeneratorRegistry.register(Stub(TokenDataGenerator) {
+            getTokenType() >> ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR
+            generate(_ as String) >> {
+                Thread.sleep(5)
+                [(OdpTokenConstants.SSH_PRIV_KEY): "c3NocHJpdmtleQ=="]
+            }
+        })
+        odpAuthDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            createSecret(_, _, _, _) >> { "odptoken-secret-" + tokenIndex.incrementAndGet() }
+        }
+        batchService.odpAuthDataService = odpAuthDataService
+
+        when: "A batch of SSO and SSH key pair ODP tokens larger than the managed executor is created"
+        def results = batchService.createOdpAuthDataBatch((1..32).collect {
+            def params = params("user" + it)
+            params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO, ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR]
+            params
+        })
+
+        then: "All ODP tokens are created without the batch items starving their token data generators"
+        results.size() == 32
+        results.every { it.error == null }
+        tokenIndex.get() == 32
+
+        cleanup:
+        managedExecutor.shutdownNow()
+    }
+
+    def "Empty batch fails to be created"() {
+        when: "An empty batch of ODP tokens is created"
+        batchService.createOdpAuthDataBatch([])
+
+        then: "Failure creating the batch"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "No ODP token generate parameters have been specified."
+    }
+
+    def "Batch larger than the maximum batch size fails to be created"() {
+        when: "A batch larger than the maximum batch size is created"
+        batchService.createOdpAuthDataBatch((0..OdpAuthDataBatchService.BATCH_MAX_SIZE).collect { params("user" + it) })
+
+        then: "Failure creating the batch"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "At most " + OdpAuthDataBatchService.BATCH_MAX_SIZE + " ODP tokens can be created in a batch."
+    }
+
+    ODPTokenGenerateParams params(String username) {
+        def params = new ODPTokenGenerateParams()
+        params.username = username
+        params.tokenTypes = [ODPTokenGenerateParams.TokenType.SSO]
+        params
+    }
+    def "Delete a batch of ODP tokens by names and labels with per token outcome"() {
+        given: "ODP tokens selected by names and labels with different deletion outcomes"
+        batchService.k8SSecretManager = Stub(K8sSecretManager) {
+            getOdpTokenNamesByLabels(["tenant": "a"]) >> ["odptoken-secret-2", "odptoken-secret-3"]
+        }
+        batchService.odpAuthDataService = Stub(OdpAuthDataService) {
+            deleteOdpAuthData("odptoken-secret-1") >> true
+            deleteOdpAuthData("odptoken-secret-2") >> false
+            deleteOdpAuthData("odptoken-secret-3") >> { throw new TokenNotFoundException("odptoken-secret-3") }
+            deleteOdpAuthData("odptoken-secret-4") >> { throw new TokenServiceException("Failure deleting odptoken-secret-4 Secret.") }
+        }
+
+        when: "The batch of ODP tokens is deleted"
+        def results = batchService.deleteOdpAuthDataBatch(deleteParams(["odptoken-secret-1", "odptoken-secret-2", "odptoken-secret-4"], ["tenant": "a"]))
+
+        then: "The outcome of each selected ODP token is returned once"
+        results*.tokenName == ["odptoken-secret-1", "odptoken-secret-2", "odptoken-secret-4", "odptoken-secret-3"]
+        results*.outcome == [ODPTokenDeleteResult.Outcome.DELETED, ODPTokenDeleteResult.Outcome.QUEUED,
+                             ODPTokenDeleteResult.Outcome.FAILED, ODPTokenDeleteResult.Outcome.NOT_FOUND]
+        results[1].error == null
+        results[2].error == "Failure deleting odptoken-secret-4 Secret."
+
+        and: "The batch deletion is recorded"
+        meterRegistry.get("odp.token.batch.delete.duration").timer().count() == 1
+        meterRegistry.get("odp.token.batch.delete.tokens").tag("outcome", "deleted").counter().count() == 1
+        meterRegistry.get("odp.token.batch.delete.tokens").tag("outcome", "notfound").counter().count() == 1
+    }
+
+    def "Delete all the ODP tokens of a user with per token outcome"() {
+        given: "2 ODP tokens of the user with different deletion outcomes"
+        batchService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpTokenNamesByUser("odpusername") >> ["odptoken-secret-1", "odptoken-secret-2"]
+            deleteOdpAuthData("odptoken-secret-1") >> true
+            deleteOdpAuthData("odptoken-secret-2") >> false
+        }
+
+        when: "The ODP tokens of the user are deleted"
+        def results = batchService.deleteOdpAuthDataByUser("odpusername")
+
+        then: "The outcome of each ODP token of the user is returned"
+        results*.tokenName == ["odptoken-secret-1", "odptoken-secret-2"]
+        results*.outcome == [ODPTokenDeleteResult.Outcome.DELETED, ODPTokenDeleteResult.Outcome.QUEUED]
+        meterRegistry.get("odp.token.batch.delete.tokens").tag("outcome", "queued").counter().count() == 1
+    }
+
+    def "Batch deletion is faster than sequential single deletions"() {
+        given: "An ODP token deletion whose SSO logout takes 20 milliseconds"
+        batchService.odpAuthDataService = Stub(OdpAuthDataService) {
+            deleteOdpAuthData(_) >> {
+                Thread.sleep(20)
+                true
+            }
+        }
+        def tokenNames = (1..64).collect { "odptoken-secret-" + it }
+
+        when: "The ODP tokens are deleted one by one and then in a batch"
+        long sequentialStart = System.nanoTime()
+        tokenNames.each { batchService.odpAuthDataService.deleteOdpAuthData(it) }
+        long sequentialNanos = System.nanoTime() - sequentialStart
+        long batchStart = System.nanoTime()
+        def results = batchService.deleteOdpAuthDataBatch(deleteParams(tokenNames, null))
+        long batchNanos = System.nanoTime() - batchStart
+
+        then: "All ODP tokens are deleted in less than half of the sequential time"
+        results.every { it.outcome == ODPTokenDeleteResult.Outcome.DELETED }
+        batchNanos < sequentialNanos / 2
+    }
+
+    def "Batch deletion without token names and labels fails"() {
+        when: "A batch deletion without selection is requested"
+        batchService.deleteOdpAuthDataBatch(deleteParams([], [:]))
+
+        then: "Failure deleting the batch"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "Neither token names nor labels have been specified."
+    }
+
+    def "Batch deletion of more token names than the maximum batch size fails"() {
+        when: "A batch deletion larger than the maximum batch size is requested"
+        batchService.deleteOdpAuthDataBatch(deleteParams((0..OdpAuthDataBatchService.BATCH_MAX_SIZE).collect { "odptoken-secret-" + it }, null))
+
+        then: "Failure deleting the batch"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "At most " + OdpAuthDataBatchService.BATCH_MAX_SIZE + " token names can be deleted in a batch."
+    }
+
+    def "Batch deletion selecting more ODP tokens by labels than the maximum batch size fails"() {
+        given: "Labels selecting the maximum batch size ODP tokens"
+        def labelledTokenNames = (1..OdpAuthDataBatchService.BATCH_MAX_SIZE).collect { "odptoken-secret-" + it }
+        batchService.k8SSecretManager = Stub(K8sSecretManager) {
+            getOdpTokenNamesByLabels(["tenant": "a"]) >> labelledTokenNames
+        }
+        batchService.odpAuthDataService = Mock(OdpAuthDataService)
+
+        when: "A batch deletion of the labelled ODP tokens and of one more token name is requested"
+        batchService.deleteOdpAuthDataBatch(deleteParams(["odptoken-secret-0", "odptoken-secret-1"], ["tenant": "a"]))
+
+        then: "Failure deleting the batch"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "At most " + OdpAuthDataBatchService.BATCH_MAX_SIZE + " ODP tokens can be deleted in a batch, " +
+                (OdpAuthDataBatchService.BATCH_MAX_SIZE + 1) + " are selected by the token names and labels."
+
+        and: "No ODP token is deleted"
+        0 * batchService.odpAuthDataService.deleteOdpAuthData(_)
+    }
+
+    ODPTokenBatchDeleteParams deleteParams(List<String> tokenNames, Map<String, String> labels) {
+        def params = new ODPTokenBatchDeleteParams()
+        params.tokenNames = tokenNames
+        params.labels = labels
+        params
+    }
+}
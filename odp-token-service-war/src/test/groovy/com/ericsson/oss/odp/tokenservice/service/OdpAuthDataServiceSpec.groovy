@@ -16,19 +16,39 @@
 
 package com.ericsson.oss.odp.tokenservice.service
 
+import javax.enterprise.concurrent.ManagedExecutorService
+
+import io.fabric8.kubernetes.api.model.ListMeta
 import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.api.model.PartialObjectMetadata
+import io.fabric8.kubernetes.api.model.PartialObjectMetadataList
 import io.fabric8.kubernetes.api.model.Secret
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException
 import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
+import com.ericsson.oss.odp.tokenservice.generator.SSHKeyPairEcdsaTokenDataGenerator
+import com.ericsson.oss.odp.tokenservice.generator.SSHKeyPairTokenDataGenerator
+import com.ericsson.oss.odp.tokenservice.generator.SSOTokenDataGenerator
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGenerator
+import com.ericsson.oss.odp.tokenservice.generator.TokenDataGeneratorRegistry
 import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager
 import com.ericsson.oss.odp.tokenservice.model.OdpToken
 import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
 import com.ericsson.oss.odp.tokenservice.util.Base64Util
+import com.ericsson.oss.odp.tokenservice.util.HashUtil
 import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
+import com.ericsson.oss.odp.tokenservice.util.TokenTtlUtil
 
+import java.time.Duration
 import java.time.Instant
 import java.time.temporal.ChronoUnit
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 class OdpAuthDataServiceSpec extends Specification {
 
@@ -74,6 +94,185 @@ class OdpAuthDataServiceSpec extends Specification {
         e.getMessage() == "No ODP Token exists with [" + TOKEN_NAME + "] token name."
     }
 
+    def "ODP authentication data is not decoded when its version is known"() {
+        given: "The ODP token Secret has not changed since the known version"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def secret = Mock(Secret) {
+            getMetadata() >> Stub(ObjectMeta) {
+                getAnnotations() >> [(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION): "sso"]
+                getName() >> TOKEN_NAME
+                getResourceVersion() >> "4711"
+            }
+        }
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(TOKEN_NAME) >> secret
+        }
+
+        when: "ODP authentication data is fetched by name with the known version"
+        def versionedAuthData = authDataService.getOdpAuthData(TOKEN_NAME, ["4710", "4711"])
+
+        then: "Only the version is returned, the Secret data is not decoded"
+        0 * secret.getData()
+        with(versionedAuthData) {
+            !modified
+            version == "4711"
+            authData == null
+        }
+    }
+
+    def "ODP authentication data is fetched when its version has changed"() {
+        given: "The ODP token Secret has changed since the known version"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(TOKEN_NAME) >> Stub(Secret) {
+                getMetadata() >> Stub(ObjectMeta) {
+                    getAnnotations() >> [(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION): "sso"]
+                    getName() >> TOKEN_NAME
+                    getResourceVersion() >> "4712"
+                }
+                getData() >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN]
+            }
+        }
+
+        when: "ODP authentication data is fetched by name with an outdated version"
+        def versionedAuthData = authDataService.getOdpAuthData(TOKEN_NAME, ["4711"])
+
+        then: "The current version and the decoded authentication data are returned"
+        with(versionedAuthData) {
+            modified
+            version == "4712"
+            authData.tokenData[(OdpTokenConstants.ODP_TOKEN_DATA_KEY)] == ODPTOKEN
+        }
+    }
+
+    def "Concurrent fetches of the same ODP token are coalesced"() {
+        given: "An ODP token Secret whose fetch is held until released"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def meterRegistry = new SimpleMeterRegistry()
+        authDataService.meterRegistry = meterRegistry
+        authDataService.init()
+        def secret = Stub(Secret) {
+            getMetadata() >> Stub(ObjectMeta) {
+                getAnnotations() >> [(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION): "sso"]
+                getName() >> TOKEN_NAME
+            }
+            getData() >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN]
+        }
+        def release = new CountDownLatch(1)
+        def secretFetches = new AtomicInteger()
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(TOKEN_NAME) >> {
+                secretFetches.incrementAndGet()
+                release.await(5, TimeUnit.SECONDS)
+                secret
+            }
+        }
+        def executor = Executors.newFixedThreadPool(4)
+
+        when: "4 requests fetch the ODP token at once"
+        def pendingAuthData = (1..4).collect { executor.submit({ authDataService.getOdpAuthData(TOKEN_NAME) } as Callable) }
+        while (meterRegistry.get("odp.token.get.fetches").tag("source", "coalesced").functionCounter().count() < 3) {
+            Thread.sleep(1)
+        }
+        release.countDown()
+        def fetchedAuthData = pendingAuthData.collect { it.get(5, TimeUnit.SECONDS) }
+
+        then: "The Secret is fetched and decoded once for all the requests"
+        secretFetches.get() == 1
+        fetchedAuthData.every { it.is(fetchedAuthData[0]) }
+        fetchedAuthData[0].tokenData[(OdpTokenConstants.ODP_TOKEN_DATA_KEY)] == ODPTOKEN
+
+        and: "The coalescing is recorded"
+        meterRegistry.get("odp.token.get.fetches").tag("source", "storage").functionCounter().count() == 1
+        meterRegistry.get("odp.token.get.inflight").gauge().value() == 0
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "Repeated creation with the same idempotency key returns the ODP authentication data already created"() {
+        given: "ODP authentication data created with the idempotency key, and another one created out of the idempotency key window"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def meterRegistry = new SimpleMeterRegistry()
+        authDataService.meterRegistry = meterRegistry
+        def k8SSecretManager = Mock(K8sSecretManager)
+        authDataService.k8SSecretManager = k8SSecretManager
+
+        when: "ODP authentication data is created again with the idempotency key"
+        def tokenAuthData = authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSO], null, "create-1")
+
+        then: "The ODP authentication data created within the idempotency key window is returned without creating any"
+        1 * k8SSecretManager.getSecretsByIdempotencyKey(HashUtil.toLabelValue("odpusername", "create-1")) >> [
+                createIdempotentSecret("odptoken-secret-20240509125212-2", Instant.now().minus(Duration.ofDays(2))),
+                createIdempotentSecret(TOKEN_NAME, Instant.now().minusSeconds(5))]
+        0 * k8SSecretManager.createSecret(_, _, _, _)
+        with(tokenAuthData) {
+            tokenName == TOKEN_NAME
+            tokenData[(OdpTokenConstants.ODP_TOKEN_DATA_KEY)] == ODPTOKEN
+        }
+        meterRegistry.get("odp.token.create.idempotent").tag("outcome", "replayed").counter().count() == 1
+    }
+
+    def "Repeated creation with the same idempotency key creates new ODP authentication data once the created one has expired"() {
+        given: "ODP authentication data created with the idempotency key and already expired"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def meterRegistry = new SimpleMeterRegistry()
+        authDataService.meterRegistry = meterRegistry
+        def expiredSecret = createIdempotentSecret("odptoken-secret-20240509125212-2", Instant.now().minus(Duration.ofMinutes(10)))
+        expiredSecret.metadata.annotations[(OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION)] = Instant.now().minusSeconds(60).toString()
+        def k8SSecretManager = Mock(K8sSecretManager) {
+            getSecretsByIdempotencyKey(HashUtil.toLabelValue("odpusername", "create-1")) >> [expiredSecret]
+        }
+        authDataService.k8SSecretManager = k8SSecretManager
+        authDataService.tokenDataGeneratorRegistry = createGeneratorRegistry(Stub(ClientRequestService))
+        authDataService.managedExecutorService = createExecutorService()
+
+        when: "ODP authentication data is created again with the idempotency key"
+        def tokenAuthData = authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR_ECDSA], null, "create-1")
+
+        then: "New ODP authentication data is created instead of replaying the expired one"
+        1 * k8SSecretManager.createSecret(_, _, _, _) >> TOKEN_NAME
+        tokenAuthData.tokenName == TOKEN_NAME
+        meterRegistry.get("odp.token.create.idempotent").tag("outcome", "created").counter().count() == 1
+    }
+
+    def "First creation with an idempotency key labels the Secret with the hashed idempotency key"() {
+        given: "No ODP authentication data created with the idempotency key"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        authDataService.meterRegistry = new SimpleMeterRegistry()
+        def hashedIdempotencyKey = HashUtil.toLabelValue("odpusername", "create-1")
+        def k8SSecretManager = Mock(K8sSecretManager) {
+            getSecretsByIdempotencyKey(hashedIdempotencyKey) >> []
+        }
+        authDataService.k8SSecretManager = k8SSecretManager
+        authDataService.tokenDataGeneratorRegistry = createGeneratorRegistry(Stub(ClientRequestService))
+        authDataService.managedExecutorService = createExecutorService()
+
+        when: "ODP authentication data is created with the idempotency key"
+        def tokenAuthData = authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR_ECDSA], null, "create-1")
+
+        then: "The Secret is created with the hashed idempotency key label"
+        1 * k8SSecretManager.createSecret(_, _, _, [(OdpTokenConstants.ODP_TOKEN_IDEMPOTENCY_KEY_LABEL): hashedIdempotencyKey,
+                                                    (OdpTokenConstants.ODP_TOKEN_USER_LABEL): HashUtil.toLabelValue("odpusername")]) >> TOKEN_NAME
+        tokenAuthData.tokenName == TOKEN_NAME
+    }
+
+    def "Idempotency key already used for other token types is rejected"() {
+        given: "ODP authentication data created with the idempotency key for the SSO token type"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        authDataService.meterRegistry = new SimpleMeterRegistry()
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretsByIdempotencyKey(_ as String) >> [createIdempotentSecret(TOKEN_NAME, Instant.now())]
+        }
+
+        when: "ODP authentication data is created with the idempotency key for another token type"
+        authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR], null, "create-1")
+
+        then: "The creation is rejected"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "The idempotency key has already been used for other token types."
+    }
+
     def "Create ODP authentication data"() {
         given: "ODP authentication data params"
         OdpAuthDataService authDataService = new OdpAuthDataService()
@@ -83,13 +282,15 @@ class OdpAuthDataServiceSpec extends Specification {
                 ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR
         ]
         authDataService.k8SSecretManager = Stub(K8sSecretManager) {
-            createSecret(generateForTokenTypes, _ as Map) >> TOKEN_NAME
+            createSecret(generateForTokenTypes, _ as Map, _ as Instant,
+                    [(OdpTokenConstants.ODP_TOKEN_USER_LABEL): HashUtil.toLabelValue(generateForUsername)]) >> TOKEN_NAME
         }
-        authDataService.clientRequestService = Stub(ClientRequestService) {
+        authDataService.tokenDataGeneratorRegistry = createGeneratorRegistry(Stub(ClientRequestService) {
             def odpToken = new OdpToken()
             odpToken.setTokenId(ODPTOKEN)
             impersonateUser(generateForUsername) >> odpToken
-        }
+        })
+        authDataService.managedExecutorService = createExecutorService()
 
         when: "ODP authentication data is created"
         def tokenAuthData = authDataService.createOdpAuthData(generateForUsername, generateForTokenTypes)
@@ -104,6 +305,159 @@ class OdpAuthDataServiceSpec extends Specification {
         }
     }
 
+    def "Token data generators of the token types run concurrently"() {
+        given: "ODP authentication data params"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def generateForUsername = "odpusername"
+        def generateForTokenTypes = [
+                ODPTokenGenerateParams.TokenType.SSO,
+                ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR
+        ]
+        def generatorThreads = Collections.synchronizedSet(new HashSet<Thread>())
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            createSecret(generateForTokenTypes, _ as Map, _ as Instant, _ as Map) >> TOKEN_NAME
+        }
+        authDataService.tokenDataGeneratorRegistry = new TokenDataGeneratorRegistry()
+        generateForTokenTypes.each { tokenType ->
+            authDataService.tokenDataGeneratorRegistry.register(Stub(TokenDataGenerator) {
+                getTokenType() >> tokenType
+                generate(generateForUsername) >> {
+                    generatorThreads << Thread.currentThread()
+                    [(tokenType.toString()): Base64Util.encode(tokenType.toString())]
+                }
+            })
+        }
+        def executor = Executors.newSingleThreadExecutor()
+        authDataService.managedExecutorService = Stub(ManagedExecutorService) {
+            execute(_ as Runnable) >> { Runnable runnable -> executor.execute(runnable) }
+        }
+
+        when: "ODP authentication data is created"
+        def tokenAuthData = authDataService.createOdpAuthData(generateForUsername, generateForTokenTypes)
+
+        then: "The token data of every token type is generated on a separate thread"
+        generatorThreads.size() == 2
+        tokenAuthData.tokenData == [sso: "sso", sshkeypair: "sshkeypair"]
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "Failure generating the token data of one token type fails to create ODP authentication data"() {
+        given: "ODP authentication data params for which the user impersonation fails"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def k8SSecretManager = Mock(K8sSecretManager)
+        authDataService.k8SSecretManager = k8SSecretManager
+        authDataService.tokenDataGeneratorRegistry = createGeneratorRegistry(Stub(ClientRequestService) {
+            impersonateUser(_ as String) >> { throw new TokenServiceException("Failure impersonating the user.") }
+        })
+        authDataService.managedExecutorService = createExecutorService()
+
+        when: "ODP authentication data is created"
+        authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR, ODPTokenGenerateParams.TokenType.SSO])
+
+        then: "Failure creating the ODP authentication data and no Secret is created"
+        def e = thrown(TokenServiceException)
+        e.getMessage() == "Failure impersonating the user."
+        0 * k8SSecretManager.createSecret(_, _, _, _)
+    }
+
+    def "SSO token already generated is logged out when another token type fails"() {
+        given: "ODP authentication data params for which the SSO token is generated but the SSH key pair generation fails"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def k8SSecretManager = Mock(K8sSecretManager)
+        authDataService.k8SSecretManager = k8SSecretManager
+        def clientRequestService = Mock(ClientRequestService)
+        authDataService.clientRequestService = clientRequestService
+        authDataService.tokenDataGeneratorRegistry = new TokenDataGeneratorRegistry()
+        authDataService.tokenDataGeneratorRegistry.register(Stub(TokenDataGenerator) {
+            getTokenType() >> ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR
+            generate(_ as String) >> { throw new TokenServiceException("Failure generating the SSH key pair.") }
+        })
+        authDataService.tokenDataGeneratorRegistry.register(Stub(TokenDataGenerator) {
+            getTokenType() >> ODPTokenGenerateParams.TokenType.SSO
+            generate(_ as String) >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN]
+        })
+        authDataService.managedExecutorService = createExecutorService()
+
+        when: "ODP authentication data is created"
+        authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR, ODPTokenGenerateParams.TokenType.SSO])
+
+        then: "Failure creating the ODP authentication data, the SSO token is logged out and no Secret is created"
+        def e = thrown(TokenServiceException)
+        e.getMessage() == "Failure generating the SSH key pair."
+        1 * clientRequestService.logoutUser(ODPTOKEN) >> true
+        0 * k8SSecretManager.createSecret(_, _, _, _)
+    }
+
+    def "Create ODP authentication data expiring after the requested TTL"() {
+        given: "ODP authentication data params with a TTL"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def k8SSecretManager = Mock(K8sSecretManager)
+        authDataService.k8SSecretManager = k8SSecretManager
+        authDataService.tokenDataGeneratorRegistry = createGeneratorRegistry(Stub(ClientRequestService))
+        authDataService.managedExecutorService = createExecutorService()
+        def createdAt = Instant.now()
+
+        when: "ODP authentication data is created with the TTL"
+        authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR], ttlSeconds)
+
+        then: "The Secret is created with the expiry time of the capped TTL"
+        1 * k8SSecretManager.createSecret(_, _, _ as Instant, _) >> { tokenTypes, tokenData, Instant expiresAt, labels ->
+            def expectedExpiresAt = createdAt.plus(expectedTtl)
+            assert !expiresAt.isBefore(expectedExpiresAt)
+            assert expiresAt.isBefore(expectedExpiresAt.plusSeconds(60))
+            TOKEN_NAME
+        }
+
+        where:
+        ttlSeconds | expectedTtl
+        600L       | Duration.ofMinutes(10)
+        null       | TokenTtlUtil.DEFAULT_TOKEN_TTL
+        10000000L  | TokenTtlUtil.MAX_TOKEN_TTL
+    }
+
+    def "Non positive TTL fails to create ODP authentication data"() {
+        given: "ODP authentication data params with a zero TTL"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+
+        when: "ODP authentication data is created with the zero TTL"
+        authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSO], 0L)
+
+        then: "Failure creating the ODP authentication data"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "The ttl param must be a positive number of seconds."
+    }
+
+    def "Create ODP authentication data with an ECDSA SSH key pair"() {
+        given: "ODP authentication data params for an ECDSA SSH key pair"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def k8SSecretManager = Mock(K8sSecretManager)
+        authDataService.k8SSecretManager = k8SSecretManager
+        authDataService.tokenDataGeneratorRegistry = createGeneratorRegistry(Stub(ClientRequestService))
+        authDataService.managedExecutorService = createExecutorService()
+
+        when: "ODP authentication data is created"
+        def tokenAuthData = authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR_ECDSA])
+
+        then: "The Secret is created with the ECDSA SSH key pair"
+        1 * k8SSecretManager.createSecret(_, { it.keySet() == [OdpTokenConstants.SSH_PRIV_KEY, OdpTokenConstants.SSH_PUB_KEY] as Set }, _, _) >> TOKEN_NAME
+        tokenAuthData.tokenData[OdpTokenConstants.SSH_PUB_KEY].startsWith("ecdsa-sha2-nistp256 ")
+    }
+
+    def "Both SSH key pair token types fail to create ODP authentication data"() {
+        given: "ODP authentication data params with both the RSA and the ECDSA SSH key pair token types"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+
+        when: "ODP authentication data is created"
+        authDataService.createOdpAuthData("odpusername", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR,
+                                                          ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR_ECDSA])
+
+        then: "Failure creating the ODP authentication data"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "Only one SSH key pair token type can be specified."
+    }
+
     def "Null username fails to create ODP authentication data"() {
         given: "ODP authentication data params with null username"
         OdpAuthDataService authDataService = new OdpAuthDataService()
@@ -141,23 +495,25 @@ class OdpAuthDataServiceSpec extends Specification {
     }
 
     def "Delete ODP authentication data by token name with ODP token logout"() {
-        given: "ODP authentication data for a given name exists"
+        given: "ODP authentication data holding an ODP token for a given name exists"
         OdpAuthDataService authDataService = new OdpAuthDataService()
+        def secret = Stub(Secret) {
+            getData() >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN]
+        }
         def k8SSecretManager = Mock(K8sSecretManager) {
-            getSecretByName(TOKEN_NAME) >> Stub(Secret) {
-                getData() >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN]
-            }
+            getSecretByName(TOKEN_NAME) >> secret
         }
         authDataService.k8SSecretManager = k8SSecretManager
-        authDataService.clientRequestService = Stub(ClientRequestService) {
-            logoutUser(ODPTOKEN) >> true
-        }
+        def tokenLogoutQueue = Mock(TokenLogoutQueue)
+        authDataService.tokenLogoutQueue = tokenLogoutQueue
 
         when: "ODP authentication data is deleted by name"
-        authDataService.deleteOdpAuthData(TOKEN_NAME)
+        def deleted = authDataService.deleteOdpAuthData(TOKEN_NAME)
 
-        then: "The Secret is deleted by name"
-        1 * k8SSecretManager.deleteSecretByName(TOKEN_NAME)
+        then: "The ODP token logout is queued and the Secret is kept until the ODP token is logged out"
+        1 * tokenLogoutQueue.enqueue(secret)
+        0 * k8SSecretManager.deleteSecretByName(TOKEN_NAME)
+        !deleted
     }
 
     def "Delete ODP authentication data by token name without ODP token logout"() {
@@ -171,30 +527,33 @@ class OdpAuthDataServiceSpec extends Specification {
         authDataService.k8SSecretManager = k8SSecretManager
 
         when: "ODP authentication data is deleted by name"
-        authDataService.deleteOdpAuthData(TOKEN_NAME)
+        def deleted = authDataService.deleteOdpAuthData(TOKEN_NAME)
 
         then: "The Secret is deleted by name"
         1 * k8SSecretManager.deleteSecretByName(TOKEN_NAME)
+        deleted
     }
 
-    def "No authentication data deletion due to unsuccessful logout"() {
-        given: "ODP authentication data for the given name exists"
+    def "ODP authentication data pending logout is not served"() {
+        given: "ODP authentication data for the given name exists, pending logout"
         OdpAuthDataService authDataService = new OdpAuthDataService()
-        def k8SSecretManager = Mock(K8sSecretManager) {
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
             getSecretByName(TOKEN_NAME) >> Stub(Secret) {
+                getMetadata() >> Stub(ObjectMeta) {
+                    getAnnotations() >> [(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION)             : "sso",
+                                         (OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION): Instant.now().toString()]
+                    getName() >> TOKEN_NAME
+                }
                 getData() >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN]
             }
         }
-        authDataService.k8SSecretManager = k8SSecretManager
-        authDataService.clientRequestService = Stub(ClientRequestService) {
-            logoutUser(ODPTOKEN) >> false
-        }
 
-        when: "ODP authentication data is deleted by name"
-        authDataService.deleteOdpAuthData(TOKEN_NAME)
+        when: "ODP authentication data is fetched by name"
+        authDataService.getOdpAuthData(TOKEN_NAME)
 
-        then: "The Secret is not deleted due to unsuccessful logout"
-        0 * k8SSecretManager.deleteSecretByName(TOKEN_NAME)
+        then: "The ODP token is not found"
+        def e = thrown(TokenServiceException)
+        e.getMessage() == "No ODP Token exists with [" + TOKEN_NAME + "] token name."
     }
 
     def "No ODP authentication data found for deletion"() {
@@ -210,40 +569,139 @@ class OdpAuthDataServiceSpec extends Specification {
         e.getMessage() == "No ODP Token exists with [" + TOKEN_NAME + "] token name."
     }
 
-    def "Cleanup ODP authentication data having TTL expired"() {
-        given: "3 odp-token-service labeled Secrets exist; 2 have the TTL expired, but 1 fails to be deleted"
+    def "Get the ODP tokens of a user without their authentication data"() {
+        given: "2 ODP tokens created for the user, 1 of them pending logout"
         OdpAuthDataService authDataService = new OdpAuthDataService()
-        def k8SSecretManager = Mock(K8sSecretManager) {
-            getSecretByName(_ as String) >> Stub(Secret) >> null
-            getOdpTokenServiceLabeledSecrets() >> createLabeledSecrets()
+        def createdAt = Instant.now()
+        def pendingLogoutSecret = createIdempotentSecret("odptoken-secret-2", createdAt)
+        pendingLogoutSecret.metadata.annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION] = createdAt.toString()
+        def secret = createIdempotentSecret(TOKEN_NAME, createdAt)
+        secret.metadata.annotations[OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION] = createdAt.plusSeconds(60).toString()
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretsByUser(HashUtil.toLabelValue("odpusername")) >> [secret, pendingLogoutSecret]
         }
-        authDataService.k8SSecretManager = k8SSecretManager
-        authDataService.clientRequestService = Stub(ClientRequestService) {
-            logoutUser(_ as String) >> true
+
+        when: "The ODP tokens of the user are fetched"
+        def tokenInfos = authDataService.getOdpTokensByUser("odpusername")
+
+        then: "Only the metadata of the ODP token not pending logout is returned"
+        tokenInfos.size() == 1
+        with(tokenInfos[0]) {
+            tokenName == TOKEN_NAME
+            tokenTypes == [ODPTokenGenerateParams.TokenType.SSO]
+            createdAt == createdAt.toString()
+            expiresAt == createdAt.plusSeconds(60).toString()
+        }
+    }
+
+    def "Get the ODP tokens of a user fails without a user"() {
+        given: "ODP authentication data service"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        authDataService.k8SSecretManager = Mock(K8sSecretManager)
+
+        when: "The ODP tokens are fetched without a user"
+        authDataService.getOdpTokensByUser(username)
+
+        then: "The fetch is rejected"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == "The user param is mandatory."
+        0 * authDataService.k8SSecretManager.getSecretsByUser(_)
+
+        where:
+        username << [null, ""]
+    }
+
+    def "Cleanup ODP authentication data having TTL expired"() {
+        given: "3 odp-token-service labeled Secrets exist in 2 pages; 2 have the TTL expired, but 1 fails to be deleted"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def secretMetadata = createLabeledSecretMetadata()
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getOdpTokenMetadataPage(null) >> createMetadataPage(secretMetadata.subList(0, 2), "second-page")
+            getOdpTokenMetadataPage("second-page") >> createMetadataPage(secretMetadata.subList(2, 3), null)
         }
+        def tokenCleanupEngine = Mock(TokenCleanupEngine)
+        authDataService.tokenCleanupEngine = tokenCleanupEngine
         final Instant cleanupTargetTimestamp = Instant.now().minus(24, ChronoUnit.HOURS);
 
         when: "TTL expired ODP authentication data gets cleaned up "
         def cleanupCount = authDataService.cleanupExpiredTokens(cleanupTargetTimestamp)
 
-        then: "1 Secret out of 2 with the expired TTL is deleted"
-        1 * k8SSecretManager.deleteSecretByName(_ as String)
+        then: "The 2 Secrets with the expired TTL are cleaned up, 1 of them successfully"
+        1 * tokenCleanupEngine.cleanup(["odptoken-secret-20240509125212-2", "odptoken-secret-20240509125212-3"]) >> 1
         cleanupCount == 1
     }
 
-    List<Secret> createLabeledSecrets() {
+    def "Cleanup ODP authentication data having TTL expired leaves the ODP tokens pending logout"() {
+        given: "2 odp-token-service labeled Secrets having the TTL expired, 1 of them pending logout"
+        OdpAuthDataService authDataService = new OdpAuthDataService()
+        def secretMetadata = createLabeledSecretMetadata()
+        secretMetadata[2].metadata.annotations = [(OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION): "2024-05-10T12:00:00Z"]
+        authDataService.k8SSecretManager = Stub(K8sSecretManager) {
+            getOdpTokenMetadataPage(null) >> createMetadataPage(secretMetadata, null)
+        }
+        def tokenCleanupEngine = Mock(TokenCleanupEngine)
+        authDataService.tokenCleanupEngine = tokenCleanupEngine
+
+        when: "TTL expired ODP authentication data gets cleaned up"
+        authDataService.cleanupExpiredTokens(Instant.now().minus(24, ChronoUnit.HOURS))
+
+        then: "Only the Secret with the expired TTL which is not pending logout is cleaned up"
+        1 * tokenCleanupEngine.cleanup(["odptoken-secret-20240509125212-2"]) >> 1
+    }
+
+    TokenDataGeneratorRegistry createGeneratorRegistry(ClientRequestService clientRequestService) {
+        def registry = new TokenDataGeneratorRegistry()
+        def ssoGenerator = new SSOTokenDataGenerator()
+        ssoGenerator.clientRequestService = clientRequestService
+        def sshKeyPairGenerator = new SSHKeyPairTokenDataGenerator()
+        sshKeyPairGenerator.sshKeyPairPool = new SSHKeyPairPool()
+        sshKeyPairGenerator.sshKeyPairPool.meterRegistry = new SimpleMeterRegistry()
+        def sshKeyPairEcdsaGenerator = new SSHKeyPairEcdsaTokenDataGenerator()
+        sshKeyPairEcdsaGenerator.meterRegistry = new SimpleMeterRegistry()
+        registry.register(ssoGenerator)
+        registry.register(sshKeyPairGenerator)
+        registry.register(sshKeyPairEcdsaGenerator)
+        registry
+    }
+
+    Secret createIdempotentSecret(String tokenName, Instant creationTimestamp) {
+        Secret secret = new Secret()
+        ObjectMeta objectMeta = new ObjectMeta()
+        objectMeta.setName(tokenName)
+        objectMeta.setCreationTimestamp(creationTimestamp.toString())
+        objectMeta.setAnnotations([(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION): "sso"])
+        secret.setMetadata(objectMeta)
+        secret.setData([(OdpTokenConstants.ODP_TOKEN_DATA_KEY): BASE64_ODPTOKEN])
+        secret
+    }
+
+    ManagedExecutorService createExecutorService() {
+        Stub(ManagedExecutorService) {
+            execute(_ as Runnable) >> { Runnable runnable -> runnable.run() }
+        }
+    }
+
+    List<PartialObjectMetadata> createLabeledSecretMetadata() {
         def labels = [(OdpTokenConstants.ODP_TOKEN_CREATED_BY_LABEL): OdpTokenConstants.ODP_TOKEN_CREATED_BY_SERVICE]
-        def secretList = []
+        def metadataList = []
         1.upto(3, {
-            Secret secret = new Secret()
+            PartialObjectMetadata secretMetadata = new PartialObjectMetadata()
             ObjectMeta objectMeta = new ObjectMeta();
             objectMeta.setName("odptoken-secret-20240509125212-" + it)
             objectMeta.setLabels(labels)
             Instant tokenCreationTimestamp = Instant.now().minus((int) it * 12, ChronoUnit.HOURS)
             objectMeta.creationTimestamp = tokenCreationTimestamp.toString()
-            secret.setMetadata(objectMeta)
-            secretList << secret
+            secretMetadata.setMetadata(objectMeta)
+            metadataList << secretMetadata
         })
-        secretList
+        metadataList
+    }
+
+    PartialObjectMetadataList createMetadataPage(List<PartialObjectMetadata> items, String continueToken) {
+        def metadataPage = new PartialObjectMetadataList()
+        metadataPage.items = items
+        metadataPage.metadata = new ListMeta()
+        metadataPage.metadata.setContinue(continueToken)
+        metadataPage
     }
 }
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.ws.rs.core.StreamingOutput
+
+import groovy.json.JsonSlurper
+import io.fabric8.kubernetes.api.model.ListMeta
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.api.model.PartialObjectMetadata
+import io.fabric8.kubernetes.api.model.PartialObjectMetadataList
+import io.fabric8.kubernetes.api.model.Secret
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import com.ericsson.oss.odp.tokenservice.exception.InvalidTokenParamsException
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenGenerateParams
+import com.ericsson.oss.odp.tokenservice.rest.model.ODPTokenInfo
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
+
+import java.time.Instant
+
+class OdpTokenListServiceSpec extends Specification {
+
+    def now = Instant.now()
+    def meterRegistry = new SimpleMeterRegistry()
+    def listService = new OdpTokenListService()
+
+    def setup() {
+        listService.meterRegistry = meterRegistry
+    }
+
+    def "List all the cached ODP tokens matching the filters without their token data"() {
+        given: "The Secret cache holds ODP tokens of different types and ages, 1 of them pending logout"
+        def pendingLogoutMetadata = createMetadata("odptoken-secret-4", "sso", now.minusSeconds(7200))
+        pendingLogoutMetadata.annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION] = now.toString()
+        listService.k8SSecretManager = Stub(K8sSecretManager) {
+            getCachedOdpTokenSecrets() >> [
+                    new Secret(metadata: createMetadata("odptoken-secret-1", "sso,sshkeypair", now.minusSeconds(7200)),
+                            data: [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): "c2VjcmV0"]),
+                    new Secret(metadata: createMetadata("odptoken-secret-2", "sshkeypair", now.minusSeconds(7200))),
+                    new Secret(metadata: createMetadata("odptoken-secret-3", "sso", now.minusSeconds(10))),
+                    new Secret(metadata: pendingLogoutMetadata)
+            ]
+        }
+
+        when: "The SSO ODP tokens older than an hour are listed"
+        def page = write(listService.listOdpTokens(null, ["sso"], 3600L, null, null, null))
+
+        then: "Only the metadata of the matching ODP token is listed, without a cursor"
+        page.tokens*.tokenname == ["odptoken-secret-1"]
+        page.tokens[0].tokentypes == ["sso", "sshkeypair"]
+        page.tokens[0].createdat == now.minusSeconds(7200).toString()
+        page.tokens[0].tokendata == null
+        page.cursor == null
+        meterRegistry.get("odp.token.list.requests").tag("source", "cache").counter().count() == 1
+    }
+
+    def "List a page of the ODP tokens from the API server with the cursor of the next page"() {
+        given: "The API server returns a page of the Secret metadata with a continue token"
+        def k8SSecretManager = Mock(K8sSecretManager)
+        listService.k8SSecretManager = k8SSecretManager
+
+        when: "A page of at most 2 ODP tokens is listed from the cursor on"
+        def page = write(listService.listOdpTokens(null, null, null, 3600L, "previous-page", 2))
+
+        then: "The page of the requested size is read from the cursor on"
+        1 * k8SSecretManager.getOdpTokenMetadataPage("previous-page", 2) >> createMetadataPage(
+                [createMetadata("odptoken-secret-1", "sso", now.minusSeconds(7200)),
+                 createMetadata("odptoken-secret-2", "sso", now.minusSeconds(10))], "next-page")
+        0 * k8SSecretManager.getCachedOdpTokenSecrets()
+
+        and: "The ODP tokens of the page younger than an hour are listed with the cursor of the next page"
+        page.tokens*.tokenname == ["odptoken-secret-2"]
+        page.cursor == "next-page"
+    }
+
+    def "List all the ODP tokens page by page from the API server before the Secret cache has synced"() {
+        given: "The API server returns the Secret metadata in 2 pages"
+        listService.k8SSecretManager = Stub(K8sSecretManager) {
+            getCachedOdpTokenSecrets() >> null
+            getOdpTokenMetadataPage(null) >> createMetadataPage([createMetadata("odptoken-secret-1", "sso", now)], "second-page")
+            getOdpTokenMetadataPage("second-page") >> createMetadataPage([createMetadata("odptoken-secret-2", "sso", now)], null)
+        }
+
+        when: "All the ODP tokens are listed"
+        def page = write(listService.listOdpTokens(null, null, null, null, null, null))
+
+        then: "The ODP tokens of both pages are listed, without a cursor"
+        page.tokens*.tokenname == ["odptoken-secret-1", "odptoken-secret-2"]
+        page.cursor == null
+        meterRegistry.get("odp.token.list.requests").tag("source", "api").counter().count() == 1
+    }
+
+    def "Failure reading a following page aborts the ODP token stream"() {
+        given: "The API server fails to return the second page of the Secret metadata"
+        listService.k8SSecretManager = Stub(K8sSecretManager) {
+            getCachedOdpTokenSecrets() >> null
+            getOdpTokenMetadataPage(null) >> createMetadataPage([createMetadata("odptoken-secret-1", "sso", now)], "second-page")
+            getOdpTokenMetadataPage("second-page") >> { throw new TokenServiceException("Failure getting odp-token-service labeled Secrets.") }
+        }
+        def output = new ByteArrayOutputStream()
+
+        when: "All the ODP tokens are listed"
+        listService.listOdpTokens(null, null, null, null, null, null).write(output)
+
+        then: "The stream fails and the ODP token array is left unclosed"
+        thrown(IOException)
+        !output.toString("UTF-8").contains("]")
+    }
+
+    def "List the ODP tokens of a user"() {
+        given: "2 ODP tokens of the user"
+        listService.odpAuthDataService = Stub(OdpAuthDataService) {
+            getOdpTokensByUser("odpusername") >> [
+                    new ODPTokenInfo("odptoken-secret-1", [ODPTokenGenerateParams.TokenType.SSO], now.toString(), null),
+                    new ODPTokenInfo("odptoken-secret-2", [ODPTokenGenerateParams.TokenType.SSH_KEY_PAIR], now.toString(), null)
+            ]
+        }
+
+        when: "The SSH key pair ODP tokens of the user are listed"
+        def page = write(listService.listOdpTokens("odpusername", ["sshkeypair"], null, null, null, null))
+
+        then: "The matching ODP token of the user is listed"
+        page.tokens*.tokenname == ["odptoken-secret-2"]
+        page.cursor == null
+    }
+
+    def "Invalid ODP token listing params are rejected"() {
+        given: "ODP token list service"
+        listService.k8SSecretManager = Mock(K8sSecretManager)
+
+        when: "The ODP tokens are listed with invalid params"
+        listService.listOdpTokens(username, tokenTypes, minAgeSeconds, null, cursor, limit)
+
+        then: "The listing is rejected before reading any Token storage"
+        def e = thrown(InvalidTokenParamsException)
+        e.getMessage() == expectedMessage
+        0 * listService.k8SSecretManager._
+
+        where:
+        username      | tokenTypes | minAgeSeconds | cursor | limit || expectedMessage
+        null          | ["bad"]    | null          | null   | null  || "Unexpected token name 'bad'"
+        null          | null       | -1L           | null   | null  || "The minage and maxage params must not be negative numbers of seconds."
+        null          | null       | null          | null   | 0     || "The limit param must be between 1 and " + OdpTokenListService.LIST_MAX_LIMIT + "."
+        "odpusername" | null       | null          | "page" | null  || "The cursor and limit params cannot be combined with the user param."
+    }
+
+    def write(StreamingOutput streamingOutput) {
+        def output = new ByteArrayOutputStream()
+        streamingOutput.write(output)
+        new JsonSlurper().parseText(output.toString("UTF-8"))
+    }
+
+    ObjectMeta createMetadata(String tokenName, String tokenTypes, Instant createdAt) {
+        def metadata = new ObjectMeta()
+        metadata.name = tokenName
+        metadata.creationTimestamp = createdAt.toString()
+        metadata.annotations = [(OdpTokenConstants.ODP_TOKEN_TYPES_ANNOTATION): tokenTypes]
+        metadata
+    }
+
+    PartialObjectMetadataList createMetadataPage(List<ObjectMeta> metadata, String continueToken) {
+        def metadataPage = new PartialObjectMetadataList()
+        metadataPage.items = metadata.collect { new PartialObjectMetadata(metadata: it) }
+        metadataPage.metadata = new ListMeta()
+        metadataPage.metadata.setContinue(continueToken)
+        metadataPage
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.enterprise.concurrent.ManagedThreadFactory
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import com.ericsson.oss.odp.tokenservice.util.Base64Util
+
+class SSHKeyPairPoolSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def sshKeyPairPool = new SSHKeyPairPool()
+
+    def setup() {
+        sshKeyPairPool.meterRegistry = meterRegistry
+        sshKeyPairPool.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> { Runnable runnable -> new Thread(runnable) }
+        }
+    }
+
+    def cleanup() {
+        sshKeyPairPool.destroy()
+    }
+
+    def "Key pair is generated on the request thread when the pool is empty"() {
+        given: "An RSA key pair pool which has not been refilled"
+        def emptyPool = new SSHKeyPairPool()
+        emptyPool.meterRegistry = meterRegistry
+
+        when: "A key pair is taken from the pool"
+        def keyPair = emptyPool.takeKeyPair()
+
+        then: "A valid SSH key pair is generated"
+        Base64Util.decode(keyPair.getPublicKey()).startsWith("ssh-rsa")
+        emptyPool.getPoolSize() == 0
+        meterRegistry.get("odp.token.ssh.key.generation").tags("algorithm", "rsa", "trigger", "request").timer().count() == 1
+    }
+
+    def "Key pair is taken from the pool refilled in the background"() {
+        given: "An RSA key pair pool with the generator threads started"
+        sshKeyPairPool.init()
+
+        when: "The pool has been refilled by the generator threads"
+        new PollingConditions(timeout: 30).eventually {
+            assert sshKeyPairPool.getPoolSize() > 0
+        }
+        def keyPair = sshKeyPairPool.takeKeyPair()
+
+        then: "A valid pre-generated SSH key pair is taken from the pool"
+        Base64Util.decode(keyPair.getPublicKey()).startsWith("ssh-rsa")
+        meterRegistry.get("odp.token.ssh.key.pool.requests").tag("result", "hit").functionCounter().count() == 1
+        meterRegistry.get("odp.token.ssh.key.pool.generated").functionCounter().count() > 0
+    }
+
+    def "Pool is refilled up to the high watermark"() {
+        given: "An RSA key pair pool with the generator threads started"
+        sshKeyPairPool.init()
+
+        expect: "The pool is refilled up to its high watermark"
+        new PollingConditions(timeout: 60).eventually {
+            assert sshKeyPairPool.getPoolSize() == SSHKeyPairPool.POOL_HIGH_WATERMARK
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.enterprise.concurrent.ManagedThreadFactory
+import javax.ws.rs.core.Response
+
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.api.model.Secret
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import com.ericsson.oss.odp.tokenservice.exception.SsoUnavailableException
+import com.ericsson.oss.odp.tokenservice.exception.TokenServiceException
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager
+import com.ericsson.oss.odp.tokenservice.util.Base64Util
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TokenCleanupEngineSpec extends Specification {
+
+    def TOKEN_ID = "AQIC5wM2LY4SfcxTestTokenId"
+    def meterRegistry = new SimpleMeterRegistry()
+    def tokenCleanupEngine = new TokenCleanupEngine()
+
+    def setup() {
+        tokenCleanupEngine.meterRegistry = meterRegistry
+        tokenCleanupEngine.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> { Runnable runnable -> new Thread(runnable) }
+        }
+        tokenCleanupEngine.init()
+    }
+
+    def cleanup() {
+        tokenCleanupEngine.destroy()
+    }
+
+    def "Expired ODP tokens are logged out and deleted"() {
+        given: "3 expired ODP tokens, the logout of the second one fails"
+        def k8SSecretManager = Mock(K8sSecretManager) {
+            getSecretByName(_ as String) >> { String tokenName -> createSecret(tokenName) }
+        }
+        tokenCleanupEngine.k8SSecretManager = k8SSecretManager
+        tokenCleanupEngine.clientRequestService = Stub(ClientRequestService) {
+            requestLogout(TOKEN_ID + "-1") >> Response.Status.FOUND.statusCode
+            requestLogout(TOKEN_ID + "-2") >> Response.Status.BAD_REQUEST.statusCode
+            requestLogout(TOKEN_ID + "-3") >> Response.Status.FOUND.statusCode
+        }
+
+        when: "The expired ODP tokens are cleaned up"
+        def cleanupCount = tokenCleanupEngine.cleanup(["token-1", "token-2", "token-3"])
+
+        then: "The ODP tokens logged out are deleted"
+        1 * k8SSecretManager.deleteSecretByName("token-1")
+        1 * k8SSecretManager.deleteSecretByName("token-3")
+        0 * k8SSecretManager.deleteSecretByName("token-2")
+        cleanupCount == 2
+
+        and: "The cleanup throughput, backlog and phase latencies are recorded"
+        meterRegistry.get("odp.token.cleanup.tokens").tag("outcome", "deleted").counter().count() == 2
+        meterRegistry.get("odp.token.cleanup.tokens").tag("outcome", "failed").counter().count() == 1
+        meterRegistry.get("odp.token.cleanup.backlog").gauge().value() == 0
+        meterRegistry.get("odp.token.cleanup.duration").timer().count() == 1
+        meterRegistry.get("odp.token.cleanup.throughput").summary().count() == 1
+        meterRegistry.get("odp.token.cleanup.throughput").summary().totalAmount() > 0
+        meterRegistry.get("odp.token.cleanup.phase.duration").tag("phase", "get").timer().count() == 3
+        meterRegistry.get("odp.token.cleanup.phase.duration").tag("phase", "logout").timer().count() == 3
+        meterRegistry.get("odp.token.cleanup.phase.duration").tag("phase", "delete").timer().count() == 2
+    }
+
+    def "Cached ODP tokens are cleaned up without fetching them from the API server"() {
+        given: "An expired ODP token served by the informer cache"
+        def k8SSecretManager = Mock(K8sSecretManager)
+        def secret = createSecret("token-1")
+        tokenCleanupEngine.k8SSecretManager = k8SSecretManager
+        tokenCleanupEngine.clientRequestService = Stub(ClientRequestService) {
+            requestLogout(TOKEN_ID + "-1") >> Response.Status.FOUND.statusCode
+        }
+
+        when: "The expired ODP token is cleaned up"
+        def cleanupCount = tokenCleanupEngine.cleanup(["token-1"])
+
+        then: "The cached Secret is logged out and deleted without a rate limited fetch"
+        1 * k8SSecretManager.getCachedSecretByName("token-1") >> secret
+        0 * k8SSecretManager.getSecretByName(_)
+        1 * k8SSecretManager.deleteSecretByName("token-1")
+        cleanupCount == 1
+        meterRegistry.find("odp.token.cleanup.phase.duration").tag("phase", "get").timer() == null
+    }
+
+    def "ODP tokens kept by the cleanup are reported"() {
+        given: "3 ODP tokens, the logout of the second one fails and the third one no longer exists"
+        tokenCleanupEngine.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName("token-1") >> createSecret("token-1")
+            getSecretByName("token-2") >> createSecret("token-2")
+        }
+        tokenCleanupEngine.clientRequestService = Stub(ClientRequestService) {
+            requestLogout(TOKEN_ID + "-1") >> Response.Status.FOUND.statusCode
+            requestLogout(TOKEN_ID + "-2") >> Response.Status.BAD_REQUEST.statusCode
+        }
+
+        when: "The ODP tokens are cleaned up"
+        def keptTokenNames = tokenCleanupEngine.cleanupAndGetKept(["token-1", "token-2", "token-3"])
+
+        then: "Only the ODP token failing to be logged out is reported as kept"
+        keptTokenNames == ["token-2"]
+
+        and: "The ODP token no longer existing is not recorded as failed"
+        meterRegistry.get("odp.token.cleanup.tokens").tag("outcome", "failed").counter().count() == 1
+        meterRegistry.get("odp.token.cleanup.tokens").tag("outcome", "notfound").counter().count() == 1
+    }
+
+    def "Cleanup backlog does not count the cleanups cancelled before they have started"() {
+        given: "A Secret fetch which blocks the cleanup workers"
+        def fetchesReleased = new CountDownLatch(1)
+        tokenCleanupEngine.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(_ as String) >> {
+                fetchesReleased.await(5, TimeUnit.SECONDS)
+                null
+            }
+        }
+        def tokenNames = (1..TokenCleanupEngine.CLEANUP_WORKERS + 5).collect { "token-" + it }
+        def keptTokenNames = null
+        def cleanupThread = new Thread({
+            keptTokenNames = tokenCleanupEngine.cleanupAndGetKept(tokenNames)
+        })
+
+        when: "More expired ODP tokens than cleanup workers are cleaned up, and the cleanup is interrupted"
+        cleanupThread.start()
+        awaitBacklog(5)
+        cleanupThread.interrupt()
+        cleanupThread.join(5000)
+        fetchesReleased.countDown()
+
+        then: "The cleanups which have not started are no longer in the backlog"
+        awaitBacklog(0)
+
+        and: "The interrupted cleanup returns without waiting for the cancelled cleanups, keeping all the ODP tokens"
+        !cleanupThread.isAlive()
+        keptTokenNames == tokenNames
+    }
+
+    def "Expired ODP tokens pending logout are left to the logout queue"() {
+        given: "An expired ODP token pending logout"
+        def secret = new Secret(metadata: new ObjectMeta(name: "token-1",
+                annotations: [(OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION): "2024-05-10T12:00:00Z"]),
+                data: [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): Base64Util.encode(TOKEN_ID + "-1")])
+        def k8SSecretManager = Mock(K8sSecretManager) {
+            getSecretByName("token-1") >> secret
+        }
+        tokenCleanupEngine.k8SSecretManager = k8SSecretManager
+        def clientRequestService = Mock(ClientRequestService)
+        tokenCleanupEngine.clientRequestService = clientRequestService
+
+        when: "The expired ODP token is cleaned up"
+        def cleanupCount = tokenCleanupEngine.cleanup(["token-1"])
+
+        then: "The ODP token is neither logged out nor deleted"
+        0 * clientRequestService.requestLogout(_)
+        0 * k8SSecretManager.deleteSecretByName(_)
+        cleanupCount == 0
+        meterRegistry.get("odp.token.cleanup.tokens").tag("outcome", "skipped").counter().count() == 1
+
+        when: "The ODP token is cleaned up by the logout queue"
+        def keptTokenNames = tokenCleanupEngine.cleanupAndGetKept(["token-1"])
+
+        then: "The ODP token pending logout is logged out and deleted"
+        1 * clientRequestService.requestLogout(TOKEN_ID + "-1") >> Response.Status.FOUND.statusCode
+        1 * k8SSecretManager.deleteSecretByName("token-1")
+        keptTokenNames == []
+    }
+
+    def "Cleanup backs off and retries when the SSO service is overloaded"() {
+        given: "An SSO service which rejects the first logout as overloaded"
+        def logoutAttempts = new AtomicInteger()
+        tokenCleanupEngine.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(_ as String) >> { String tokenName -> createSecret(tokenName) }
+        }
+        tokenCleanupEngine.clientRequestService = Stub(ClientRequestService) {
+            requestLogout(_ as String) >> {
+                logoutAttempts.incrementAndGet() == 1 ? 429 : Response.Status.FOUND.statusCode
+            }
+        }
+
+        when: "The expired ODP token is cleaned up"
+        def cleanupCount = tokenCleanupEngine.cleanup(["token-1"])
+
+        then: "The logout is retried at a backed off rate"
+        cleanupCount == 1
+        logoutAttempts.get() == 2
+        tokenCleanupEngine.ssoRateLimiter.getRate() < TokenCleanupEngine.CLEANUP_MAX_QPS
+    }
+
+    def "Cleanup backs off and retries while the SSO service is unavailable"() {
+        given: "An SSO service which rejects the first logout as unavailable"
+        def logoutAttempts = new AtomicInteger()
+        tokenCleanupEngine.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(_ as String) >> { String tokenName -> createSecret(tokenName) }
+        }
+        tokenCleanupEngine.clientRequestService = Stub(ClientRequestService) {
+            requestLogout(_ as String) >> {
+                if (logoutAttempts.incrementAndGet() == 1) {
+                    throw new SsoUnavailableException("The SSO service is unavailable.")
+                }
+                Response.Status.FOUND.statusCode
+            }
+        }
+
+        when: "The expired ODP token is cleaned up"
+        def cleanupCount = tokenCleanupEngine.cleanup(["token-1"])
+
+        then: "The logout is retried at a backed off rate"
+        cleanupCount == 1
+        logoutAttempts.get() == 2
+        tokenCleanupEngine.ssoRateLimiter.getRate() < TokenCleanupEngine.CLEANUP_MAX_QPS
+    }
+
+    def "Cleanup backs off and gives up when the API server stays overloaded"() {
+        given: "An API server which rejects every Secret deletion as overloaded"
+        def k8SSecretManager = Mock(K8sSecretManager) {
+            getSecretByName(_ as String) >> { String tokenName -> createSecret(tokenName) }
+        }
+        tokenCleanupEngine.k8SSecretManager = k8SSecretManager
+        tokenCleanupEngine.clientRequestService = Stub(ClientRequestService) {
+            requestLogout(_ as String) >> Response.Status.FOUND.statusCode
+        }
+
+        when: "The expired ODP token is cleaned up"
+        def cleanupCount = tokenCleanupEngine.cleanup(["token-1"])
+
+        then: "The deletion is attempted up to the maximum attempts at a backed off rate"
+        3 * k8SSecretManager.deleteSecretByName("token-1") >> {
+            throw new TokenServiceException("Failure deleting Secret by name.", 503)
+        }
+        cleanupCount == 0
+        tokenCleanupEngine.kubernetesRateLimiter.getRate() < TokenCleanupEngine.CLEANUP_MAX_QPS
+    }
+
+    def "Cleanup workers are bounded"() {
+        given: "A Secret fetch which records the number of cleanups in progress"
+        def inProgress = new AtomicInteger()
+        def maxInProgress = new AtomicInteger()
+        tokenCleanupEngine.k8SSecretManager = Stub(K8sSecretManager) {
+            getSecretByName(_ as String) >> { String tokenName ->
+                maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), { a, b -> Math.max(a, b) })
+                Thread.sleep(5)
+                inProgress.decrementAndGet()
+                null
+            }
+        }
+
+        when: "More expired ODP tokens than cleanup workers are cleaned up"
+        tokenCleanupEngine.cleanup((1..TokenCleanupEngine.CLEANUP_WORKERS * 3).collect { "token-" + it })
+
+        then: "No more than the cleanup workers clean up tokens at a time"
+        maxInProgress.get() <= TokenCleanupEngine.CLEANUP_WORKERS
+    }
+
+    boolean awaitBacklog(int expectedBacklog) {
+        def backlog = meterRegistry.get("odp.token.cleanup.backlog").gauge()
+        for (int attempt = 0; attempt < 500 && backlog.value() != expectedBacklog; attempt++) {
+            Thread.sleep(10)
+        }
+        backlog.value() == expectedBacklog
+    }
+
+    Secret createSecret(String tokenName) {
+        Stub(Secret) {
+            getData() >> [(OdpTokenConstants.ODP_TOKEN_DATA_KEY): Base64Util.encode(TOKEN_ID + tokenName.substring(tokenName.indexOf("-")))]
+        }
+    }
+}
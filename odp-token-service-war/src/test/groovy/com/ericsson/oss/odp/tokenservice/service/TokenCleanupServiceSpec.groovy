@@ -25,6 +25,9 @@ class TokenCleanupServiceSpec extends Specification {
     def "Token cleanup execution"() {
         given: "A Token Cleanup service instance"
         def tokenCleanupService = new TokenCleanupService()
+        tokenCleanupService.leaderElectionService = Stub(LeaderElectionService) {
+            isLeader() >> true
+        }
          def odpAuthDataService = Mock(OdpAuthDataService) {
             cleanupExpiredTokens(_ as Instant) >> 1
         }
@@ -36,4 +39,62 @@ class TokenCleanupServiceSpec extends Specification {
         then: "Expired token is cleaned up"
         1 * odpAuthDataService.cleanupExpiredTokens(_ as Instant)
     }
-}
\ No newline at end of file
+
+    def "Expired tokens are cleaned up from the expiry index"() {
+        given: "A Token Cleanup service instance with 2 expired tokens in the expiry index"
+        def tokenCleanupService = new TokenCleanupService()
+        tokenCleanupService.leaderElectionService = Stub(LeaderElectionService) {
+            isLeader() >> true
+        }
+        tokenCleanupService.tokenExpiryIndex = Stub(TokenExpiryIndex) {
+            pollExpired(_ as Instant) >> ["token-1", "token-2"]
+        }
+        def tokenCleanupEngine = Mock(TokenCleanupEngine)
+        tokenCleanupService.tokenCleanupEngine = tokenCleanupEngine
+
+        when: "Token expiry is executed"
+        tokenCleanupService.expire()
+
+        then: "The expired tokens are cleaned up"
+        1 * tokenCleanupEngine.cleanup(["token-1", "token-2"])
+    }
+
+    def "No cleanup without expired tokens in the expiry index"() {
+        given: "A Token Cleanup service instance without expired tokens in the expiry index"
+        def tokenCleanupService = new TokenCleanupService()
+        tokenCleanupService.leaderElectionService = Stub(LeaderElectionService) {
+            isLeader() >> true
+        }
+        tokenCleanupService.tokenExpiryIndex = Stub(TokenExpiryIndex) {
+            pollExpired(_ as Instant) >> []
+        }
+        def tokenCleanupEngine = Mock(TokenCleanupEngine)
+        tokenCleanupService.tokenCleanupEngine = tokenCleanupEngine
+
+        when: "Token expiry is executed"
+        tokenCleanupService.expire()
+
+        then: "No token is cleaned up"
+        0 * tokenCleanupEngine.cleanup(_)
+    }
+
+    def "No cleanup on a replica which is not the cleanup leader"() {
+        given: "A Token Cleanup service instance on a replica which is not the cleanup leader"
+        def tokenCleanupService = new TokenCleanupService()
+        tokenCleanupService.leaderElectionService = Stub(LeaderElectionService) {
+            isLeader() >> false
+        }
+        def odpAuthDataService = Mock(OdpAuthDataService)
+        tokenCleanupService.odpAuthDataService = odpAuthDataService
+        def tokenExpiryIndex = Mock(TokenExpiryIndex)
+        tokenCleanupService.tokenExpiryIndex = tokenExpiryIndex
+
+        when: "Token cleanup and expiry are executed"
+        tokenCleanupService.execute()
+        tokenCleanupService.expire()
+
+        then: "No token is cleaned up"
+        0 * odpAuthDataService.cleanupExpiredTokens(_)
+        0 * tokenExpiryIndex.pollExpired(_)
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.api.model.Secret
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager
+
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+
+class TokenExpiryIndexSpec extends Specification {
+
+    def now = Instant.parse("2024-05-10T12:00:00Z")
+    def meterRegistry = new SimpleMeterRegistry()
+    def tokenExpiryIndex = new TokenExpiryIndex()
+
+    def setup() {
+        tokenExpiryIndex.meterRegistry = meterRegistry
+    }
+
+    def "Expired ODP tokens are polled in expiry order"() {
+        given: "ODP tokens expiring before and after now"
+        tokenExpiryIndex.put("token-1", now.minusSeconds(5))
+        tokenExpiryIndex.put("token-2", now.plusSeconds(5))
+        tokenExpiryIndex.put("token-3", now.minusSeconds(10))
+        tokenExpiryIndex.put("token-4", now)
+
+        when: "The expired ODP tokens are polled"
+        def expiredTokenNames = tokenExpiryIndex.pollExpired(now)
+
+        then: "Only the expired ODP tokens are polled, the earliest expired first"
+        expiredTokenNames == ["token-3", "token-1", "token-4"]
+        tokenExpiryIndex.size() == 1
+        tokenExpiryIndex.pollExpired(now).isEmpty()
+
+        and: "The expiry lag is recorded"
+        meterRegistry.get("odp.token.expiry.lag").timer().count() == 3
+    }
+
+    def "Removed and updated ODP tokens are polled by their latest expiry"() {
+        given: "An ODP token removed and an ODP token whose expiry is postponed"
+        tokenExpiryIndex.put("token-1", now.minusSeconds(5))
+        tokenExpiryIndex.put("token-2", now.minusSeconds(5))
+        tokenExpiryIndex.remove("token-1")
+        tokenExpiryIndex.put("token-2", now.plusSeconds(5))
+
+        expect: "Neither ODP token is expired now"
+        tokenExpiryIndex.pollExpired(now).isEmpty()
+
+        and: "The updated ODP token expires by its latest expiry"
+        tokenExpiryIndex.pollExpired(now.plusSeconds(5)) == ["token-2"]
+    }
+
+    def "Stale entries are compacted"() {
+        when: "Many ODP token expiries are updated"
+        5000.times { tokenExpiryIndex.put("token-1", now.plusSeconds(it)) }
+
+        then: "The queue does not grow with the updates"
+        tokenExpiryIndex.expiryQueue.size() <= 2048
+        tokenExpiryIndex.size() == 1
+        tokenExpiryIndex.pollExpired(now.plusSeconds(5000)) == ["token-1"]
+    }
+
+    def "ODP tokens are indexed from the Secret watch events"() {
+        given: "The Secret watch event handler"
+        ResourceEventHandler<Secret> secretEventHandler = null
+        tokenExpiryIndex.k8SSecretManager = Stub(K8sSecretManager) {
+            addSecretEventHandler(_ as ResourceEventHandler) >> { ResourceEventHandler handler ->
+                secretEventHandler = handler
+                true
+            }
+        }
+        tokenExpiryIndex.init()
+
+        when: "Secrets are added and one of them deleted"
+        secretEventHandler.onAdd(createSecret("token-1", now.minus(25, ChronoUnit.HOURS)))
+        secretEventHandler.onAdd(createSecret("token-2", now.minus(25, ChronoUnit.HOURS)))
+        secretEventHandler.onAdd(createSecret("token-3", now.minus(1, ChronoUnit.HOURS)))
+        secretEventHandler.onDelete(createSecret("token-2", now.minus(25, ChronoUnit.HOURS)), false)
+
+        then: "The ODP tokens are expired by their creation time and TTL"
+        tokenExpiryIndex.pollExpired(now) == ["token-1"]
+        meterRegistry.get("odp.token.expiry.index.size").gauge().value() == 1
+    }
+
+    Secret createSecret(String name, Instant creationTimestamp) {
+        def secret = new Secret()
+        def objectMeta = new ObjectMeta()
+        objectMeta.name = name
+        objectMeta.creationTimestamp = creationTimestamp.toString()
+        secret.metadata = objectMeta
+        secret
+    }
+}
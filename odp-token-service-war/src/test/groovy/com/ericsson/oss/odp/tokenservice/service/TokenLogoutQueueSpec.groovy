@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.enterprise.concurrent.ManagedThreadFactory
+
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.api.model.Secret
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import com.ericsson.oss.odp.tokenservice.manager.K8sSecretManager
+import com.ericsson.oss.odp.tokenservice.util.OdpTokenConstants
+
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+class TokenLogoutQueueSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def tokenLogoutQueue = new TokenLogoutQueue()
+    def k8SSecretManager = Mock(K8sSecretManager)
+    ResourceEventHandler<Secret> secretEventHandler = null
+
+    def setup() {
+        k8SSecretManager.addSecretEventHandler(_ as ResourceEventHandler) >> { ResourceEventHandler handler ->
+            secretEventHandler = handler
+            true
+        }
+        tokenLogoutQueue.k8SSecretManager = k8SSecretManager
+        tokenLogoutQueue.tokenCleanupEngine = Mock(TokenCleanupEngine)
+        tokenLogoutQueue.leaderElectionService = Stub(LeaderElectionService) {
+            isLeader() >> true
+        }
+        tokenLogoutQueue.meterRegistry = meterRegistry
+        tokenLogoutQueue.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> new Thread()
+        }
+        tokenLogoutQueue.init()
+    }
+
+    def cleanup() {
+        tokenLogoutQueue.destroy()
+    }
+
+    def "Deleted ODP token is marked pending logout and queued"() {
+        when: "The ODP token logout is queued"
+        tokenLogoutQueue.enqueue(createSecret("token-1", [:]))
+
+        then: "The Secret is annotated as pending logout, to be logged out right away"
+        1 * k8SSecretManager.annotateSecret("token-1", _ as Map) >> { String tokenName, Map<String, String> annotations ->
+            assert annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION] != null
+            assert annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION] == "0"
+            assert annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_NEXT_ATTEMPT_AT_ANNOTATION] ==
+                    annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION]
+        }
+        tokenLogoutQueue.size() == 1
+        tokenLogoutQueue.dueLogouts.peek().getDelay(TimeUnit.MILLISECONDS) <= 0
+
+        and: "The queue size is recorded"
+        meterRegistry.get("odp.token.logout.queue.size").gauge().value() == 1
+    }
+
+    def "ODP token already pending logout is not marked again"() {
+        when: "The logout of an ODP token already pending logout is queued"
+        tokenLogoutQueue.enqueue(createSecret("token-1", createPendingLogoutAnnotations(Instant.now(), 2)))
+
+        then: "The Secret is not annotated again"
+        0 * k8SSecretManager.annotateSecret(_, _)
+        tokenLogoutQueue.size() == 1
+    }
+
+    def "Logged out ODP tokens are deleted and failed logouts are retried"() {
+        given: "2 due logouts, the second one failing"
+        tokenLogoutQueue.enqueue(createSecret("token-1", createPendingLogoutAnnotations(Instant.now(), 0)))
+        tokenLogoutQueue.enqueue(createSecret("token-2", createPendingLogoutAnnotations(Instant.now(), 0)))
+        def batch = []
+        tokenLogoutQueue.dueLogouts.drainTo(batch)
+
+        when: "The due logouts are processed"
+        tokenLogoutQueue.process(batch)
+
+        then: "The ODP tokens are cleaned up in a single batch"
+        1 * tokenLogoutQueue.tokenCleanupEngine.cleanupAndGetKept(["token-1", "token-2"]) >> ["token-2"]
+
+        and: "The failed logout is retried later, with its attempts persisted"
+        1 * k8SSecretManager.annotateSecret("token-2", _ as Map) >> { String tokenName, Map<String, String> annotations ->
+            assert annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION] == "1"
+            assert Instant.parse(annotations[OdpTokenConstants.ODP_TOKEN_LOGOUT_NEXT_ATTEMPT_AT_ANNOTATION]).isAfter(Instant.now())
+        }
+        tokenLogoutQueue.size() == 1
+        tokenLogoutQueue.dueLogouts.poll() == null
+
+        and: "The logout outcomes and delay are recorded"
+        meterRegistry.get("odp.token.logout.queue.logouts").tag("outcome", "deleted").counter().count() == 1
+        meterRegistry.get("odp.token.logout.queue.logouts").tag("outcome", "retried").counter().count() == 1
+        meterRegistry.get("odp.token.logout.queue.delay").timer().count() == 1
+    }
+
+    def "Logout failing for the maximum attempts is abandoned"() {
+        given: "A due logout which has already failed one attempt short of the maximum attempts"
+        tokenLogoutQueue.enqueue(createSecret("token-1",
+                createPendingLogoutAnnotations(Instant.now(), TokenLogoutQueue.LOGOUT_MAX_ATTEMPTS - 1)))
+        def batch = []
+        tokenLogoutQueue.dueLogouts.drainTo(batch)
+
+        when: "The due logout is processed and fails again"
+        tokenLogoutQueue.process(batch)
+
+        then: "The logout is not retried, the ODP token is deleted and no longer pending logout"
+        1 * tokenLogoutQueue.tokenCleanupEngine.cleanupAndGetKept(["token-1"]) >> ["token-1"]
+        0 * k8SSecretManager.annotateSecret(_, _)
+        1 * k8SSecretManager.deleteSecretByName("token-1")
+        tokenLogoutQueue.size() == 0
+        tokenLogoutQueue.dueLogouts.poll() == null
+
+        and: "The abandoned logout is recorded"
+        meterRegistry.get("odp.token.logout.queue.logouts").tag("outcome", "abandoned").counter().count() == 1
+        meterRegistry.find("odp.token.logout.queue.logouts").tag("outcome", "retried").counter() == null
+    }
+
+    def "Logouts are deferred while this replica is not the leader"() {
+        given: "A due logout on a replica which is not the leader"
+        tokenLogoutQueue.leaderElectionService = Stub(LeaderElectionService) {
+            isLeader() >> false
+        }
+        tokenLogoutQueue.enqueue(createSecret("token-1", createPendingLogoutAnnotations(Instant.now(), 0)))
+        def batch = []
+        tokenLogoutQueue.dueLogouts.drainTo(batch)
+
+        when: "The due logouts are processed"
+        tokenLogoutQueue.process(batch)
+
+        then: "The logout is kept queued for later"
+        0 * tokenLogoutQueue.tokenCleanupEngine.cleanupAndGetKept(_)
+        tokenLogoutQueue.size() == 1
+        tokenLogoutQueue.dueLogouts.size() == 1
+    }
+
+    def "Pending logouts are restored from the Secret watch events"() {
+        given: "The next logout attempt time of a Secret pending logout"
+        def nextAttemptAt = Instant.now().plusSeconds(60)
+
+        when: "A Secret pending logout and a regular Secret are watched"
+        secretEventHandler.onAdd(createSecret("token-1", createPendingLogoutAnnotations(nextAttemptAt, 3)))
+        secretEventHandler.onAdd(createSecret("token-2", [:]))
+
+        then: "Only the ODP token pending logout is queued"
+        tokenLogoutQueue.size() == 1
+
+        when: "The same Secret is updated without any logout change"
+        secretEventHandler.onUpdate(createSecret("token-1", [:]), createSecret("token-1", createPendingLogoutAnnotations(nextAttemptAt, 3)))
+
+        then: "The ODP token is not queued twice"
+        tokenLogoutQueue.dueLogouts.size() == 1
+
+        when: "The Secret is deleted"
+        secretEventHandler.onDelete(createSecret("token-1", [:]), false)
+
+        then: "The ODP token is no longer pending logout"
+        tokenLogoutQueue.size() == 0
+    }
+
+    def "Logout retry backoff grows up to the maximum backoff"() {
+        expect: "The backoff is jittered within the upper half of the capped exponential backoff"
+        (1..40).every { attempts ->
+            long cappedBackoffMillis = Math.min(TokenLogoutQueue.LOGOUT_RETRY_BASE_MILLIS * (1L << Math.min(attempts - 1, 30)),
+                    TokenLogoutQueue.LOGOUT_RETRY_MAX_MILLIS)
+            long backoffMillis = TokenLogoutQueue.getBackoffMillis(attempts)
+            backoffMillis >= cappedBackoffMillis.intdiv(2) && backoffMillis <= cappedBackoffMillis
+        }
+    }
+
+    static Secret createSecret(String tokenName, Map<String, String> annotations) {
+        new Secret(metadata: new ObjectMeta(name: tokenName, annotations: annotations))
+    }
+
+    static Map<String, String> createPendingLogoutAnnotations(Instant nextAttemptAt, int attempts) {
+        [(OdpTokenConstants.ODP_TOKEN_LOGOUT_PENDING_SINCE_ANNOTATION)   : "2024-05-10T12:00:00Z",
+         (OdpTokenConstants.ODP_TOKEN_LOGOUT_ATTEMPTS_ANNOTATION)       : String.valueOf(attempts),
+         (OdpTokenConstants.ODP_TOKEN_LOGOUT_NEXT_ATTEMPT_AT_ANNOTATION): nextAttemptAt.toString()]
+    }
+}
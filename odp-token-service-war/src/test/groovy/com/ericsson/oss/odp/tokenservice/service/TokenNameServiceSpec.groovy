@@ -18,6 +18,11 @@ package com.ericsson.oss.odp.tokenservice.service
 
 import spock.lang.Specification
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
 class TokenNameServiceSpec extends Specification {
 
     def "Token names should start with 'odptoken-secret' prefix"() {
@@ -60,4 +65,44 @@ class TokenNameServiceSpec extends Specification {
         tokenName1Index.find(/(\d{1})$/) == "1"
         tokenName2Index.find(/(\d{1})$/) == "2"
     }
-}
\ No newline at end of file
+
+    def "Token names generated concurrently are unique"() {
+        given: "A TokenName service instance shared by 16 threads"
+        def tokenNameService = new TokenNameService()
+        tokenNameService.tokenServiceSetup = Stub(TokenServiceSetup) {
+            getTokenServiceTimestamp() >> "20240510111812"
+        }
+        def threads = 16
+        def namesPerThread = 10000
+        def tokenNames = ConcurrentHashMap.newKeySet()
+        def startLatch = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(threads)
+
+        when: "The threads generate token names at the same time"
+        threads.times {
+            executor.execute {
+                startLatch.await()
+                namesPerThread.times { tokenNames << tokenNameService.getNewTokenName() }
+            }
+        }
+        startLatch.countDown()
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.MINUTES)
+
+        then: "No token name is generated twice"
+        tokenNames.size() == threads * namesPerThread
+
+        and: "The token names are valid Secret names"
+        tokenNames.every { it ==~ /[a-z0-9]([-a-z0-9]*[a-z0-9])?/ && it.length() <= 253 }
+    }
+
+    def "Replicas get different token names"() {
+        expect: "The replica id is derived from the random suffix of the pod name"
+        TokenNameService.toReplicaId("eric-odp-token-service-7d9f8c5b4-x2k9p") == "x2k9p"
+        TokenNameService.toReplicaId("eric-odp-token-service-7d9f8c5b4-Q7ZMT") == "q7zmt"
+
+        and: "A random replica id is generated when the pod name is not known"
+        TokenNameService.toReplicaId(null) ==~ /[a-z0-9]{5}/
+        (1..10).collect { TokenNameService.toReplicaId(null) }.toSet().size() > 1
+    }
+}
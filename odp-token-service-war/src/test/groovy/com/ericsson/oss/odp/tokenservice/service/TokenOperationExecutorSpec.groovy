@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.service
+
+import javax.enterprise.concurrent.ManagedThreadFactory
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+class TokenOperationExecutorSpec extends Specification {
+
+    def tokenOperationExecutor = new TokenOperationExecutor()
+
+    def setup() {
+        tokenOperationExecutor.meterRegistry = new SimpleMeterRegistry()
+        tokenOperationExecutor.managedThreadFactory = Stub(ManagedThreadFactory) {
+            newThread(_ as Runnable) >> { Runnable runnable -> new Thread(runnable) }
+        }
+        tokenOperationExecutor.init()
+    }
+
+    def cleanup() {
+        tokenOperationExecutor.destroy()
+    }
+
+    def "Token operation completes with its result"() {
+        when: "A token operation is submitted"
+        def result = tokenOperationExecutor.submit(TokenOperationExecutor.Operation.GET, { "odptoken-secret" })
+
+        then: "The operation completes with its result"
+        result.get(5, TimeUnit.SECONDS) == "odptoken-secret"
+    }
+
+    def "Token operation completes exceptionally with its failure"() {
+        when: "A failing token operation is submitted"
+        def result = tokenOperationExecutor.submit(TokenOperationExecutor.Operation.CREATE, {
+            throw new IllegalStateException("Failure creating new Secret.")
+        })
+        result.get(5, TimeUnit.SECONDS)
+
+        then: "The operation completes with its failure"
+        def e = thrown(ExecutionException)
+        e.getCause() instanceof IllegalStateException
+    }
+
+    def "Token operation not completed in time times out"() {
+        given: "A token operation which does not complete"
+        def blocker = new CountDownLatch(1)
+        def interrupted = new CountDownLatch(1)
+
+        when: "The token operation is submitted"
+        def result = tokenOperationExecutor.submit(TokenOperationExecutor.Operation.GET, {
+            try {
+                blocker.await()
+            } catch (InterruptedException ignored) {
+                interrupted.countDown()
+            }
+        })
+        result.get(TokenOperationExecutor.Operation.GET.getTimeoutMillis() + 5000, TimeUnit.MILLISECONDS)
+
+        then: "The operation completes with a timeout and the read-only operation is interrupted"
+        def e = thrown(ExecutionException)
+        e.getCause() instanceof TimeoutException
+        interrupted.await(5, TimeUnit.SECONDS)
+    }
+
+    def "Only read-only token operations are interrupted on timeout"() {
+        expect: "The create and delete operations run to completion once timed out"
+        TokenOperationExecutor.Operation.values().findAll { it.isInterruptedOnTimeout() } == [TokenOperationExecutor.Operation.GET]
+    }
+
+    def "Completed token operations do not keep their timeouts scheduled"() {
+        when: "Token operations complete before their timeout"
+        def results = (1..100).collect {
+            tokenOperationExecutor.submit(TokenOperationExecutor.Operation.CREATE, { "odptoken-secret" })
+        }
+        results.each { it.get(5, TimeUnit.SECONDS) }
+
+        then: "Their cancelled timeouts are removed from the timeout scheduler"
+        new PollingConditions(timeout: 5).eventually {
+            assert tokenOperationExecutor.timeoutScheduler.getQueue().isEmpty()
+        }
+    }
+
+    def "Token operation is rejected when the executor is saturated"() {
+        given: "The delete operation executor threads and queue are all busy"
+        def blocker = new CountDownLatch(1)
+        def results = (1..1000).collect {
+            tokenOperationExecutor.submit(TokenOperationExecutor.Operation.DELETE, { blocker.await() })
+        }
+
+        when: "Another token operation is submitted"
+        def result = tokenOperationExecutor.submit(TokenOperationExecutor.Operation.DELETE, { "odptoken-secret" })
+        result.get(5, TimeUnit.SECONDS)
+
+        then: "The operation is rejected"
+        def e = thrown(ExecutionException)
+        e.getCause() instanceof RejectedExecutionException
+
+        cleanup:
+        blocker.countDown()
+    }
+}
@@ -16,7 +16,10 @@
 
 package com.ericsson.oss.odp.tokenservice.service
 
+import javax.net.ssl.SSLContext
+
 import io.fabric8.kubernetes.client.KubernetesClientException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
 import com.ericsson.oss.odp.tokenservice.util.SSLContextBuilder
@@ -44,10 +47,10 @@ class TokenServiceSetupSpec extends Specification {
         given: "A TokenServiceSetup service instance"
         def tokenServiceSetup = new TokenServiceSetup()
         tokenServiceSetup.sslContextBuilder = Stub(SSLContextBuilder) {
-            buildSSLContext() >> null
+            buildSSLContext() >> createSSLContext()
         }
         expect: "An Http Client CDI instance"
-        tokenServiceSetup.getHttpClient()
+        tokenServiceSetup.getHttpClient(new SimpleMeterRegistry())
     }
 
     def "Failure producing an Http Client CDI instance"() {
@@ -58,7 +61,7 @@ class TokenServiceSetupSpec extends Specification {
         }
 
         when: "Http Client instance is build"
-        tokenServiceSetup.getHttpClient()
+        tokenServiceSetup.getHttpClient(new SimpleMeterRegistry())
 
         then: "Failure producing an Http Client CDI instance"
         def e = thrown(RuntimeException)
@@ -80,4 +83,10 @@ class TokenServiceSetupSpec extends Specification {
         expect: "The token truststore path is present"
         tokenServiceSetup.getOdpTokenTruststorePath()
     }
+
+    SSLContext createSSLContext() {
+        def sslContext = SSLContext.getInstance("TLS")
+        sslContext.init(null, null, null)
+        sslContext
+    }
 }
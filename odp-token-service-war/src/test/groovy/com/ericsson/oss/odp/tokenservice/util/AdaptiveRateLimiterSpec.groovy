@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.util
+
+import spock.lang.Specification
+
+class AdaptiveRateLimiterSpec extends Specification {
+
+    def "Permits are spread at the current rate"() {
+        given: "A rate limiter with a 100 permits per second rate"
+        def rateLimiter = new AdaptiveRateLimiter(1, 100)
+
+        when: "21 permits are acquired"
+        long start = System.nanoTime()
+        21.times { rateLimiter.acquire() }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000
+
+        then: "The permits are acquired over at least 200 milliseconds"
+        elapsedMillis >= 190
+    }
+
+    def "Rate is halved once per second on overload and bounded by the minimum rate"() {
+        given: "A rate limiter at a 16 permits per second rate"
+        def rateLimiter = new AdaptiveRateLimiter(10, 16)
+
+        when: "The downstream service reports an overload twice in a row"
+        rateLimiter.onThrottle()
+        rateLimiter.onThrottle()
+
+        then: "The rate is halved once, and not below the minimum rate"
+        rateLimiter.getRate() == 10
+    }
+
+    def "Rate increases back to the maximum rate on successful requests"() {
+        given: "A backed off rate limiter"
+        def rateLimiter = new AdaptiveRateLimiter(1, 8)
+        rateLimiter.onThrottle()
+
+        when: "The downstream service handles the requests"
+        def rates = (1..100).collect {
+            rateLimiter.onSuccess()
+            rateLimiter.getRate()
+        }
+
+        then: "The rate increases up to the maximum rate"
+        rates[0] > 4
+        rates[0] < 5
+        rates.last() == 8
+    }
+
+    def "Invalid rate range is rejected"() {
+        when: "A rate limiter with a maximum rate below the minimum rate is created"
+        new AdaptiveRateLimiter(10, 5)
+
+        then: "The rate range is rejected"
+        thrown(IllegalArgumentException)
+    }
+}
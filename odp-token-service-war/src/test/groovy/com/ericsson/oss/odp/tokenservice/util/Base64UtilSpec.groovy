@@ -38,4 +38,13 @@ class Base64UtilSpec extends Specification {
         then: "The base64 value is decoded"
         decodedOutput == RAW_STRING_VALUE
     }
+
+    def "Non ASCII raw string is encoded and decoded as UTF-8"() {
+        when: "A non ASCII raw string is base64 encoded"
+        def base64EncodedOutput = Base64Util.encode("\u00e5sa-\u00f8dp")
+
+        then: "The UTF-8 bytes are encoded and decoded back to the same raw string"
+        base64EncodedOutput == "w6VzYS3DuGRw"
+        Base64Util.decode(base64EncodedOutput) == "\u00e5sa-\u00f8dp"
+    }
 }
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util
+
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class CircuitBreakerSpec extends Specification {
+
+    def "Circuit opens once the failure rate of the window reaches the threshold"() {
+        given: "A circuit breaker opening at a 50% failure rate over the last 4 calls"
+        def circuitBreaker = new CircuitBreaker(4, 4, 50, 1000, 60000, 1)
+
+        when: "1 out of 4 calls fails"
+        3.times { circuitBreaker.tryAcquire(); circuitBreaker.onSuccess(0) }
+        circuitBreaker.tryAcquire()
+        circuitBreaker.onFailure()
+
+        then: "The circuit stays closed"
+        circuitBreaker.getState() == CircuitBreaker.State.CLOSED
+        circuitBreaker.tryAcquire()
+
+        when: "2 out of the last 4 calls fail"
+        circuitBreaker.onFailure()
+
+        then: "The circuit opens and rejects the calls"
+        circuitBreaker.getState() == CircuitBreaker.State.OPEN
+        !circuitBreaker.tryAcquire()
+    }
+
+    def "Circuit does not open before the minimum number of calls"() {
+        given: "A circuit breaker needing at least 3 calls to open"
+        def circuitBreaker = new CircuitBreaker(10, 3, 50, 1000, 60000, 1)
+
+        when: "2 calls fail"
+        2.times { circuitBreaker.tryAcquire(); circuitBreaker.onFailure() }
+
+        then: "The circuit stays closed"
+        circuitBreaker.getState() == CircuitBreaker.State.CLOSED
+    }
+
+    def "Slow calls count as failed"() {
+        given: "A circuit breaker opening on the first failure"
+        def circuitBreaker = new CircuitBreaker(1, 1, 100, 1000, 60000, 1)
+
+        when: "A call takes longer than the slow call duration"
+        circuitBreaker.tryAcquire()
+        circuitBreaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1001))
+
+        then: "The circuit opens"
+        circuitBreaker.getState() == CircuitBreaker.State.OPEN
+    }
+
+    def "Half open circuit closes once all the probe calls succeed"() {
+        given: "An open circuit breaker letting 2 probe calls through after 50 milliseconds"
+        def circuitBreaker = new CircuitBreaker(1, 1, 100, 1000, 50, 2)
+        circuitBreaker.tryAcquire()
+        circuitBreaker.onFailure()
+
+        when: "The open duration has elapsed"
+        Thread.sleep(100)
+
+        then: "Only the probe calls are permitted"
+        circuitBreaker.tryAcquire()
+        circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN
+        circuitBreaker.tryAcquire()
+        !circuitBreaker.tryAcquire()
+
+        when: "The probe calls succeed"
+        2.times { circuitBreaker.onSuccess(0) }
+
+        then: "The circuit closes"
+        circuitBreaker.getState() == CircuitBreaker.State.CLOSED
+        circuitBreaker.tryAcquire()
+    }
+
+    def "Half open circuit opens again as soon as a probe call fails"() {
+        given: "An open circuit breaker letting 2 probe calls through after 50 milliseconds"
+        def circuitBreaker = new CircuitBreaker(1, 1, 100, 1000, 50, 2)
+        circuitBreaker.tryAcquire()
+        circuitBreaker.onFailure()
+        Thread.sleep(100)
+
+        when: "A probe call fails"
+        circuitBreaker.tryAcquire()
+        circuitBreaker.onFailure()
+
+        then: "The circuit opens again"
+        circuitBreaker.getState() == CircuitBreaker.State.OPEN
+        !circuitBreaker.tryAcquire()
+    }
+}
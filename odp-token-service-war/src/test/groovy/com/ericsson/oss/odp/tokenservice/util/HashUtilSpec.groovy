@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util
+
+import spock.lang.Specification
+
+class HashUtilSpec extends Specification {
+
+    def "Values are hashed into a label value"() {
+        when: "Values are hashed into a label value"
+        def labelValue = HashUtil.toLabelValue("odpusername", "create-1")
+
+        then: "The label value is a stable 40 characters lowercase hex hash"
+        labelValue ==~ /[0-9a-f]{40}/
+        labelValue == HashUtil.toLabelValue("odpusername", "create-1")
+    }
+
+    def "Values are hashed separately from each other"() {
+        expect: "The same characters split differently among the values give different label values"
+        HashUtil.toLabelValue("odpuser", "name") != HashUtil.toLabelValue("odpusername", "")
+        HashUtil.toLabelValue("odpusername", "create-1") != HashUtil.toLabelValue("odpusername", "create-2")
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util
+
+import javax.net.ssl.SSLContext
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.http.HttpVersion
+import org.apache.http.message.BasicHttpResponse
+import org.apache.http.protocol.BasicHttpContext
+import spock.lang.Specification
+
+class HttpClientUtilSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def "Pooled HTTP client resumes the TLS sessions and publishes the connection pool metrics"() {
+        given: "A SSL context"
+        def sslContext = SSLContext.getInstance("TLS")
+        sslContext.init(null, null, null)
+
+        when: "The pooled HTTP client is built"
+        def httpClient = HttpClientUtil.buildPooledHttpClient(sslContext, meterRegistry)
+
+        then: "The TLS client sessions are cached"
+        sslContext.getClientSessionContext().getSessionTimeout() == HttpClientUtil.TLS_SESSION_TIMEOUT_SECONDS
+        sslContext.getClientSessionContext().getSessionCacheSize() == HttpClientUtil.TLS_SESSION_CACHE_SIZE
+
+        and: "The connection pool metrics are published"
+        meterRegistry.get("odp.token.sso.connections.max").gauge().value() == HttpClientUtil.MAX_CONNECTIONS
+        meterRegistry.get("odp.token.sso.connections").tag("state", "leased").gauge().value() == 0
+        meterRegistry.get("odp.token.sso.connections").tag("state", "available").gauge().value() == 0
+        meterRegistry.get("odp.token.sso.connections.pending").gauge().value() == 0
+
+        cleanup:
+        httpClient?.close()
+    }
+
+    def "Connections are kept alive as long as the server allows up to the configured keep alive time"() {
+        given: "A response of the server"
+        def response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK")
+        if (keepAlive) {
+            response.addHeader("Keep-Alive", keepAlive)
+        }
+
+        expect: "The connection is kept alive for the expected time"
+        HttpClientUtil.getKeepAliveStrategy().getKeepAliveDuration(response, new BasicHttpContext()) == expectedKeepAliveMillis
+
+        where:
+        keepAlive       | expectedKeepAliveMillis
+        null            | HttpClientUtil.KEEP_ALIVE_MILLIS
+        "timeout=5"     | 5000
+        "timeout=86400" | HttpClientUtil.KEEP_ALIVE_MILLIS
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+package com.ericsson.oss.odp.tokenservice.util
+
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SingleFlightSpec extends Specification {
+
+    def singleFlight = new SingleFlight<String, String>()
+    def executor = Executors.newFixedThreadPool(8)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "Concurrent calls for the same key share a single call"() {
+        given: "A call held in flight until released"
+        def calls = new AtomicInteger()
+        def release = new CountDownLatch(1)
+        def call = {
+            calls.incrementAndGet()
+            release.await(5, TimeUnit.SECONDS)
+            "value"
+        }
+
+        when: "8 callers call for the same key while the call is in flight"
+        def results = (1..8).collect { executor.submit({ singleFlight.execute("key", call) } as Callable) }
+        while (singleFlight.getExecutedCount() + singleFlight.getSharedCount() < 8) {
+            Thread.sleep(1)
+        }
+        release.countDown()
+
+        then: "The call is made once and its result is shared by all the callers"
+        results.collect { it.get(5, TimeUnit.SECONDS) } == ["value"] * 8
+        calls.get() == 1
+        singleFlight.getExecutedCount() == 1
+        singleFlight.getSharedCount() == 7
+        singleFlight.getInFlightCount() == 0
+    }
+
+    def "Calls for different keys are not coalesced"() {
+        when: "Calls are made for 2 keys one after the other"
+        def results = ["key-1", "key-2", "key-1"].collect { key -> singleFlight.execute(key, { key.toUpperCase() }) }
+
+        then: "Each call is made"
+        results == ["KEY-1", "KEY-2", "KEY-1"]
+        singleFlight.getExecutedCount() == 3
+        singleFlight.getSharedCount() == 0
+    }
+
+    def "Failure of a call is shared by the coalesced callers"() {
+        given: "A call held in flight until released, then failing"
+        def release = new CountDownLatch(1)
+        def call = {
+            release.await(5, TimeUnit.SECONDS)
+            throw new IOException("Failure fetching the value.")
+        }
+
+        when: "2 callers call for the same key while the call is in flight"
+        def results = (1..2).collect { executor.submit({ singleFlight.execute("key", call) } as Callable) }
+        while (singleFlight.getExecutedCount() + singleFlight.getSharedCount() < 2) {
+            Thread.sleep(1)
+        }
+        release.countDown()
+        def failures = results.collect {
+            try {
+                it.get(5, TimeUnit.SECONDS)
+                null
+            } catch (ExecutionException e) {
+                e.getCause()
+            }
+        }
+
+        then: "Both callers get the failure, and the next call is made again"
+        failures.every { it instanceof IOException && it.getMessage() == "Failure fetching the value." }
+        singleFlight.getInFlightCount() == 0
+        singleFlight.execute("key", { "value" }) == "value"
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ *
+ *
+ * The copyright to the computer program(s) herein is the property of
+ *
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ *
+ * permission from Ericsson Inc. or in accordance with the terms and
+ *
+ * conditions stipulated in the agreement/contract under which the
+ *
+ * program(s) have been supplied.
+ ******************************************************************************/
+
+
+package com.ericsson.oss.odp.tokenservice.util
+
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import spock.lang.Specification
+
+import java.time.Duration
+
+class TokenTtlUtilSpec extends Specification {
+
+    def "ODP token expires after the default TTL"() {
+        given: "The metadata of an ODP token Secret"
+        def objectMeta = new ObjectMeta()
+        objectMeta.creationTimestamp = "2024-05-09T12:52:12Z"
+
+        expect: "The ODP token expires 24 hours after its creation"
+        TokenTtlUtil.getExpiresAt(objectMeta).toString() == "2024-05-10T12:52:12Z"
+    }
+
+    def "ODP token without creation timestamp has no expiry"() {
+        expect: "No expiry for a Secret not created yet"
+        TokenTtlUtil.getExpiresAt(new ObjectMeta()) == null
+    }
+
+    def "ODP token expires at its expiry annotation capped by the maximum TTL"() {
+        given: "The metadata of an ODP token Secret with an expiry annotation"
+        def objectMeta = new ObjectMeta()
+        objectMeta.creationTimestamp = "2024-05-09T12:52:12Z"
+        objectMeta.annotations = [(OdpTokenConstants.ODP_TOKEN_EXPIRES_AT_ANNOTATION): annotatedExpiresAt]
+
+        expect: "The ODP token expires at the annotated time, capped by the maximum TTL"
+        TokenTtlUtil.getExpiresAt(objectMeta).toString() == expectedExpiresAt
+
+        where:
+        annotatedExpiresAt     | expectedExpiresAt
+        "2024-05-09T13:52:12Z" | "2024-05-09T13:52:12Z"
+        "2024-06-09T12:52:12Z" | "2024-05-10T12:52:12Z"
+        "not-a-timestamp"      | "2024-05-10T12:52:12Z"
+    }
+
+    def "Requested TTL is capped by the maximum TTL"() {
+        expect: "The requested TTL, the default TTL or the maximum TTL is resolved"
+        TokenTtlUtil.resolveTtl(ttlSeconds) == expectedTtl
+
+        where:
+        ttlSeconds | expectedTtl
+        60L        | Duration.ofMinutes(1)
+        null       | Duration.ofHours(24)
+        172800L    | Duration.ofHours(24)
+    }
+}